@@ -13,6 +13,10 @@
 package com.baidu.mochow.client;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import lombok.Getter;
@@ -22,6 +26,17 @@ import org.apache.http.annotation.NotThreadSafe;
 import com.baidu.mochow.http.Protocol;
 import com.baidu.mochow.auth.Credentials;
 import com.baidu.mochow.http.RetryPolicy;
+import com.baidu.mochow.http.resilience.AdaptiveConcurrencyOptions;
+import com.baidu.mochow.http.resilience.AdmissionOptions;
+import com.baidu.mochow.http.resilience.BulkheadOptions;
+import com.baidu.mochow.http.resilience.CircuitBreakerOptions;
+import com.baidu.mochow.http.resilience.RateLimitRule;
+import com.baidu.mochow.client.cache.QueryCacheOptions;
+import com.baidu.mochow.client.cache.ReadOperation;
+import com.baidu.mochow.client.cache.SearchCacheOptions;
+import com.baidu.mochow.client.cache.MetadataCache;
+import com.baidu.mochow.client.read.SearchBatchingOptions;
+import com.baidu.mochow.client.write.WriteValidationOptions;
 
 /**
  * Basic client configurations for Mochow clients.
@@ -41,6 +56,11 @@ public class ClientConfiguration {
      */
     public static final int DEFAULT_SOCKET_TIMEOUT_IN_MILLIS = 50 * 1000;
 
+    /**
+     * The default timeout for leasing a connection from the connection pool.
+     */
+    public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_IN_MILLIS = 10 * 1000;
+
     /**
      * The default max connection pool size.
      */
@@ -82,6 +102,12 @@ public class ClientConfiguration {
      */
     private int connectionTimeoutInMillis = ClientConfiguration.DEFAULT_CONNECTION_TIMEOUT_IN_MILLIS;
 
+    /**
+     * The timeout in milliseconds for leasing a connection from the connection pool, after which the request is shed.
+     * A value of 0 means infinity, and is not recommended.
+     */
+    private int connectionRequestTimeoutInMillis = ClientConfiguration.DEFAULT_CONNECTION_REQUEST_TIMEOUT_IN_MILLIS;
+
     /**
      * The optional size (in bytes) for the low level TCP socket buffer. This is an advanced option for advanced users
      * who want to tune low level TCP parameters to try and squeeze out more performance. Ignored if not positive.
@@ -103,6 +129,67 @@ public class ClientConfiguration {
      */
     private int ioThreadCount = Runtime.getRuntime().availableProcessors();
 
+    /**
+     * The time to live of the metadata cached by the client: database and table lists, table and index descriptions.
+     */
+    private long schemaCacheTtlInMillis = MetadataCache.DEFAULT_TTL_IN_MILLIS;
+
+    /**
+     * The age after which cached metadata is reloaded in the background when read, while still being served. Only
+     * reloaded once expired if 0.
+     */
+    private long schemaCacheRefreshInMillis = MetadataCache.DEFAULT_REFRESH_IN_MILLIS;
+
+    /**
+     * The options of client-side validation of insert and upsert rows. Validation is disabled if null.
+     */
+    private WriteValidationOptions writeValidationOptions = null;
+
+    /**
+     * The options of the client-side cache of search results. The cache is disabled if null.
+     */
+    private SearchCacheOptions searchCacheOptions = null;
+
+    /**
+     * The options of the client-side cache of rows read with query. The cache is disabled if null.
+     */
+    private QueryCacheOptions queryCacheOptions = null;
+
+    /**
+     * The read operations whose concurrent identical requests share one call. None if empty.
+     */
+    private Set<ReadOperation> singleFlightOperations = EnumSet.noneOf(ReadOperation.class);
+
+    /**
+     * The options of the micro-batching of concurrent search calls into batchSearch calls. Disabled if null.
+     */
+    private SearchBatchingOptions searchBatchingOptions = null;
+
+    /**
+     * The options of the adaptive limit of requests in flight per endpoint and operation class. Disabled if null.
+     */
+    private AdaptiveConcurrencyOptions adaptiveConcurrencyOptions = null;
+
+    /**
+     * The rate limits of requests by operation, database and table. None if empty.
+     */
+    private List<RateLimitRule> rateLimitRules = new ArrayList<RateLimitRule>();
+
+    /**
+     * The options of the per-endpoint circuit breakers. Disabled if null.
+     */
+    private CircuitBreakerOptions circuitBreakerOptions = null;
+
+    /**
+     * The options of the partition of the connections between request priority classes. Disabled if null.
+     */
+    private BulkheadOptions bulkheadOptions = null;
+
+    /**
+     * The options of the queue bounding the requests running and waiting to run. Disabled if null.
+     */
+    private AdmissionOptions admissionOptions = null;
+
     // Initialize DEFAULT_USER_AGENT
     static {
         String language = System.getProperty("user.language");
@@ -124,6 +211,7 @@ public class ClientConfiguration {
      */
     public ClientConfiguration(ClientConfiguration other) {
         this.connectionTimeoutInMillis = other.connectionTimeoutInMillis;
+        this.connectionRequestTimeoutInMillis = other.connectionRequestTimeoutInMillis;
         this.maxConnections = other.maxConnections;
         this.ioThreadCount = other.ioThreadCount;
         this.retryPolicy = other.retryPolicy;
@@ -133,6 +221,18 @@ public class ClientConfiguration {
         this.socketBufferSizeInBytes = other.socketBufferSizeInBytes;
         this.endpoint = other.endpoint;
         this.credentials = other.credentials;
+        this.schemaCacheTtlInMillis = other.schemaCacheTtlInMillis;
+        this.schemaCacheRefreshInMillis = other.schemaCacheRefreshInMillis;
+        this.writeValidationOptions = other.writeValidationOptions;
+        this.searchCacheOptions = other.searchCacheOptions;
+        this.queryCacheOptions = other.queryCacheOptions;
+        this.singleFlightOperations = other.singleFlightOperations;
+        this.searchBatchingOptions = other.searchBatchingOptions;
+        this.adaptiveConcurrencyOptions = other.adaptiveConcurrencyOptions;
+        this.rateLimitRules = other.rateLimitRules;
+        this.circuitBreakerOptions = other.circuitBreakerOptions;
+        this.bulkheadOptions = other.bulkheadOptions;
+        this.admissionOptions = other.admissionOptions;
     }
 
     /**
@@ -146,6 +246,7 @@ public class ClientConfiguration {
     public ClientConfiguration(ClientConfiguration other, String endpoint) {
         this.endpoint = endpoint;
         this.connectionTimeoutInMillis = other.connectionTimeoutInMillis;
+        this.connectionRequestTimeoutInMillis = other.connectionRequestTimeoutInMillis;
         this.maxConnections = other.maxConnections;
         this.ioThreadCount = other.ioThreadCount;
         this.retryPolicy = other.retryPolicy;
@@ -154,6 +255,18 @@ public class ClientConfiguration {
         this.socketTimeoutInMillis = other.socketTimeoutInMillis;
         this.socketBufferSizeInBytes = other.socketBufferSizeInBytes;
         this.credentials = other.credentials;
+        this.schemaCacheTtlInMillis = other.schemaCacheTtlInMillis;
+        this.schemaCacheRefreshInMillis = other.schemaCacheRefreshInMillis;
+        this.writeValidationOptions = other.writeValidationOptions;
+        this.searchCacheOptions = other.searchCacheOptions;
+        this.queryCacheOptions = other.queryCacheOptions;
+        this.singleFlightOperations = other.singleFlightOperations;
+        this.searchBatchingOptions = other.searchBatchingOptions;
+        this.adaptiveConcurrencyOptions = other.adaptiveConcurrencyOptions;
+        this.rateLimitRules = other.rateLimitRules;
+        this.circuitBreakerOptions = other.circuitBreakerOptions;
+        this.bulkheadOptions = other.bulkheadOptions;
+        this.admissionOptions = other.admissionOptions;
     }
 
     /**
@@ -305,6 +418,32 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Sets the timeout in milliseconds for leasing a connection from the connection pool, after which the request is
+     * shed. A value of 0 means infinity, and is not recommended.
+     *
+     * @param connectionRequestTimeoutInMillis the connection request timeout in milliseconds.
+     * @throws IllegalArgumentException if connectionRequestTimeoutInMillis is negative.
+     */
+    public void setConnectionRequestTimeoutInMillis(int connectionRequestTimeoutInMillis) {
+        checkArgument(connectionRequestTimeoutInMillis >= 0,
+                "connectionRequestTimeoutInMillis should not be negative.");
+        this.connectionRequestTimeoutInMillis = connectionRequestTimeoutInMillis;
+    }
+
+    /**
+     * Sets the timeout in milliseconds for leasing a connection from the connection pool, and returns the updated
+     * configuration instance. A value of 0 means infinity, and is not recommended.
+     *
+     * @param connectionRequestTimeoutInMillis the connection request timeout in milliseconds.
+     * @return the updated configuration instance.
+     * @throws IllegalArgumentException if connectionRequestTimeoutInMillis is negative.
+     */
+    public ClientConfiguration withConnectionRequestTimeoutInMillis(int connectionRequestTimeoutInMillis) {
+        this.setConnectionRequestTimeoutInMillis(connectionRequestTimeoutInMillis);
+        return this;
+    }
+
     /**
      * Sets the optional size (in bytes) for the low level TCP socket buffer, and returns the updated configuration
      * instance. This is an advanced option for advanced users who want to tune low level TCP parameters to try and
@@ -383,6 +522,198 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Sets the time to live of the metadata cached by the client.
+     *
+     * @param schemaCacheTtlInMillis the time to live in milliseconds.
+     * @throws IllegalArgumentException if schemaCacheTtlInMillis is negative.
+     */
+    public void setSchemaCacheTtlInMillis(long schemaCacheTtlInMillis) {
+        checkArgument(schemaCacheTtlInMillis >= 0, "schemaCacheTtlInMillis should not be negative.");
+        this.schemaCacheTtlInMillis = schemaCacheTtlInMillis;
+    }
+
+    /**
+     * Sets the time to live of the metadata cached by the client, and returns the updated configuration instance.
+     *
+     * @param schemaCacheTtlInMillis the time to live in milliseconds.
+     * @return the updated configuration instance.
+     * @throws IllegalArgumentException if schemaCacheTtlInMillis is negative.
+     */
+    public ClientConfiguration withSchemaCacheTtlInMillis(long schemaCacheTtlInMillis) {
+        this.setSchemaCacheTtlInMillis(schemaCacheTtlInMillis);
+        return this;
+    }
+
+    /**
+     * Sets the age after which cached metadata is reloaded in the background when read, while still being served.
+     * Only reloaded once expired if 0.
+     *
+     * @param schemaCacheRefreshInMillis the refresh interval in milliseconds.
+     * @throws IllegalArgumentException if schemaCacheRefreshInMillis is negative.
+     */
+    public void setSchemaCacheRefreshInMillis(long schemaCacheRefreshInMillis) {
+        checkArgument(schemaCacheRefreshInMillis >= 0, "schemaCacheRefreshInMillis should not be negative.");
+        this.schemaCacheRefreshInMillis = schemaCacheRefreshInMillis;
+    }
+
+    /**
+     * Sets the age after which cached metadata is reloaded in the background when read, and returns the updated
+     * configuration instance. Only reloaded once expired if 0.
+     *
+     * @param schemaCacheRefreshInMillis the refresh interval in milliseconds.
+     * @return the updated configuration instance.
+     * @throws IllegalArgumentException if schemaCacheRefreshInMillis is negative.
+     */
+    public ClientConfiguration withSchemaCacheRefreshInMillis(long schemaCacheRefreshInMillis) {
+        this.setSchemaCacheRefreshInMillis(schemaCacheRefreshInMillis);
+        return this;
+    }
+
+    /**
+     * Sets the options of client-side validation of insert and upsert rows, and returns the updated configuration
+     * instance. Validation is disabled if null.
+     *
+     * @param writeValidationOptions the write validation options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withWriteValidationOptions(WriteValidationOptions writeValidationOptions) {
+        this.setWriteValidationOptions(writeValidationOptions);
+        return this;
+    }
+
+    /**
+     * Sets the options of the client-side cache of search and batchSearch results, and returns the updated
+     * configuration instance. The cache is disabled if null.
+     *
+     * @param searchCacheOptions the search cache options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withSearchCacheOptions(SearchCacheOptions searchCacheOptions) {
+        this.setSearchCacheOptions(searchCacheOptions);
+        return this;
+    }
+
+    /**
+     * Sets the options of the client-side cache of rows read with query, and returns the updated configuration
+     * instance. The cache is disabled if null.
+     *
+     * @param queryCacheOptions the query cache options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withQueryCacheOptions(QueryCacheOptions queryCacheOptions) {
+        this.setQueryCacheOptions(queryCacheOptions);
+        return this;
+    }
+
+    /**
+     * Sets the read operations whose concurrent identical requests share one call to the server.
+     *
+     * @param singleFlightOperations the read operations.
+     * @throws NullPointerException if singleFlightOperations is null.
+     */
+    public void setSingleFlightOperations(Set<ReadOperation> singleFlightOperations) {
+        checkNotNull(singleFlightOperations, "singleFlightOperations should not be null.");
+        this.singleFlightOperations = singleFlightOperations;
+    }
+
+    /**
+     * Sets the read operations whose concurrent identical requests share one call to the server, and returns the
+     * updated configuration instance.
+     *
+     * @param singleFlightOperations the read operations.
+     * @return the updated configuration instance.
+     * @throws NullPointerException if singleFlightOperations is null.
+     */
+    public ClientConfiguration withSingleFlightOperations(Set<ReadOperation> singleFlightOperations) {
+        this.setSingleFlightOperations(singleFlightOperations);
+        return this;
+    }
+
+    /**
+     * Sets the options of the micro-batching of concurrent search calls into batchSearch calls, and returns the
+     * updated configuration instance. Batching is disabled if null.
+     *
+     * @param searchBatchingOptions the search batching options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withSearchBatchingOptions(SearchBatchingOptions searchBatchingOptions) {
+        this.setSearchBatchingOptions(searchBatchingOptions);
+        return this;
+    }
+
+    /**
+     * Sets the options of the adaptive limit of requests in flight per endpoint and operation class, and returns the
+     * updated configuration instance. The limit is disabled if null.
+     *
+     * @param adaptiveConcurrencyOptions the adaptive concurrency options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withAdaptiveConcurrencyOptions(AdaptiveConcurrencyOptions adaptiveConcurrencyOptions) {
+        this.setAdaptiveConcurrencyOptions(adaptiveConcurrencyOptions);
+        return this;
+    }
+
+    /**
+     * Sets the rate limits of requests by operation, database and table.
+     *
+     * @param rateLimitRules the rate limit rules.
+     * @throws NullPointerException if rateLimitRules is null.
+     */
+    public void setRateLimitRules(List<RateLimitRule> rateLimitRules) {
+        checkNotNull(rateLimitRules, "rateLimitRules should not be null.");
+        this.rateLimitRules = rateLimitRules;
+    }
+
+    /**
+     * Sets the rate limits of requests by operation, database and table, and returns the updated configuration
+     * instance.
+     *
+     * @param rateLimitRules the rate limit rules.
+     * @return the updated configuration instance.
+     * @throws NullPointerException if rateLimitRules is null.
+     */
+    public ClientConfiguration withRateLimitRules(List<RateLimitRule> rateLimitRules) {
+        this.setRateLimitRules(rateLimitRules);
+        return this;
+    }
+
+    /**
+     * Sets the options of the per-endpoint circuit breakers, and returns the updated configuration instance. The
+     * circuit breakers are disabled if null.
+     *
+     * @param circuitBreakerOptions the circuit breaker options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withCircuitBreakerOptions(CircuitBreakerOptions circuitBreakerOptions) {
+        this.setCircuitBreakerOptions(circuitBreakerOptions);
+        return this;
+    }
+
+    /**
+     * Sets the options of the partition of the connections between request priority classes, and returns the
+     * updated configuration instance. The partition is disabled if null.
+     *
+     * @param bulkheadOptions the bulkhead options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withBulkheadOptions(BulkheadOptions bulkheadOptions) {
+        this.setBulkheadOptions(bulkheadOptions);
+        return this;
+    }
+
+    /**
+     * Sets the options of the queue bounding the requests running and waiting to run, and returns the updated
+     * configuration instance. Admission control is disabled if null.
+     *
+     * @param admissionOptions the admission options.
+     * @return the updated configuration instance.
+     */
+    public ClientConfiguration withAdmissionOptions(AdmissionOptions admissionOptions) {
+        this.setAdmissionOptions(admissionOptions);
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ClientConfiguration [ \n"
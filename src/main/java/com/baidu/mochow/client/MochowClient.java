@@ -15,16 +15,52 @@ package com.baidu.mochow.client;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.baidu.mochow.auth.SignOptions;
+import com.baidu.mochow.client.admin.IngestCounters;
+import com.baidu.mochow.client.cache.QueryCache;
+import com.baidu.mochow.client.cache.ReadOperation;
+import com.baidu.mochow.client.cache.SearchResultCache;
+import com.baidu.mochow.client.cache.SingleFlight;
+import com.baidu.mochow.client.cache.MetadataCache;
+import com.baidu.mochow.client.read.ExactReranker;
+import com.baidu.mochow.client.read.MultiQuery;
+import com.baidu.mochow.client.read.MultiQueryOptions;
+import com.baidu.mochow.client.read.MultiQueryResponse;
+import com.baidu.mochow.client.read.MultiSearch;
+import com.baidu.mochow.client.read.MultiSearchRequest;
+import com.baidu.mochow.client.read.MultiSearchResponse;
+import com.baidu.mochow.client.read.RangeSearchIterator;
+import com.baidu.mochow.client.read.SearchBatcher;
+import com.baidu.mochow.client.read.SelectAllOptions;
+import com.baidu.mochow.client.read.SelectIterator;
+import com.baidu.mochow.client.tuning.TunedSearchParams;
+import com.baidu.mochow.client.write.RowValidator;
 import com.baidu.mochow.http.Headers;
 import com.baidu.mochow.http.HttpMethodName;
 import com.baidu.mochow.http.handler.HttpResponseHandler;
+import com.baidu.mochow.http.resilience.AdaptiveConcurrencyLimiter;
+import com.baidu.mochow.http.resilience.AdmissionController;
+import com.baidu.mochow.http.resilience.Bulkhead;
+import com.baidu.mochow.http.resilience.CircuitBreaker;
+import com.baidu.mochow.http.resilience.RateLimiter;
 import com.baidu.mochow.http.handler.MochowJsonResponseHandler;
 import com.baidu.mochow.http.handler.MochowMetadataResponseHandler;
 import com.baidu.mochow.http.handler.MochowErrorResponseHandler;
@@ -69,6 +105,11 @@ import com.baidu.mochow.model.UpsertRequest;
 import com.baidu.mochow.model.BatchSearchRequest;
 import com.baidu.mochow.model.BatchSearchResponse;
 import com.baidu.mochow.model.UpsertResponse;
+import com.baidu.mochow.model.entity.Field;
+import com.baidu.mochow.model.entity.GeneralParams;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.Schema;
+import com.baidu.mochow.model.enums.RequestPriority;
 
 /**
  * Provides the client for accessing the Baidu VDB Service.
@@ -106,12 +147,75 @@ public class MochowClient extends AbstractMochowClient {
             new MochowJsonResponseHandler()
     };
 
+    /**
+     * Cached database lists, table lists and descriptions backing existence checks and schema-aware features.
+     */
+    private final MetadataCache metadataCache;
+
+    /**
+     * Validates insert and upsert rows, or null if write validation is disabled.
+     */
+    private final RowValidator rowValidator;
+
+    /**
+     * Caches search and batchSearch results, or null if the search cache is disabled.
+     */
+    private final SearchResultCache searchResultCache;
+
+    /**
+     * Caches rows read with query, or null if the query cache is disabled.
+     */
+    private final QueryCache queryCache;
+
+    /**
+     * Collapses concurrent identical reads of the enabled operations.
+     */
+    private final SingleFlight singleFlight;
+
+    /**
+     * Groups concurrent search calls into batchSearch calls, or null if search batching is disabled.
+     */
+    private final SearchBatcher searchBatcher;
+
+    /**
+     * The tuned ef or searchCoarseCount of tables, applied to searches leaving them unset.
+     */
+    private final TunedSearchParams tunedSearchParams = new TunedSearchParams();
+
+    /**
+     * The number of rows written to each table through this client.
+     */
+    private final IngestCounters ingestCounters = new IngestCounters();
+
+    /**
+     * Runs background tasks of client-side features, e.g. page prefetching. Threads are created on demand.
+     */
+    private final ExecutorService backgroundExecutor = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mochow-client-background-%d").build());
+
     public MochowClient() {
         this(new ClientConfiguration());
     }
 
     public MochowClient(ClientConfiguration config) {
         super(config, MOCHOW_HANDLERS);
+        this.metadataCache = new MetadataCache(this, config.getSchemaCacheTtlInMillis(),
+                config.getSchemaCacheRefreshInMillis(), this.backgroundExecutor);
+        this.rowValidator = config.getWriteValidationOptions() == null
+                ? null : new RowValidator(config.getWriteValidationOptions());
+        this.searchResultCache = config.getSearchCacheOptions() == null
+                ? null : new SearchResultCache(config.getSearchCacheOptions());
+        this.queryCache = config.getQueryCacheOptions() == null
+                ? null : new QueryCache(config.getQueryCacheOptions());
+        this.singleFlight = new SingleFlight(config.getSingleFlightOperations());
+        this.searchBatcher = config.getSearchBatchingOptions() == null
+                ? null : new SearchBatcher(config.getSearchBatchingOptions(),
+                        new Function<BatchSearchRequest, BatchSearchResponse>() {
+                            @Override
+                            public BatchSearchResponse apply(BatchSearchRequest request) {
+                                return sendBatchSearch(request);
+                            }
+                        });
     }
 
     public void createDatabase(String databaseName) throws MochowClientException {
@@ -120,6 +224,7 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(CREATE, "");
         fillPayload(internalRequest, createDatabaseRequest);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.metadataCache.invalidateDatabase(databaseName);
     }
 
     public void dropDatabase(String databaseName) throws MochowClientException {
@@ -127,6 +232,7 @@ public class MochowClient extends AbstractMochowClient {
                 new AbstractMochowRequest() {}, HttpMethodName.DELETE, DATABASE_PREFIX);
         internalRequest.addParameter("database", databaseName);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.metadataCache.invalidateDatabase(databaseName);
     }
 
     public ListDatabaseResponse listDatabase() throws MochowClientException {
@@ -136,14 +242,15 @@ public class MochowClient extends AbstractMochowClient {
         return this.invokeHttpClient(internalRequest, ListDatabaseResponse.class);
     }
 
+    /**
+     * Returns whether a database exists, according to the client's metadata cache.
+     *
+     * @param databaseName the database name.
+     * @return whether the database exists.
+     * @throws MochowClientException if the databases cannot be listed.
+     */
     public boolean hasDatabase(String databaseName) throws MochowClientException {
-        ListDatabaseResponse listDatabaseResponse = this.listDatabase();
-        for (String database : listDatabaseResponse.getDatabases()) {
-            if (database.equals(databaseName)) {
-                return true;
-            }
-        }
-        return false;
+        return this.metadataCache.getDatabases().contains(databaseName);
     }
 
     public void createTable(CreateTableRequest request) throws MochowClientException {
@@ -151,19 +258,19 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(CREATE, "");
         fillPayload(internalRequest, request);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(request.getDatabase(), request.getTable());
     }
 
+    /**
+     * Returns whether a table exists, according to the client's metadata cache.
+     *
+     * @param databaseName the database name.
+     * @param tableName    the table name.
+     * @return whether the table exists.
+     * @throws MochowClientException if the databases or the tables cannot be listed.
+     */
     public boolean hasTable(String databaseName, String tableName) throws MochowClientException {
-        if (!this.hasDatabase(databaseName)) {
-            return false;
-        }
-        ListTableResponse listTableResponse = this.listTable(databaseName);
-        for (String table : listTableResponse.getTables()) {
-            if (table.equals(tableName)) {
-                return true;
-            }
-        }
-        return false;
+        return this.hasDatabase(databaseName) && this.metadataCache.getTableNames(databaseName).contains(tableName);
     }
 
     public void dropTable(String databaseName, String tableName) throws MochowClientException {
@@ -172,6 +279,7 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter("database", databaseName);
         internalRequest.addParameter("table", tableName);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(databaseName, tableName);
     }
 
     public ListTableResponse listTable(String databaseName) throws MochowClientException {
@@ -195,6 +303,7 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(ADD_FIELD, "");
         fillPayload(internalRequest, request);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(request.getDatabase(), request.getTable());
     }
 
     public void aliasTable(AliasTableRequest request) throws MochowClientException {
@@ -202,6 +311,8 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(ALIAS, "");
         fillPayload(internalRequest, request);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(request.getDatabase(), request.getTable());
+        this.onTableChanged(request.getDatabase(), request.getAlias());
     }
 
     public void unaliasTable(UnaliasTableRequest request) throws MochowClientException {
@@ -209,6 +320,8 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(UNALIAS, "");
         fillPayload(internalRequest, request);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(request.getDatabase(), request.getTable());
+        this.onTableChanged(request.getDatabase(), request.getAlias());
     }
 
     public ShowTableStatsResponse showTableStats(String databaseName, String tableName) throws MochowClientException {
@@ -224,6 +337,7 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(CREATE, "");
         fillPayload(internalRequest, request);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(request.getDatabase(), request.getTable());
     }
 
     public DescribeIndexResponse describeIndex(String databaseName, String tableName, String indexName) throws MochowClientException {
@@ -239,6 +353,7 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(MODIFY, "");
         fillPayload(internalRequest, request);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(request.getDatabase(), request.getTable());
     }
 
     public void dropIndex(String databaseName, String tableName, String indexName) throws MochowClientException {
@@ -248,6 +363,7 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter("table", tableName);
         internalRequest.addParameter("indexName", indexName);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(databaseName, tableName);
     }
 
     public void rebuildIndex(String databaseName, String tableName, String indexName) throws MochowClientException {
@@ -256,62 +372,523 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addParameter(REBUILD, "");
         fillPayload(internalRequest, request);
         this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        this.onTableChanged(databaseName, tableName);
     }
 
     public InsertResponse insert(InsertRequest request) throws MochowClientException {
+        if (this.rowValidator != null) {
+            List<Row> rows = this.validateRows(request.getDatabase(), request.getTable(), request.getRows());
+            if (rows.isEmpty()) {
+                return new InsertResponse();
+            }
+            if (rows != request.getRows()) {
+                RequestPriority priority = request.getPriority();
+                request = InsertRequest.builder()
+                        .database(request.getDatabase())
+                        .table(request.getTable())
+                        .rows(rows).build();
+                request.setPriority(priority);
+            }
+        }
         InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
         internalRequest.addParameter(INSERT, "");
         fillPayload(internalRequest, request);
-        return this.invokeHttpClient(internalRequest, InsertResponse.class);
+        try {
+            InsertResponse response = this.invokeHttpClient(internalRequest, InsertResponse.class);
+            this.countRowsWritten(request.getDatabase(), request.getTable(), request.getRows());
+            return response;
+        } finally {
+            this.onRowsWritten(request.getDatabase(), request.getTable(), request.getRows());
+        }
     }
 
     public UpsertResponse upsert(UpsertRequest request) throws MochowClientException {
+        if (this.rowValidator != null) {
+            List<Row> rows = this.validateRows(request.getDatabase(), request.getTable(), request.getRows());
+            if (rows.isEmpty()) {
+                return new UpsertResponse();
+            }
+            if (rows != request.getRows()) {
+                RequestPriority priority = request.getPriority();
+                request = UpsertRequest.builder()
+                        .database(request.getDatabase())
+                        .table(request.getTable())
+                        .rows(rows).build();
+                request.setPriority(priority);
+            }
+        }
         InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
         internalRequest.addParameter(UPSERT, "");
         fillPayload(internalRequest, request);
-        return this.invokeHttpClient(internalRequest, UpsertResponse.class);
+        try {
+            UpsertResponse response = this.invokeHttpClient(internalRequest, UpsertResponse.class);
+            this.countRowsWritten(request.getDatabase(), request.getTable(), request.getRows());
+            return response;
+        } finally {
+            this.onRowsWritten(request.getDatabase(), request.getTable(), request.getRows());
+        }
     }
 
     public void delete(DeleteRequest request) throws MochowClientException {
         InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
         internalRequest.addParameter(DELETE, "");
         fillPayload(internalRequest, request);
-        this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+        try {
+            this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+            this.countKeyWritten(request.getDatabase(), request.getTable(), request.getPrimaryKey());
+        } finally {
+            this.onKeyWritten(request.getDatabase(), request.getTable(), request.getPrimaryKey());
+        }
+    }
+
+    public QueryResponse query(final QueryRequest request) throws MochowClientException {
+        if (this.queryCache != null) {
+            return this.queryCache.query(request, new Supplier<QueryResponse>() {
+                @Override
+                public QueryResponse get() {
+                    return doQuery(request);
+                }
+            });
+        }
+        return this.doQuery(request);
     }
 
-    public QueryResponse query(QueryRequest request) throws MochowClientException {
+    /**
+     * Reads rows by primary key in parallel with the default {@link MultiQueryOptions}.
+     *
+     * @param databaseName the database name.
+     * @param tableName    the table name.
+     * @param keys         the primary keys.
+     * @param projections  the fields to return, or null or empty for all scalar fields.
+     * @return the rows in the order of the keys, null for missing keys, with the per-key failures.
+     * @throws MochowClientException if the table cannot be described.
+     */
+    public MultiQueryResponse multiQuery(String databaseName, String tableName, List<GeneralParams> keys,
+                                         List<String> projections) throws MochowClientException {
+        return this.multiQuery(databaseName, tableName, keys, projections, new MultiQueryOptions());
+    }
+
+    /**
+     * Reads rows by primary key with a bounded number of requests in flight.
+     *
+     * @param databaseName the database name.
+     * @param tableName    the table name.
+     * @param keys         the primary keys.
+     * @param projections  the fields to return, or null or empty for all scalar fields.
+     * @param options      the parallelism and batching options.
+     * @return the rows in the order of the keys, null for missing keys, with the per-key failures.
+     * @throws MochowClientException if the table cannot be described.
+     */
+    public MultiQueryResponse multiQuery(String databaseName, String tableName, List<GeneralParams> keys,
+                                         List<String> projections, MultiQueryOptions options)
+            throws MochowClientException {
+        return new MultiQuery(this, this.backgroundExecutor).execute(databaseName, tableName, keys, projections,
+                options);
+    }
+
+    public SearchResponse search(SearchRequest searchRequest) throws MochowClientException {
+        final SearchRequest request = this.tunedSearchParams.apply(searchRequest);
+        if (this.searchResultCache != null) {
+            return this.searchResultCache.search(request, new Supplier<SearchResponse>() {
+                @Override
+                public SearchResponse get() {
+                    return doSearch(request);
+                }
+            });
+        }
+        return this.doSearch(request);
+    }
+
+    /**
+     * Sends a search request as it is, bypassing the search result cache, the collapsing of identical requests,
+     * search batching and tuned search parameters, e.g. to measure the recall and the latency of the server.
+     *
+     * @param request the search request.
+     * @return the response of the server.
+     * @throws MochowClientException if the search fails.
+     */
+    public SearchResponse searchDirect(SearchRequest request) throws MochowClientException {
+        return this.sendSearch(request);
+    }
+
+    public BatchSearchResponse batchSearch(BatchSearchRequest batchSearchRequest) throws MochowClientException {
+        final BatchSearchRequest request = this.tunedSearchParams.apply(batchSearchRequest);
+        if (this.searchResultCache != null) {
+            return this.searchResultCache.batchSearch(request, new Supplier<BatchSearchResponse>() {
+                @Override
+                public BatchSearchResponse get() {
+                    return doBatchSearch(request);
+                }
+            });
+        }
+        return this.doBatchSearch(request);
+    }
+
+    /**
+     * Searches several tables or aliases in parallel and merges their rows into a global top-k by distance.
+     *
+     * @param request the multi-table search request.
+     * @return the merged rows, with the tables that failed or timed out.
+     * @throws MochowClientException if no table answered.
+     */
+    public MultiSearchResponse multiSearch(MultiSearchRequest request) throws MochowClientException {
+        return new MultiSearch(this, this.backgroundExecutor).execute(request);
+    }
+
+    /**
+     * Searches the candidates of a request, with their vectors, and re-ranks them with exact distances computed on
+     * the client. Set the limit of the request above k to over-fetch candidates from an approximate index.
+     *
+     * @param request the search request, whose limit is the number of candidates.
+     * @param k       the number of rows to return.
+     * @return the exact top-k rows among the candidates.
+     * @throws MochowClientException if the search fails or the vector field has no vector index.
+     */
+    public SearchResponse searchAndRerank(SearchRequest request, int k) throws MochowClientException {
+        return new ExactReranker(this).search(request, k);
+    }
+
+    /**
+     * Iterates over all rows within the distance range of a search, walking successive distance windows of at most
+     * limit rows each and fetching the next window in the background.
+     *
+     * @param request the search request, with HNSW or FLAT search params giving the distance range.
+     * @return the iterator, to be closed if not consumed to the end.
+     * @throws MochowClientException if the vector field has no vector index.
+     */
+    public RangeSearchIterator rangeSearch(SearchRequest request) throws MochowClientException {
+        return new RangeSearchIterator(this, request, this.backgroundExecutor);
+    }
+
+    public void update(UpdateRequest request) throws MochowClientException {
+        InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
+        internalRequest.addParameter(UPDATE, "");
+        fillPayload(internalRequest, request);
+        try {
+            this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+            this.countKeyWritten(request.getDatabase(), request.getTable(), request.getPrimaryKey());
+        } finally {
+            this.onKeyWritten(request.getDatabase(), request.getTable(), request.getPrimaryKey());
+        }
+    }
+
+    public SelectResponse select(SelectRequest request) throws MochowClientException {
+        InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
+        internalRequest.addParameter(SELECT, "");
+        fillPayload(internalRequest, request);
+        return this.invokeHttpClient(internalRequest, SelectResponse.class);
+    }
+
+    /**
+     * Iterates over all rows matching a select request, fetching the following pages in the background with the
+     * default {@link SelectAllOptions}.
+     *
+     * @param request the select request; its marker, if any, is the start of the iteration.
+     * @return the iterator, to be closed if not consumed to the end.
+     */
+    public SelectIterator selectAll(SelectRequest request) {
+        return this.selectAll(request, new SelectAllOptions());
+    }
+
+    /**
+     * Iterates over all rows matching a select request, following the markers of the paginated responses.
+     *
+     * @param request the select request; its marker, if any, is the start of the iteration.
+     * @param options the prefetch options.
+     * @return the iterator, to be closed if not consumed to the end.
+     */
+    public SelectIterator selectAll(SelectRequest request, SelectAllOptions options) {
+        return new SelectIterator(this, request, options, this.backgroundExecutor);
+    }
+
+    /**
+     * Returns the cache of search and batchSearch results, e.g. to read its statistics.
+     *
+     * @return the cache, or null if it is disabled in the client configuration.
+     */
+    public SearchResultCache getSearchResultCache() {
+        return this.searchResultCache;
+    }
+
+    /**
+     * Returns the cache of rows read with query, e.g. to read its statistics.
+     *
+     * @return the cache, or null if it is disabled in the client configuration.
+     */
+    public QueryCache getQueryCache() {
+        return this.queryCache;
+    }
+
+    /**
+     * Returns the layer collapsing concurrent identical reads, e.g. to read the counts of collapsed requests.
+     *
+     * @return the single-flight layer.
+     */
+    public SingleFlight getSingleFlight() {
+        return this.singleFlight;
+    }
+
+    /**
+     * Returns the layer batching concurrent search calls, e.g. to read its statistics.
+     *
+     * @return the batcher, or null if it is disabled in the client configuration.
+     */
+    public SearchBatcher getSearchBatcher() {
+        return this.searchBatcher;
+    }
+
+    /**
+     * Returns the tuned search parameters of vector fields, set by a
+     * {@link com.baidu.mochow.client.tuning.SearchParamsTuner} or by hand.
+     *
+     * @return the tuned search parameters.
+     */
+    public TunedSearchParams getTunedSearchParams() {
+        return this.tunedSearchParams;
+    }
+
+    /**
+     * Returns the number of rows written to each table through this client, e.g. to decide when an index rebuild
+     * pays off.
+     *
+     * @return the ingest counters.
+     */
+    public IngestCounters getIngestCounters() {
+        return this.ingestCounters;
+    }
+
+    /**
+     * Returns the adaptive concurrency limiter of the HTTP client, e.g. to read its current limits and rejections.
+     *
+     * @return the limiter, or null if it is disabled in the client configuration.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return this.getClient().getConcurrencyLimiter();
+    }
+
+    /**
+     * Returns the rate limiter of the HTTP client, e.g. to read the throttle wait times of its rules.
+     *
+     * @return the rate limiter, or null if no rate limit rule is configured.
+     */
+    public RateLimiter getRateLimiter() {
+        return this.getClient().getRateLimiter();
+    }
+
+    /**
+     * Returns the circuit breaker of the HTTP client, e.g. to read the state of its circuits.
+     *
+     * @return the circuit breaker, or null if it is disabled in the client configuration.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return this.getClient().getCircuitBreaker();
+    }
+
+    /**
+     * Returns the bulkhead of the HTTP client, e.g. to read the connection slots used by each priority class.
+     *
+     * @return the bulkhead, or null if it is disabled in the client configuration.
+     */
+    public Bulkhead getBulkhead() {
+        return this.getClient().getBulkhead();
+    }
+
+    /**
+     * Returns the admission controller of the HTTP client, e.g. to read its queue depth and shed counts.
+     *
+     * @return the admission controller, or null if it is disabled in the client configuration.
+     */
+    public AdmissionController getAdmissionController() {
+        return this.getClient().getAdmissionController();
+    }
+
+    /**
+     * Returns the metadata cache of this client, e.g. to read cached index descriptions or to invalidate entries
+     * changed by other clients.
+     */
+    public MetadataCache getMetadataCache() {
+        return this.metadataCache;
+    }
+
+    /**
+     * Returns the schema of a table, served from the client's metadata cache. The cache is refreshed after the
+     * configured schema cache TTL and on DDL calls made through this client.
+     *
+     * @param databaseName the database name.
+     * @param tableName    the table name.
+     * @return the table schema.
+     * @throws MochowClientException if the table cannot be described.
+     */
+    public Schema getTableSchema(String databaseName, String tableName) throws MochowClientException {
+        return this.metadataCache.getTable(databaseName, tableName).getSchema();
+    }
+
+    private QueryResponse doQuery(final QueryRequest request) throws MochowClientException {
+        if (this.singleFlight.isEnabled(ReadOperation.QUERY)) {
+            return this.singleFlight.query(request, new Supplier<QueryResponse>() {
+                @Override
+                public QueryResponse get() {
+                    return sendQuery(request);
+                }
+            });
+        }
+        return this.sendQuery(request);
+    }
+
+    private QueryResponse sendQuery(QueryRequest request) throws MochowClientException {
         InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
         internalRequest.addParameter(QUERY, "");
         fillPayload(internalRequest, request);
         return this.invokeHttpClient(internalRequest, QueryResponse.class);
     }
 
-    public SearchResponse search(SearchRequest request) throws MochowClientException {
+    private SearchResponse doSearch(final SearchRequest request) throws MochowClientException {
+        if (this.singleFlight.isEnabled(ReadOperation.SEARCH)) {
+            return this.singleFlight.search(request, new Supplier<SearchResponse>() {
+                @Override
+                public SearchResponse get() {
+                    return batchSearchOrSend(request);
+                }
+            });
+        }
+        return this.batchSearchOrSend(request);
+    }
+
+    private SearchResponse batchSearchOrSend(final SearchRequest request) throws MochowClientException {
+        if (this.searchBatcher != null) {
+            return this.searchBatcher.search(request, new Supplier<SearchResponse>() {
+                @Override
+                public SearchResponse get() {
+                    return sendSearch(request);
+                }
+            });
+        }
+        return this.sendSearch(request);
+    }
+
+    private SearchResponse sendSearch(SearchRequest request) throws MochowClientException {
         InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
         internalRequest.addParameter(SEARCH, "");
         fillPayload(internalRequest, request);
         return this.invokeHttpClient(internalRequest, SearchResponse.class);
     }
 
-    public BatchSearchResponse batchSearch(BatchSearchRequest request) throws MochowClientException {
+    private BatchSearchResponse doBatchSearch(final BatchSearchRequest request) throws MochowClientException {
+        if (this.singleFlight.isEnabled(ReadOperation.BATCH_SEARCH)) {
+            return this.singleFlight.batchSearch(request, new Supplier<BatchSearchResponse>() {
+                @Override
+                public BatchSearchResponse get() {
+                    return sendBatchSearch(request);
+                }
+            });
+        }
+        return this.sendBatchSearch(request);
+    }
+
+    private BatchSearchResponse sendBatchSearch(BatchSearchRequest request) throws MochowClientException {
         InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
         internalRequest.addParameter(BATCH_SEARCH, "");
         fillPayload(internalRequest, request);
         return this.invokeHttpClient(internalRequest, BatchSearchResponse.class);
     }
 
-    public void update(UpdateRequest request) throws MochowClientException {
-        InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
-        internalRequest.addParameter(UPDATE, "");
-        fillPayload(internalRequest, request);
-        this.invokeHttpClient(internalRequest, AbstractMochowResponse.class);
+    /**
+     * Drops the cached state of a table after a DDL call through this client.
+     */
+    private void onTableChanged(String databaseName, String tableName) {
+        this.metadataCache.invalidate(databaseName, tableName);
+        this.onTableWritten(databaseName, tableName, null);
     }
 
-    public SelectResponse select(SelectRequest request) throws MochowClientException {
-        InternalRequest internalRequest = this.createRequest(request, HttpMethodName.POST, ROW_PREFIX);
-        internalRequest.addParameter(SELECT, "");
-        fillPayload(internalRequest, request);
-        return this.invokeHttpClient(internalRequest, SelectResponse.class);
+    /**
+     * Counts the rows of a write acknowledged by the server.
+     */
+    private void countRowsWritten(String databaseName, String tableName, List<Row> rows) {
+        if (rows != null) {
+            this.ingestCounters.record(databaseName, tableName, rows.size());
+        }
+    }
+
+    /**
+     * Counts the row of a write by primary key acknowledged by the server; writes by filter are not counted.
+     */
+    private void countKeyWritten(String databaseName, String tableName, GeneralParams primaryKey) {
+        if (primaryKey != null) {
+            this.ingestCounters.record(databaseName, tableName, 1);
+        }
+    }
+
+    /**
+     * Invalidates the cached results of a table after a write of rows through this client, whether it succeeded
+     * or not.
+     */
+    private void onRowsWritten(String databaseName, String tableName, List<Row> rows) {
+        List<Map<String, Object>> primaryKeys = null;
+        if (this.queryCache != null && rows != null) {
+            try {
+                primaryKeys = new ArrayList<Map<String, Object>>(rows.size());
+                List<Field> fields = this.getTableSchema(databaseName, tableName).getFields();
+                for (Row row : rows) {
+                    Map<String, Object> primaryKey = new HashMap<String, Object>();
+                    for (Field field : fields) {
+                        if (Boolean.TRUE.equals(field.getPrimaryKey())) {
+                            primaryKey.put(field.getFieldName(), row.getField(field.getFieldName()));
+                        }
+                    }
+                    primaryKeys.add(primaryKey);
+                }
+            } catch (MochowClientException e) {
+                LOGGER.warn("Fail to get the primary key of {}.{}, invalidate the whole table", databaseName,
+                        tableName, e);
+                primaryKeys = null;
+            }
+        }
+        this.onTableWritten(databaseName, tableName, primaryKeys);
+    }
+
+    /**
+     * Invalidates the cached results of a table after a write of a primary key, or of a filter if null, through
+     * this client, whether it succeeded or not.
+     */
+    private void onKeyWritten(String databaseName, String tableName, GeneralParams primaryKey) {
+        this.onTableWritten(databaseName, tableName,
+                primaryKey != null ? Collections.singletonList(primaryKey.getItems()) : null);
+    }
+
+    /**
+     * Invalidates the cached results of a table after a write through this client.
+     *
+     * @param primaryKeys the written primary keys, or null if unknown.
+     */
+    private void onTableWritten(String databaseName, String tableName, List<Map<String, Object>> primaryKeys) {
+        if (this.searchResultCache != null) {
+            this.searchResultCache.invalidate(databaseName, tableName);
+        }
+        if (this.queryCache != null) {
+            if (primaryKeys != null) {
+                this.queryCache.invalidateRows(databaseName, tableName, primaryKeys);
+            } else {
+                this.queryCache.invalidate(databaseName, tableName);
+            }
+        }
+    }
+
+    /**
+     * Runs client-side write validation on the rows of an insert or upsert request.
+     *
+     * @return the rows to send, see {@link RowValidator#validate}.
+     */
+    private List<Row> validateRows(String databaseName, String tableName, List<Row> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return rows;
+        }
+        return this.rowValidator.validate(databaseName, this.metadataCache.getTable(databaseName, tableName), rows);
+    }
+
+    @Override
+    public void shutdown() {
+        this.backgroundExecutor.shutdownNow();
+        super.shutdown();
     }
 
     /**
@@ -339,6 +916,7 @@ public class MochowClient extends AbstractMochowClient {
 
         SignOptions signOptions = new SignOptions();
         request.setSignOptions(signOptions);
+        request.setPriority(bceRequest.getPriority());
         return request;
     }
 
@@ -354,6 +932,40 @@ public class MochowClient extends AbstractMochowClient {
         internalRequest.addHeader(Headers.CONTENT_LENGTH, String.valueOf(content.length));
         internalRequest.addHeader(Headers.CONTENT_TYPE, DEFAULT_CONTENT_TYPE);
         internalRequest.setContent(RestartableInputStream.wrap(content));
+        fillTableScope(internalRequest, content);
+    }
+
+    /**
+     * Sets the database and table of a request from its payload, for the per-table resilience layers. Both are the
+     * first fields of the request classes, so reading stops after a few tokens and never walks rows or vectors.
+     */
+    private static void fillTableScope(InternalRequest internalRequest, byte[] content) {
+        try {
+            JsonParser parser = JsonUtils.getObjectMapper().getFactory().createParser(content);
+            try {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (value != JsonToken.VALUE_STRING) {
+                        return;
+                    }
+                    if ("database".equals(name)) {
+                        internalRequest.setDatabase(parser.getText());
+                    } else if ("table".equals(name)) {
+                        internalRequest.setTable(parser.getText());
+                    } else {
+                        return;
+                    }
+                }
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Fail to read the table of the request payload", e);
+        }
     }
 
     private byte[] toJson(AbstractMochowRequest bceRequest) {
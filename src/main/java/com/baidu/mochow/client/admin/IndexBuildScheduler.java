@@ -0,0 +1,513 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.entity.AutoBuildPolicy;
+import com.baidu.mochow.model.entity.IndexField;
+import com.baidu.mochow.model.enums.AutoBuildPolicyType;
+import com.baidu.mochow.model.enums.IndexState;
+
+/**
+ * Coordinates index rebuilds across tables, so that ad-hoc rebuild requests do not start many concurrent builds.
+ * <p>
+ * Submitted requests are queued and started in submission order, at most {@code maxConcurrentBuilds} at a time, and
+ * only within the off-peak windows if any are set. A request for an index that is already queued or building
+ * returns the existing task. An index found building when its task starts, e.g. by the auto build policy of the
+ * server, is tracked without being rebuilt, and takes a slot.
+ * <p>
+ * Unless forced, a request is skipped when too few rows were written to the table through the client, as counted
+ * by its {@link IngestCounters}, since the last build of the index by this scheduler: fewer than
+ * {@code minRowsWritten}, and fewer than {@code minRowsWrittenRatio} of the row count of the table. Both thresholds
+ * default to those of the ROW_COUNT_INCREMENT auto build policy of the index, if it has one; an index with no
+ * threshold, or never built by this scheduler, is always built.
+ * <p>
+ * Builds are tracked by polling the state of the index with {@code describeIndex}, with exponentially growing
+ * delays, until it is {@link IndexState#NORMAL} or the build timeout elapses. As the server may not report the
+ * rebuild at once, a NORMAL state only completes the build once the index has been seen
+ * {@link IndexState#BUILDING}, or once the minimum build time has elapsed.
+ */
+public class IndexBuildScheduler implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexBuildScheduler.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_BUILDS = 1;
+    public static final long DEFAULT_CHECK_INTERVAL_IN_MILLIS = 1000;
+    public static final long DEFAULT_POLL_INITIAL_DELAY_IN_MILLIS = 5 * 1000;
+    public static final long DEFAULT_POLL_MAX_DELAY_IN_MILLIS = 60 * 1000;
+    public static final long DEFAULT_BUILD_TIMEOUT_IN_MILLIS = 6 * 60 * 60 * 1000;
+    public static final long DEFAULT_MIN_BUILD_TIME_IN_MILLIS = 30 * 1000;
+
+    private final MochowClient client;
+    private final int maxConcurrentBuilds;
+    private final List<OffPeakWindow> offPeakWindows;
+    private final ZoneId zone;
+    private final long minRowsWritten;
+    private final double minRowsWrittenRatio;
+    private final long pollInitialDelayInMillis;
+    private final long pollMaxDelayInMillis;
+    private final long buildTimeoutInMillis;
+    private final long minBuildTimeInMillis;
+
+    private final Object lock = new Object();
+    private final Deque<IndexBuildTask> pending = new ArrayDeque<IndexBuildTask>();
+    private final Map<String, Build> building = new LinkedHashMap<String, Build>();
+    private final Map<String, IndexBuildTask> activeTasks = new HashMap<String, IndexBuildTask>();
+    private boolean closed = false;
+
+    /**
+     * The ingest counter of the table when the last successful build of each index started.
+     */
+    private final ConcurrentMap<String, Long> lastBuildRowsWritten = new ConcurrentHashMap<String, Long>();
+
+    private final AtomicLong succeededCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler;
+
+    private IndexBuildScheduler(Builder builder) {
+        checkNotNull(builder.client, "client should not be null.");
+        checkArgument(builder.pollInitialDelayInMillis <= builder.pollMaxDelayInMillis,
+                "pollInitialDelayInMillis should not be greater than pollMaxDelayInMillis.");
+        this.client = builder.client;
+        this.maxConcurrentBuilds = builder.maxConcurrentBuilds;
+        this.offPeakWindows = new ArrayList<OffPeakWindow>(builder.offPeakWindows);
+        this.zone = builder.zone;
+        this.minRowsWritten = builder.minRowsWritten;
+        this.minRowsWrittenRatio = builder.minRowsWrittenRatio;
+        this.pollInitialDelayInMillis = builder.pollInitialDelayInMillis;
+        this.pollMaxDelayInMillis = builder.pollMaxDelayInMillis;
+        this.buildTimeoutInMillis = builder.buildTimeoutInMillis;
+        this.minBuildTimeInMillis = builder.minBuildTimeInMillis;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setDaemon(true).setNameFormat("mochow-index-build-scheduler-%d").build());
+        this.scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    tick();
+                } catch (RuntimeException e) {
+                    LOG.warn("Index build scheduling failed", e);
+                }
+            }
+        }, 0, builder.checkIntervalInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Requests a rebuild of an index, skipped if too few rows were written since its last build.
+     *
+     * @return the task of the request, or the existing one if the index is already queued or building.
+     * @throws IllegalStateException if the scheduler has been closed.
+     */
+    public IndexBuildTask submit(String database, String table, String indexName) {
+        return this.submit(database, table, indexName, false);
+    }
+
+    /**
+     * Requests a rebuild of an index.
+     *
+     * @param database  the database name.
+     * @param table     the table name.
+     * @param indexName the index name.
+     * @param force     whether to build the index however few rows were written since its last build. Forcing a
+     *                  request also forces the queued task it is merged with.
+     * @return the task of the request, or the existing one if the index is already queued or building.
+     * @throws IllegalStateException if the scheduler has been closed.
+     */
+    public IndexBuildTask submit(String database, String table, String indexName, boolean force) {
+        checkNotNull(database, "database should not be null.");
+        checkNotNull(table, "table should not be null.");
+        checkNotNull(indexName, "indexName should not be null.");
+        String key = key(database, table, indexName);
+        synchronized (this.lock) {
+            checkState(!this.closed, "index build scheduler has been closed.");
+            IndexBuildTask existing = this.activeTasks.get(key);
+            if (existing != null) {
+                if (force && existing.getState() == IndexBuildState.PENDING) {
+                    existing.setForce(true);
+                }
+                return existing;
+            }
+            IndexBuildTask task = new IndexBuildTask(database, table, indexName, force);
+            this.activeTasks.put(key, task);
+            this.pending.addLast(task);
+            return task;
+        }
+    }
+
+    /**
+     * Returns the queued and building tasks.
+     */
+    public List<IndexBuildTask> getActiveTasks() {
+        synchronized (this.lock) {
+            return Collections.unmodifiableList(new ArrayList<IndexBuildTask>(this.activeTasks.values()));
+        }
+    }
+
+    public IndexBuildSchedulerStats getStats() {
+        synchronized (this.lock) {
+            return new IndexBuildSchedulerStats(this.pending.size(), this.building.size(), this.succeededCount.get(),
+                    this.skippedCount.get(), this.failedCount.get(), this.inOffPeakWindow());
+        }
+    }
+
+    /**
+     * Stops scheduling and cancels the queued and building tasks. Builds already started keep running on the
+     * server.
+     */
+    @Override
+    public void close() {
+        List<IndexBuildTask> cancelled;
+        synchronized (this.lock) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            cancelled = new ArrayList<IndexBuildTask>(this.activeTasks.values());
+            this.pending.clear();
+            this.building.clear();
+            this.activeTasks.clear();
+        }
+        this.scheduler.shutdownNow();
+        for (IndexBuildTask task : cancelled) {
+            task.complete(IndexBuildState.CANCELLED, "index build scheduler closed");
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<Build> due = new ArrayList<Build>();
+        synchronized (this.lock) {
+            for (Build build : this.building.values()) {
+                if (build.nextPollMillis <= now) {
+                    due.add(build);
+                }
+            }
+        }
+        for (Build build : due) {
+            this.poll(build, now);
+        }
+        if (!this.inOffPeakWindow()) {
+            return;
+        }
+        while (true) {
+            IndexBuildTask task;
+            synchronized (this.lock) {
+                if (this.closed || this.building.size() >= this.maxConcurrentBuilds) {
+                    return;
+                }
+                task = this.pending.pollFirst();
+            }
+            if (task == null) {
+                return;
+            }
+            this.start(task);
+        }
+    }
+
+    private void start(IndexBuildTask task) {
+        String key = key(task.getDatabase(), task.getTable(), task.getIndexName());
+        try {
+            IndexField index = this.client.describeIndex(task.getDatabase(), task.getTable(), task.getIndexName())
+                    .getIndex();
+            long rowsWritten = this.client.getIngestCounters().getRowsWritten(task.getDatabase(), task.getTable());
+            Long baseline = this.lastBuildRowsWritten.get(key);
+            long rowsWrittenSinceLastBuild = rowsWritten - (baseline != null ? baseline : 0);
+            if (index != null && index.getState() == IndexState.BUILDING) {
+                LOG.info("Index {} is already building, tracking it", key.replace('\0', '.'));
+                this.track(key, task, rowsWritten, rowsWrittenSinceLastBuild, true);
+                return;
+            }
+            // without a build by this scheduler, e.g. after a restart, the rows written before are unknown
+            if (!task.isForce() && baseline != null) {
+                String reason = this.skipReason(task, index, rowsWrittenSinceLastBuild);
+                if (reason != null) {
+                    this.finish(key, task, IndexBuildState.SKIPPED, reason);
+                    return;
+                }
+            }
+            this.client.rebuildIndex(task.getDatabase(), task.getTable(), task.getIndexName());
+            this.track(key, task, rowsWritten, rowsWrittenSinceLastBuild, false);
+        } catch (MochowClientException e) {
+            LOG.warn("Fail to start the build of index {}", key.replace('\0', '.'), e);
+            this.finish(key, task, IndexBuildState.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns why building an index does not pay off yet, or null if it does.
+     */
+    private String skipReason(IndexBuildTask task, IndexField index, long rowsWrittenSinceLastBuild) {
+        long minRows = this.minRowsWritten;
+        double minRatio = this.minRowsWrittenRatio;
+        AutoBuildPolicy policy = index != null ? index.getAutoBuildPolicy() : null;
+        if (policy != null && policy.getPolicyType() == AutoBuildPolicyType.ROW_COUNT_INCREMENT) {
+            if (minRows < 0) {
+                minRows = policy.getRowCountIncrement();
+            }
+            if (minRatio < 0) {
+                minRatio = policy.getRowCountIncrementRatio();
+            }
+        }
+        if (minRows <= 0 && minRatio <= 0) {
+            return null;
+        }
+        if (minRows > 0 && rowsWrittenSinceLastBuild >= minRows) {
+            return null;
+        }
+        long minRowsOfRatio = 0;
+        if (minRatio > 0) {
+            long rowCount = this.client.showTableStats(task.getDatabase(), task.getTable()).getRowCount();
+            minRowsOfRatio = (long) Math.ceil(minRatio * rowCount);
+            if (rowsWrittenSinceLastBuild >= minRowsOfRatio) {
+                return null;
+            }
+        }
+        return rowsWrittenSinceLastBuild + " rows written since the last build, fewer than "
+                + (minRows > 0 ? minRows + (minRatio > 0 ? " and " : "") : "")
+                + (minRatio > 0 ? minRowsOfRatio + " (ratio " + minRatio + ")" : "");
+    }
+
+    private void track(String key, IndexBuildTask task, long rowsWritten, long rowsWrittenSinceLastBuild,
+                       boolean building) {
+        task.start(rowsWrittenSinceLastBuild);
+        synchronized (this.lock) {
+            if (this.closed) {
+                return;
+            }
+            Build build = new Build(key, task, rowsWritten,
+                    task.getStartTimeMillis() + this.pollInitialDelayInMillis, this.pollInitialDelayInMillis);
+            build.buildingSeen = building;
+            this.building.put(key, build);
+        }
+        LOG.info("Building index {}, {} rows written since its last build", key.replace('\0', '.'),
+                rowsWrittenSinceLastBuild);
+    }
+
+    private void poll(Build build, long now) {
+        IndexBuildTask task = build.task;
+        try {
+            IndexField index = this.client.describeIndex(task.getDatabase(), task.getTable(), task.getIndexName())
+                    .getIndex();
+            if (index != null && index.getState() == IndexState.BUILDING) {
+                build.buildingSeen = true;
+            } else if (index != null && index.getState() == IndexState.NORMAL
+                    && (build.buildingSeen || now - task.getStartTimeMillis() >= this.minBuildTimeInMillis)) {
+                this.lastBuildRowsWritten.put(build.key, build.rowsWrittenAtStart);
+                this.finish(build.key, task, IndexBuildState.SUCCEEDED, null);
+                return;
+            }
+        } catch (MochowClientException e) {
+            LOG.warn("Fail to poll the state of index {}", build.key.replace('\0', '.'), e);
+        }
+        if (now - task.getStartTimeMillis() >= this.buildTimeoutInMillis) {
+            this.finish(build.key, task, IndexBuildState.FAILED,
+                    "not built after " + this.buildTimeoutInMillis + " ms");
+            return;
+        }
+        build.delayInMillis = Math.min(build.delayInMillis * 2, this.pollMaxDelayInMillis);
+        build.nextPollMillis = now + build.delayInMillis;
+    }
+
+    private void finish(String key, IndexBuildTask task, IndexBuildState state, String message) {
+        synchronized (this.lock) {
+            if (this.activeTasks.get(key) != task) {
+                // cancelled by close
+                return;
+            }
+            this.building.remove(key);
+            this.activeTasks.remove(key);
+        }
+        if (state == IndexBuildState.SUCCEEDED) {
+            this.succeededCount.incrementAndGet();
+        } else if (state == IndexBuildState.SKIPPED) {
+            this.skippedCount.incrementAndGet();
+        } else {
+            this.failedCount.incrementAndGet();
+        }
+        task.complete(state, message);
+        LOG.info("Build of index {} {}{}", key.replace('\0', '.'), state,
+                message != null ? ": " + message : "");
+    }
+
+    private boolean inOffPeakWindow() {
+        if (this.offPeakWindows.isEmpty()) {
+            return true;
+        }
+        LocalTime now = LocalTime.now(this.zone);
+        for (OffPeakWindow window : this.offPeakWindows) {
+            if (window.contains(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(String database, String table, String indexName) {
+        return database + '\0' + table + '\0' + indexName;
+    }
+
+    private static class Build {
+        private final String key;
+        private final IndexBuildTask task;
+        private final long rowsWrittenAtStart;
+        private boolean buildingSeen = false;
+        private long nextPollMillis;
+        private long delayInMillis;
+
+        Build(String key, IndexBuildTask task, long rowsWrittenAtStart, long nextPollMillis, long delayInMillis) {
+            this.key = key;
+            this.task = task;
+            this.rowsWrittenAtStart = rowsWrittenAtStart;
+            this.nextPollMillis = nextPollMillis;
+            this.delayInMillis = delayInMillis;
+        }
+    }
+
+    public static class Builder {
+        private MochowClient client;
+        private int maxConcurrentBuilds = DEFAULT_MAX_CONCURRENT_BUILDS;
+        private final List<OffPeakWindow> offPeakWindows = new ArrayList<OffPeakWindow>();
+        private ZoneId zone = ZoneId.systemDefault();
+        private long minRowsWritten = -1;
+        private double minRowsWrittenRatio = -1;
+        private long checkIntervalInMillis = DEFAULT_CHECK_INTERVAL_IN_MILLIS;
+        private long pollInitialDelayInMillis = DEFAULT_POLL_INITIAL_DELAY_IN_MILLIS;
+        private long pollMaxDelayInMillis = DEFAULT_POLL_MAX_DELAY_IN_MILLIS;
+        private long buildTimeoutInMillis = DEFAULT_BUILD_TIMEOUT_IN_MILLIS;
+        private long minBuildTimeInMillis = DEFAULT_MIN_BUILD_TIME_IN_MILLIS;
+
+        public Builder client(MochowClient client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder maxConcurrentBuilds(int maxConcurrentBuilds) {
+            checkArgument(maxConcurrentBuilds > 0, "maxConcurrentBuilds should be positive.");
+            this.maxConcurrentBuilds = maxConcurrentBuilds;
+            return this;
+        }
+
+        /**
+         * Adds a daily window during which builds may start. Without windows, builds start at any time. Builds
+         * started within a window are not stopped at its end.
+         */
+        public Builder offPeakWindow(LocalTime start, LocalTime end) {
+            this.offPeakWindows.add(new OffPeakWindow(start, end));
+            return this;
+        }
+
+        /**
+         * Sets the time zone of the off-peak windows. Defaults to the system time zone.
+         */
+        public Builder zone(ZoneId zone) {
+            checkNotNull(zone, "zone should not be null.");
+            this.zone = zone;
+            return this;
+        }
+
+        /**
+         * Sets the number of rows written since the last build that makes a build pay off. 0 disables the
+         * threshold. Defaults to the row count increment of the auto build policy of the index.
+         */
+        public Builder minRowsWritten(long minRowsWritten) {
+            checkArgument(minRowsWritten >= 0, "minRowsWritten should not be negative.");
+            this.minRowsWritten = minRowsWritten;
+            return this;
+        }
+
+        /**
+         * Sets the ratio of the table row count written since the last build that makes a build pay off. 0
+         * disables the threshold. Defaults to the row count increment ratio of the auto build policy of the index.
+         */
+        public Builder minRowsWrittenRatio(double minRowsWrittenRatio) {
+            checkArgument(minRowsWrittenRatio >= 0, "minRowsWrittenRatio should not be negative.");
+            this.minRowsWrittenRatio = minRowsWrittenRatio;
+            return this;
+        }
+
+        /**
+         * Sets how often the queue and the due builds are checked.
+         */
+        public Builder checkIntervalInMillis(long checkIntervalInMillis) {
+            checkArgument(checkIntervalInMillis > 0, "checkIntervalInMillis should be positive.");
+            this.checkIntervalInMillis = checkIntervalInMillis;
+            return this;
+        }
+
+        /**
+         * Sets the first and the maximum delay between two polls of the state of a building index.
+         */
+        public Builder pollDelays(long pollInitialDelayInMillis, long pollMaxDelayInMillis) {
+            checkArgument(pollInitialDelayInMillis > 0, "pollInitialDelayInMillis should be positive.");
+            checkArgument(pollMaxDelayInMillis > 0, "pollMaxDelayInMillis should be positive.");
+            this.pollInitialDelayInMillis = pollInitialDelayInMillis;
+            this.pollMaxDelayInMillis = pollMaxDelayInMillis;
+            return this;
+        }
+
+        public Builder buildTimeoutInMillis(long buildTimeoutInMillis) {
+            checkArgument(buildTimeoutInMillis > 0, "buildTimeoutInMillis should be positive.");
+            this.buildTimeoutInMillis = buildTimeoutInMillis;
+            return this;
+        }
+
+        /**
+         * Sets how long after its start a build is complete on a NORMAL index that was never seen BUILDING, in
+         * case the server had not yet reported the rebuild.
+         */
+        public Builder minBuildTimeInMillis(long minBuildTimeInMillis) {
+            checkArgument(minBuildTimeInMillis >= 0, "minBuildTimeInMillis should not be negative.");
+            this.minBuildTimeInMillis = minBuildTimeInMillis;
+            return this;
+        }
+
+        public IndexBuildScheduler build() {
+            return new IndexBuildScheduler(this);
+        }
+    }
+}
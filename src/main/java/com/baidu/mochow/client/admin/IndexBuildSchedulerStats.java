@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A snapshot of the tasks of an {@link IndexBuildScheduler}.
+ */
+@Getter
+@AllArgsConstructor
+public class IndexBuildSchedulerStats {
+
+    private final int pendingCount;
+
+    private final int buildingCount;
+
+    private final long succeededCount;
+
+    private final long skippedCount;
+
+    private final long failedCount;
+
+    /**
+     * Whether builds may start now, according to the off-peak windows.
+     */
+    private final boolean inOffPeakWindow;
+
+    @Override
+    public String toString() {
+        return "IndexBuildSchedulerStats{pendingCount=" + this.pendingCount + ", buildingCount=" + this.buildingCount
+                + ", succeededCount=" + this.succeededCount + ", skippedCount=" + this.skippedCount
+                + ", failedCount=" + this.failedCount + ", inOffPeakWindow=" + this.inOffPeakWindow + '}';
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+/**
+ * The state of an {@link IndexBuildTask}.
+ */
+public enum IndexBuildState {
+    /**
+     * Waiting for a build slot, or for an off-peak window.
+     */
+    PENDING,
+    /**
+     * The index is being built on the server.
+     */
+    BUILDING,
+    SUCCEEDED,
+    /**
+     * Not built, as too few rows were written to the table since its last build.
+     */
+    SKIPPED,
+    FAILED,
+    /**
+     * Dropped by the closing of the scheduler. A build already started may still complete on the server.
+     */
+    CANCELLED
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.baidu.mochow.exception.MochowClientException;
+
+/**
+ * A rebuild request submitted to an {@link IndexBuildScheduler}, and its progress.
+ */
+public class IndexBuildTask {
+
+    private final String database;
+    private final String table;
+    private final String indexName;
+    private final long submitTimeMillis = System.currentTimeMillis();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile boolean force;
+    private volatile IndexBuildState state = IndexBuildState.PENDING;
+    private volatile long startTimeMillis;
+    private volatile long endTimeMillis;
+    private volatile long rowsWrittenSinceLastBuild;
+    private volatile String message;
+
+    IndexBuildTask(String database, String table, String indexName, boolean force) {
+        this.database = database;
+        this.table = table;
+        this.indexName = indexName;
+        this.force = force;
+    }
+
+    public String getDatabase() {
+        return this.database;
+    }
+
+    public String getTable() {
+        return this.table;
+    }
+
+    public String getIndexName() {
+        return this.indexName;
+    }
+
+    /**
+     * Returns whether the task builds the index however few rows were written since its last build.
+     */
+    public boolean isForce() {
+        return this.force;
+    }
+
+    public IndexBuildState getState() {
+        return this.state;
+    }
+
+    public long getSubmitTimeMillis() {
+        return this.submitTimeMillis;
+    }
+
+    /**
+     * Returns when the build started, or 0 if it has not.
+     */
+    public long getStartTimeMillis() {
+        return this.startTimeMillis;
+    }
+
+    /**
+     * Returns when the task completed, or 0 if it has not.
+     */
+    public long getEndTimeMillis() {
+        return this.endTimeMillis;
+    }
+
+    /**
+     * Returns the rows written to the table through the client since the last build of the index by the scheduler,
+     * as counted when the task was started.
+     */
+    public long getRowsWrittenSinceLastBuild() {
+        return this.rowsWrittenSinceLastBuild;
+    }
+
+    /**
+     * Returns why the task was skipped, failed or cancelled, or null.
+     */
+    public String getMessage() {
+        return this.message;
+    }
+
+    public boolean isDone() {
+        return this.done.getCount() == 0;
+    }
+
+    /**
+     * Waits for the task to complete.
+     *
+     * @param timeoutInMillis the maximum time to wait.
+     * @return whether the task completed in time.
+     * @throws MochowClientException if interrupted.
+     */
+    public boolean await(long timeoutInMillis) throws MochowClientException {
+        try {
+            return this.done.await(timeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MochowClientException("Interrupted while waiting for the build of index " + this.indexName, e);
+        }
+    }
+
+    void setForce(boolean force) {
+        this.force = force;
+    }
+
+    void start(long rowsWrittenSinceLastBuild) {
+        this.rowsWrittenSinceLastBuild = rowsWrittenSinceLastBuild;
+        this.startTimeMillis = System.currentTimeMillis();
+        this.state = IndexBuildState.BUILDING;
+    }
+
+    void complete(IndexBuildState state, String message) {
+        this.message = message;
+        this.endTimeMillis = System.currentTimeMillis();
+        this.state = state;
+        this.done.countDown();
+    }
+
+    @Override
+    public String toString() {
+        return "IndexBuildTask{index=" + this.database + '.' + this.table + '.' + this.indexName
+                + ", state=" + this.state + ", force=" + this.force
+                + ", rowsWrittenSinceLastBuild=" + this.rowsWrittenSinceLastBuild
+                + (this.message != null ? ", message=" + this.message : "") + '}';
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the rows written to each table through a client since it was created.
+ * <p>
+ * Inserted and upserted rows count one each, as do updates and deletes by primary key; deletes by filter are not
+ * counted, as the number of rows they touch is unknown. Only writes acknowledged by the server are counted, once
+ * whatever their retries. Writes through an alias are counted under the alias. Rows written by other clients are
+ * not seen.
+ */
+public class IngestCounters {
+
+    private final ConcurrentMap<String, AtomicLong> rowsWritten = new ConcurrentHashMap<String, AtomicLong>();
+
+    /**
+     * Adds written rows to the counter of a table.
+     *
+     * @param database the database name.
+     * @param table    the table name.
+     * @param rows     the number of rows written.
+     */
+    public void record(String database, String table, long rows) {
+        String key = key(database, table);
+        AtomicLong counter = this.rowsWritten.get(key);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = this.rowsWritten.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.addAndGet(rows);
+    }
+
+    /**
+     * Returns the number of rows written to a table through the client so far.
+     */
+    public long getRowsWritten(String database, String table) {
+        AtomicLong counter = this.rowsWritten.get(key(database, table));
+        return counter != null ? counter.get() : 0;
+    }
+
+    private static String key(String database, String table) {
+        return database + '\0' + table;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.LocalTime;
+
+import lombok.Getter;
+
+/**
+ * A daily time range during which index builds may start. A window whose end is before its start spans midnight.
+ */
+@Getter
+public class OffPeakWindow {
+
+    private final LocalTime start;
+
+    private final LocalTime end;
+
+    public OffPeakWindow(LocalTime start, LocalTime end) {
+        checkNotNull(start, "start should not be null.");
+        checkNotNull(end, "end should not be null.");
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns whether a time of day falls within the window, its start included and its end excluded.
+     */
+    public boolean contains(LocalTime time) {
+        if (this.start.isBefore(this.end)) {
+            return !time.isBefore(this.start) && time.isBefore(this.end);
+        }
+        return !time.isBefore(this.start) || time.isBefore(this.end);
+    }
+
+    @Override
+    public String toString() {
+        return this.start + "-" + this.end;
+    }
+}
@@ -0,0 +1,704 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.client.read.ParallelScan;
+import com.baidu.mochow.client.read.ScanSplit;
+import com.baidu.mochow.client.read.ScanSplitHandler;
+import com.baidu.mochow.client.read.SelectIterator;
+import com.baidu.mochow.client.write.BulkWriter;
+import com.baidu.mochow.client.write.RowKeyExtractor;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.ReindexVerificationException;
+import com.baidu.mochow.model.AliasTableRequest;
+import com.baidu.mochow.model.CreateTableRequest;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.SelectRequest;
+import com.baidu.mochow.model.SelectResponse;
+import com.baidu.mochow.model.UnaliasTableRequest;
+import com.baidu.mochow.model.entity.ANNSearchParams;
+import com.baidu.mochow.model.entity.FLATSearchParams;
+import com.baidu.mochow.model.entity.Field;
+import com.baidu.mochow.model.entity.HNSWSearchParams;
+import com.baidu.mochow.model.entity.IndexField;
+import com.baidu.mochow.model.entity.PUCKSearchParams;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.Schema;
+import com.baidu.mochow.model.entity.SearchParams;
+import com.baidu.mochow.model.entity.SearchResultRow;
+import com.baidu.mochow.model.entity.Table;
+import com.baidu.mochow.model.enums.IndexState;
+import com.baidu.mochow.model.enums.IndexType;
+import com.baidu.mochow.model.enums.ReadConsistency;
+import com.baidu.mochow.model.enums.RequestPriority;
+import com.baidu.mochow.model.enums.TableState;
+import com.baidu.mochow.util.VectorUtils;
+
+/**
+ * Rebuilds the table behind an alias without downtime, with a blue/green flow.
+ * <p>
+ * {@link #run()} creates the target table, with the given create request or as a copy of the source table, waits
+ * for it to be ready, and loads it through a {@link BulkWriter}: either with the given rows, or with the rows of the
+ * source table read by a {@link ParallelScan}. At most {@code loadParallelism} splits are scanned and batches
+ * written at a time. It then rebuilds the vector indexes of the target table and waits for them to be
+ * {@link IndexState#NORMAL}. As the server may not report a rebuild at once, a rebuilt index only counts as built
+ * once it has been seen {@link IndexState#BUILDING}, or once the minimum build time has elapsed. Table and index
+ * states are polled with exponential backoff, up to a timeout.
+ * <p>
+ * Before the cutover, the row count of the target table is checked against the source table less the rows skipped
+ * by the row transformer, or against the number of rows loaded, and the recall of the vector index is measured on a
+ * sample of its own vectors, against exact FLAT searches; a FLAT index is exact and has a recall of 1. A failed
+ * check throws a {@link ReindexVerificationException} and leaves the alias untouched.
+ * <p>
+ * The cutover unaliases the source table and aliases the target table; if aliasing the target fails, the alias is
+ * given back to the source. Searches through the alias may fail for the round trip between the two calls. The
+ * source table is kept, so {@link #rollback()} moves the alias back, until {@link #dropSourceTable()} drops it.
+ * <p>
+ * Writes to the source table during the load are not copied; pause them, or write to both tables, for the duration
+ * of the run.
+ */
+public class ReindexOrchestrator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReindexOrchestrator.class);
+
+    public static final int DEFAULT_LOAD_PARALLELISM = 4;
+    public static final long DEFAULT_POLL_INITIAL_DELAY_IN_MILLIS = 1000;
+    public static final long DEFAULT_POLL_MAX_DELAY_IN_MILLIS = 30 * 1000;
+    public static final long DEFAULT_WAIT_TIMEOUT_IN_MILLIS = 2 * 60 * 60 * 1000;
+    public static final int DEFAULT_RECALL_SAMPLE_SIZE = 20;
+    public static final double DEFAULT_MIN_RECALL = 0.9;
+    public static final long DEFAULT_MIN_BUILD_TIME_IN_MILLIS = 30 * 1000;
+
+    private final MochowClient client;
+    private final String database;
+    private final String alias;
+    private final String sourceTable;
+    private final String targetTable;
+    private final CreateTableRequest createTableRequest;
+    private final Iterable<Row> rows;
+    private final Function<Row, Row> rowTransformer;
+    private final int loadParallelism;
+    private final int batchSize;
+    private final boolean rebuildIndexes;
+    private final long pollInitialDelayInMillis;
+    private final long pollMaxDelayInMillis;
+    private final long waitTimeoutInMillis;
+    private final long minBuildTimeInMillis;
+    private final double rowCountTolerance;
+    private final String vectorField;
+    private final int recallSampleSize;
+    private final int recallLimit;
+    private final double minRecall;
+    private final SearchParams recallSearchParams;
+
+    private volatile boolean cutOver = false;
+
+    private ReindexOrchestrator(Builder builder) {
+        checkNotNull(builder.client, "client should not be null.");
+        checkNotNull(builder.database, "database should not be null.");
+        checkNotNull(builder.alias, "alias should not be null.");
+        checkNotNull(builder.sourceTable, "sourceTable should not be null.");
+        checkNotNull(builder.targetTable, "targetTable should not be null.");
+        checkArgument(!builder.sourceTable.equals(builder.targetTable),
+                "targetTable should differ from sourceTable.");
+        checkArgument(builder.pollInitialDelayInMillis <= builder.pollMaxDelayInMillis,
+                "pollInitialDelayInMillis should not be greater than pollMaxDelayInMillis.");
+        this.client = builder.client;
+        this.database = builder.database;
+        this.alias = builder.alias;
+        this.sourceTable = builder.sourceTable;
+        this.targetTable = builder.targetTable;
+        this.createTableRequest = builder.createTableRequest;
+        this.rows = builder.rows;
+        this.rowTransformer = builder.rowTransformer;
+        this.loadParallelism = builder.loadParallelism;
+        this.batchSize = builder.batchSize;
+        this.rebuildIndexes = builder.rebuildIndexes;
+        this.pollInitialDelayInMillis = builder.pollInitialDelayInMillis;
+        this.pollMaxDelayInMillis = builder.pollMaxDelayInMillis;
+        this.minBuildTimeInMillis = builder.minBuildTimeInMillis;
+        this.waitTimeoutInMillis = builder.waitTimeoutInMillis;
+        this.rowCountTolerance = builder.rowCountTolerance;
+        this.vectorField = builder.vectorField;
+        this.recallSampleSize = builder.recallSampleSize;
+        this.recallLimit = builder.recallLimit;
+        this.minRecall = builder.minRecall;
+        this.recallSearchParams = builder.recallSearchParams;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates and loads the target table, waits for its indexes, verifies it and moves the alias to it.
+     *
+     * @return the result of the run.
+     * @throws ReindexVerificationException if the target table fails a check; the alias is left on the source table.
+     * @throws MochowClientException        if a request fails or a wait times out.
+     */
+    public ReindexResult run() throws MochowClientException {
+        checkState(!this.cutOver, "reindex has already been cut over.");
+        Table source = this.client.describeTable(this.database, this.sourceTable).getTable();
+
+        LOG.info("Creating table {}.{} to replace {}", this.database, this.targetTable, this.sourceTable);
+        this.client.createTable(this.createTableRequest != null ? this.createTableRequest : this.copyOf(source));
+        this.awaitTable();
+
+        long loadStart = System.currentTimeMillis();
+        AtomicLong rowsSkipped = new AtomicLong();
+        long rowsLoaded = this.load(rowsSkipped);
+        long loadTimeInMillis = System.currentTimeMillis() - loadStart;
+        LOG.info("Loaded {} rows into {}.{} in {} ms", rowsLoaded, this.database, this.targetTable,
+                loadTimeInMillis);
+
+        long buildStart = System.currentTimeMillis();
+        Schema schema = this.client.describeTable(this.database, this.targetTable).getTable().getSchema();
+        List<IndexField> vectorIndexes = vectorIndexesOf(schema);
+        for (IndexField index : vectorIndexes) {
+            if (this.rebuildIndexes) {
+                this.client.rebuildIndex(this.database, this.targetTable, index.getIndexName());
+            }
+        }
+        for (IndexField index : vectorIndexes) {
+            this.awaitIndex(index.getIndexName(), buildStart);
+        }
+        long buildTimeInMillis = System.currentTimeMillis() - buildStart;
+
+        // rows the transformer maps to null are read from the source but never loaded
+        long expectedRowCount = this.rows != null ? rowsLoaded
+                : this.client.showTableStats(this.database, this.sourceTable).getRowCount() - rowsSkipped.get();
+        long targetRowCount = this.client.showTableStats(this.database, this.targetTable).getRowCount();
+        if (Math.abs(targetRowCount - expectedRowCount) > this.rowCountTolerance * expectedRowCount) {
+            throw new ReindexVerificationException("Table " + this.database + '.' + this.targetTable + " has "
+                    + targetRowCount + " rows, expected " + expectedRowCount);
+        }
+        double recall = this.verifyRecall(schema, vectorIndexes);
+
+        boolean sourceAliased = source.getAliases() != null && source.getAliases().contains(this.alias);
+        this.cutOver(sourceAliased);
+        ReindexResult result = new ReindexResult(this.database, this.alias, this.sourceTable, this.targetTable,
+                rowsLoaded, expectedRowCount, targetRowCount, recall, loadTimeInMillis, buildTimeInMillis);
+        LOG.info("Alias {}.{} moved to {}: {}", this.database, this.alias, this.targetTable, result);
+        return result;
+    }
+
+    /**
+     * Moves the alias back to the source table after a cutover.
+     *
+     * @throws MochowClientException if the alias cannot be moved.
+     */
+    public void rollback() throws MochowClientException {
+        checkState(this.cutOver, "reindex has not been cut over.");
+        this.client.unaliasTable(new UnaliasTableRequest(this.database, this.targetTable, this.alias));
+        this.client.aliasTable(new AliasTableRequest(this.database, this.sourceTable, this.alias));
+        this.cutOver = false;
+        LOG.info("Alias {}.{} moved back to {}", this.database, this.alias, this.sourceTable);
+    }
+
+    /**
+     * Drops the source table once the target table is trusted. Rollback is no longer possible afterwards.
+     *
+     * @throws MochowClientException if the table cannot be dropped.
+     */
+    public void dropSourceTable() throws MochowClientException {
+        checkState(this.cutOver, "reindex has not been cut over.");
+        this.client.dropTable(this.database, this.sourceTable);
+    }
+
+    private void cutOver(boolean sourceAliased) {
+        if (sourceAliased) {
+            this.client.unaliasTable(new UnaliasTableRequest(this.database, this.sourceTable, this.alias));
+        }
+        try {
+            this.client.aliasTable(new AliasTableRequest(this.database, this.targetTable, this.alias));
+        } catch (MochowClientException e) {
+            if (sourceAliased) {
+                try {
+                    this.client.aliasTable(new AliasTableRequest(this.database, this.sourceTable, this.alias));
+                } catch (MochowClientException restoreFailure) {
+                    e.addSuppressed(restoreFailure);
+                }
+            }
+            throw e;
+        }
+        this.cutOver = true;
+    }
+
+    private long load(AtomicLong rowsSkipped) {
+        final BulkWriter writer = BulkWriter.builder()
+                .client(this.client)
+                .database(this.database)
+                .table(this.targetTable)
+                .batchSize(this.batchSize)
+                .maxInFlightBatches(this.loadParallelism).build();
+        try {
+            if (this.rows != null) {
+                for (Row row : this.rows) {
+                    this.write(writer, row, rowsSkipped);
+                }
+            } else {
+                this.copySource(writer, rowsSkipped);
+            }
+        } catch (RuntimeException e) {
+            try {
+                writer.close();
+            } catch (RuntimeException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        writer.close();
+        return writer.getStats().getRowsWritten();
+    }
+
+    private void copySource(final BulkWriter writer, final AtomicLong rowsSkipped) {
+        Schema schema = this.client.getTableSchema(this.database, this.sourceTable);
+        List<String> fieldNames = new ArrayList<String>();
+        for (Field field : schema.getFields()) {
+            fieldNames.add(field.getFieldName());
+        }
+        SelectRequest request = SelectRequest.builder()
+                .database(this.database)
+                .table(this.sourceTable)
+                .projections(fieldNames)
+                .readConsistency(ReadConsistency.STRONG).build();
+        request.setPriority(RequestPriority.BACKGROUND);
+        if (!ParallelScan.canSplit(schema)) {
+            // no split points for this primary key, copy with a single chain of markers
+            LOG.info("Copying {}.{} sequentially, its primary key cannot be split", this.database, this.sourceTable);
+            SelectIterator iterator = this.client.selectAll(request);
+            try {
+                while (iterator.hasNext()) {
+                    this.write(writer, iterator.next(), rowsSkipped);
+                }
+            } finally {
+                iterator.close();
+            }
+            return;
+        }
+        ParallelScan.builder()
+                .client(this.client)
+                .request(request)
+                .splits(this.loadParallelism * 4)
+                .parallelism(this.loadParallelism).build()
+                .run(new ScanSplitHandler() {
+                    @Override
+                    public void onRow(ScanSplit split, Row row) {
+                        write(writer, row, rowsSkipped);
+                    }
+                });
+    }
+
+    private void write(BulkWriter writer, Row row, AtomicLong rowsSkipped) {
+        Row transformed = this.rowTransformer != null ? this.rowTransformer.apply(row) : row;
+        if (transformed != null) {
+            writer.add(transformed);
+        } else {
+            rowsSkipped.incrementAndGet();
+        }
+    }
+
+    private double verifyRecall(Schema schema, List<IndexField> vectorIndexes) {
+        IndexField index = null;
+        for (IndexField candidate : vectorIndexes) {
+            if (this.vectorField == null || this.vectorField.equals(candidate.getField())) {
+                index = candidate;
+                break;
+            }
+        }
+        if (this.recallSampleSize == 0 || index == null) {
+            return -1;
+        }
+        if (index.getIndexType() == IndexType.FLAT) {
+            // exact searches, they are the reference the recall would be measured against
+            return 1;
+        }
+        RowKeyExtractor primaryKey = RowKeyExtractor.primaryKeyOf(schema);
+        SearchParams params = this.recallSearchParams;
+        if (params == null) {
+            params = index.getIndexType() == IndexType.HNSW
+                    ? HNSWSearchParams.builder().limit(this.recallLimit).ef(Math.max(64, this.recallLimit)).build()
+                    : PUCKSearchParams.builder().limit(this.recallLimit).searchCoarseCount(20).build();
+        }
+        List<List<Float>> queries = this.sampleVectors(index.getField());
+        if (queries.isEmpty()) {
+            return -1;
+        }
+        double recallSum = 0;
+        for (List<Float> query : queries) {
+            Set<Object> truth = this.search(index.getField(), query,
+                    FLATSearchParams.builder().limit(this.recallLimit).build(), primaryKey);
+            if (truth.isEmpty()) {
+                recallSum += 1;
+                continue;
+            }
+            int hits = 0;
+            for (Object key : this.search(index.getField(), query, params, primaryKey)) {
+                if (truth.contains(key)) {
+                    hits++;
+                }
+            }
+            recallSum += (double) hits / truth.size();
+        }
+        double recall = recallSum / queries.size();
+        if (recall < this.minRecall) {
+            throw new ReindexVerificationException("Index " + index.getIndexName() + " of " + this.database + '.'
+                    + this.targetTable + " has a sampled recall of " + recall + ", expected at least "
+                    + this.minRecall);
+        }
+        return recall;
+    }
+
+    private Set<Object> search(String field, List<Float> query, SearchParams params, RowKeyExtractor primaryKey) {
+        // sent directly, so that neither cached results nor tuned search params skew the measured recall
+        SearchResponse response = this.client.searchDirect(SearchRequest.builder()
+                .database(this.database)
+                .table(this.targetTable)
+                .anns(new ANNSearchParams(field, query, params, null))
+                .projections(primaryKey.getFieldNames())
+                .readConsistency(ReadConsistency.STRONG).build());
+        Set<Object> keys = new HashSet<Object>();
+        if (response.getRows() != null) {
+            for (SearchResultRow row : response.getRows()) {
+                Object key = primaryKey.extract(row.getRow());
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private List<List<Float>> sampleVectors(String field) {
+        SelectResponse response = this.client.select(SelectRequest.builder()
+                .database(this.database)
+                .table(this.targetTable)
+                .limit(this.recallSampleSize)
+                .projections(Collections.singletonList(field)).build());
+        List<List<Float>> vectors = new ArrayList<List<Float>>();
+        if (response.getRows() != null) {
+            for (Row row : response.getRows()) {
+                float[] vector = row.getFields() != null ? VectorUtils.toFloatArray(row.getFields().get(field)) : null;
+                if (vector == null) {
+                    continue;
+                }
+                List<Float> query = new ArrayList<Float>(vector.length);
+                for (float element : vector) {
+                    query.add(element);
+                }
+                vectors.add(query);
+            }
+        }
+        return vectors;
+    }
+
+    private void awaitTable() {
+        this.await("table " + this.database + '.' + this.targetTable, new Supplier<Boolean>() {
+            @Override
+            public Boolean get() {
+                Table table = client.describeTable(database, targetTable).getTable();
+                return table != null && table.getState() == TableState.NORMAL;
+            }
+        });
+    }
+
+    private void awaitIndex(final String indexName, final long buildStart) {
+        this.await("index " + indexName + " of " + this.database + '.' + this.targetTable, new Supplier<Boolean>() {
+            // without a rebuild, the index is built when it is NORMAL
+            private boolean buildingSeen = !rebuildIndexes;
+
+            @Override
+            public Boolean get() {
+                IndexField index = client.describeIndex(database, targetTable, indexName).getIndex();
+                if (index == null) {
+                    return false;
+                }
+                if (index.getState() == IndexState.BUILDING) {
+                    this.buildingSeen = true;
+                    return false;
+                }
+                // a NORMAL state right after the rebuild request may still be the one of the previous build
+                return index.getState() == IndexState.NORMAL && (this.buildingSeen
+                        || System.currentTimeMillis() - buildStart >= minBuildTimeInMillis);
+            }
+        });
+    }
+
+    /**
+     * Polls a condition with exponentially growing delays until it holds or the wait timeout elapses.
+     */
+    private void await(String what, Supplier<Boolean> ready) {
+        long deadline = System.currentTimeMillis() + this.waitTimeoutInMillis;
+        long delay = this.pollInitialDelayInMillis;
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new MochowClientException("Timed out after " + this.waitTimeoutInMillis
+                        + " ms waiting for " + what);
+            }
+            try {
+                Thread.sleep(Math.min(delay, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MochowClientException("Interrupted while waiting for " + what, e);
+            }
+            if (ready.get()) {
+                return;
+            }
+            delay = Math.min(delay * 2, this.pollMaxDelayInMillis);
+        }
+    }
+
+    private CreateTableRequest copyOf(Table source) {
+        Schema.Builder schema = Schema.builder();
+        for (Field field : source.getSchema().getFields()) {
+            schema.addField(field);
+        }
+        if (source.getSchema().getIndexes() != null) {
+            for (IndexField index : source.getSchema().getIndexes()) {
+                // the state of the source index is not part of a create request
+                schema.addIndex(new IndexField(index.getIndexName(), index.getField(), index.getIndexType(), null,
+                        index.getMetricType(), index.getParams(), index.isAutoBuild(), index.getAutoBuildPolicy()));
+            }
+        }
+        return CreateTableRequest.builder()
+                .database(this.database)
+                .table(this.targetTable)
+                .description(source.getDescription())
+                .replication(source.getReplication())
+                .partition(source.getPartition())
+                .enableDynamicField(Boolean.TRUE.equals(source.getEnableDynamicField()))
+                .schema(schema.build()).build();
+    }
+
+    private static List<IndexField> vectorIndexesOf(Schema schema) {
+        List<IndexField> indexes = new ArrayList<IndexField>();
+        if (schema != null && schema.getIndexes() != null) {
+            for (IndexField index : schema.getIndexes()) {
+                if (index.isVectorIndex()) {
+                    indexes.add(index);
+                }
+            }
+        }
+        return indexes;
+    }
+
+    public static class Builder {
+        private MochowClient client;
+        private String database;
+        private String alias;
+        private String sourceTable;
+        private String targetTable;
+        private CreateTableRequest createTableRequest;
+        private Iterable<Row> rows;
+        private Function<Row, Row> rowTransformer;
+        private int loadParallelism = DEFAULT_LOAD_PARALLELISM;
+        private int batchSize = BulkWriter.DEFAULT_BATCH_SIZE;
+        private boolean rebuildIndexes = true;
+        private long pollInitialDelayInMillis = DEFAULT_POLL_INITIAL_DELAY_IN_MILLIS;
+        private long pollMaxDelayInMillis = DEFAULT_POLL_MAX_DELAY_IN_MILLIS;
+        private long minBuildTimeInMillis = DEFAULT_MIN_BUILD_TIME_IN_MILLIS;
+        private long waitTimeoutInMillis = DEFAULT_WAIT_TIMEOUT_IN_MILLIS;
+        private double rowCountTolerance = 0;
+        private String vectorField;
+        private int recallSampleSize = DEFAULT_RECALL_SAMPLE_SIZE;
+        private int recallLimit = 10;
+        private double minRecall = DEFAULT_MIN_RECALL;
+        private SearchParams recallSearchParams;
+
+        public Builder client(MochowClient client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder database(String database) {
+            this.database = database;
+            return this;
+        }
+
+        /**
+         * Sets the alias moved from the source table to the target table. The source table does not need to hold
+         * it yet.
+         */
+        public Builder alias(String alias) {
+            this.alias = alias;
+            return this;
+        }
+
+        public Builder sourceTable(String sourceTable) {
+            this.sourceTable = sourceTable;
+            return this;
+        }
+
+        public Builder targetTable(String targetTable) {
+            this.targetTable = targetTable;
+            return this;
+        }
+
+        /**
+         * Sets the request creating the target table, e.g. with a changed schema. Defaults to a copy of the source
+         * table.
+         */
+        public Builder createTableRequest(CreateTableRequest createTableRequest) {
+            checkNotNull(createTableRequest, "createTableRequest should not be null.");
+            this.createTableRequest = createTableRequest;
+            return this;
+        }
+
+        /**
+         * Sets the rows to load, e.g. from an external source, instead of the rows of the source table.
+         */
+        public Builder rows(Iterable<Row> rows) {
+            checkNotNull(rows, "rows should not be null.");
+            this.rows = rows;
+            return this;
+        }
+
+        /**
+         * Sets a function applied to each row before it is loaded, e.g. to fit a changed schema. Rows it maps to
+         * null are skipped.
+         */
+        public Builder rowTransformer(Function<Row, Row> rowTransformer) {
+            checkNotNull(rowTransformer, "rowTransformer should not be null.");
+            this.rowTransformer = rowTransformer;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of source splits scanned, and of batches written, at a time.
+         */
+        public Builder loadParallelism(int loadParallelism) {
+            checkArgument(loadParallelism > 0, "loadParallelism should be positive.");
+            this.loadParallelism = loadParallelism;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            checkArgument(batchSize > 0, "batchSize should be positive.");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets whether the vector indexes of the target table are rebuilt after the load. Defaults to true.
+         */
+        public Builder rebuildIndexes(boolean rebuildIndexes) {
+            this.rebuildIndexes = rebuildIndexes;
+            return this;
+        }
+
+        /**
+         * Sets the first and the maximum delay between two polls of the table or index state.
+         */
+        public Builder pollDelays(long pollInitialDelayInMillis, long pollMaxDelayInMillis) {
+            checkArgument(pollInitialDelayInMillis > 0, "pollInitialDelayInMillis should be positive.");
+            checkArgument(pollMaxDelayInMillis > 0, "pollMaxDelayInMillis should be positive.");
+            this.pollInitialDelayInMillis = pollInitialDelayInMillis;
+            this.pollMaxDelayInMillis = pollMaxDelayInMillis;
+            return this;
+        }
+
+        /**
+         * Sets how long after the rebuild request a NORMAL index that was never seen BUILDING counts as built, in
+         * case the server had not yet reported the rebuild.
+         */
+        public Builder minBuildTimeInMillis(long minBuildTimeInMillis) {
+            checkArgument(minBuildTimeInMillis >= 0, "minBuildTimeInMillis should not be negative.");
+            this.minBuildTimeInMillis = minBuildTimeInMillis;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait for the target table to be created, and for each of its indexes to be built.
+         */
+        public Builder waitTimeoutInMillis(long waitTimeoutInMillis) {
+            checkArgument(waitTimeoutInMillis > 0, "waitTimeoutInMillis should be positive.");
+            this.waitTimeoutInMillis = waitTimeoutInMillis;
+            return this;
+        }
+
+        /**
+         * Sets the accepted relative difference between the row count of the target table and the expected one.
+         * Defaults to 0.
+         */
+        public Builder rowCountTolerance(double rowCountTolerance) {
+            checkArgument(rowCountTolerance >= 0 && rowCountTolerance < 1,
+                    "rowCountTolerance should be in [0, 1).");
+            this.rowCountTolerance = rowCountTolerance;
+            return this;
+        }
+
+        /**
+         * Sets the vector field whose index recall is verified. Defaults to the field of the first vector index.
+         */
+        public Builder vectorField(String vectorField) {
+            this.vectorField = vectorField;
+            return this;
+        }
+
+        /**
+         * Sets the number of vectors of the target table searched to verify recall. 0 disables the check.
+         */
+        public Builder recallSampleSize(int recallSampleSize) {
+            checkArgument(recallSampleSize >= 0, "recallSampleSize should not be negative.");
+            this.recallSampleSize = recallSampleSize;
+            return this;
+        }
+
+        public Builder recallLimit(int recallLimit) {
+            checkArgument(recallLimit > 0, "recallLimit should be positive.");
+            this.recallLimit = recallLimit;
+            return this;
+        }
+
+        public Builder minRecall(double minRecall) {
+            checkArgument(minRecall >= 0 && minRecall <= 1, "minRecall should be in [0, 1].");
+            this.minRecall = minRecall;
+            return this;
+        }
+
+        /**
+         * Sets the index search parameters whose recall is verified. Their limit should match the recall limit.
+         * Defaults to an ef of 64 for HNSW and a searchCoarseCount of 20 for PUCK.
+         */
+        public Builder recallSearchParams(SearchParams recallSearchParams) {
+            checkNotNull(recallSearchParams, "recallSearchParams should not be null.");
+            this.recallSearchParams = recallSearchParams;
+            return this;
+        }
+
+        public ReindexOrchestrator build() {
+            return new ReindexOrchestrator(this);
+        }
+    }
+}
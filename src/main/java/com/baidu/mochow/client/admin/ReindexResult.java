@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.admin;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The outcome of a {@link ReindexOrchestrator} run.
+ */
+@Getter
+@AllArgsConstructor
+public class ReindexResult {
+
+    private final String database;
+
+    private final String alias;
+
+    private final String sourceTable;
+
+    private final String targetTable;
+
+    /**
+     * The number of rows acknowledged by the server during the load.
+     */
+    private final long rowsLoaded;
+
+    /**
+     * The row count the new table was checked against: the row count of the source table, or the number of rows
+     * loaded when the rows were given.
+     */
+    private final long expectedRowCount;
+
+    private final long targetRowCount;
+
+    /**
+     * The average recall of the sampled searches on the new table, or -1 if recall was not verified.
+     */
+    private final double recall;
+
+    private final long loadTimeInMillis;
+
+    private final long buildTimeInMillis;
+
+    @Override
+    public String toString() {
+        return "ReindexResult{alias=" + this.database + '.' + this.alias + ", sourceTable=" + this.sourceTable
+                + ", targetTable=" + this.targetTable + ", rowsLoaded=" + this.rowsLoaded
+                + ", expectedRowCount=" + this.expectedRowCount + ", targetRowCount=" + this.targetRowCount
+                + ", recall=" + this.recall + ", loadTimeInMillis=" + this.loadTimeInMillis
+                + ", buildTimeInMillis=" + this.buildTimeInMillis + '}';
+    }
+}
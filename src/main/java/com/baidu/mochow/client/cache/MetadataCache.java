@@ -0,0 +1,265 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.entity.IndexField;
+import com.baidu.mochow.model.entity.Table;
+
+/**
+ * Caches the metadata fetched by the client: the database list, the table list of each database, table
+ * descriptions (fields, vector dimensions, primary keys) and index descriptions, so that existence checks and
+ * client-side features depending on the schema do not pay round trips per request.
+ * <p>
+ * Entries expire after a fixed TTL. Before that, an entry read after the refresh interval is still served, and
+ * reloaded in the background; a failed reload keeps the stale entry. DDL calls made through the owning client
+ * invalidate the affected entries, but changes made by other clients are only seen after a refresh or an explicit
+ * invalidation.
+ */
+public class MetadataCache {
+
+    /**
+     * The default time to live of a cached entry.
+     */
+    public static final long DEFAULT_TTL_IN_MILLIS = 60 * 1000;
+
+    /**
+     * The default age after which a cached entry is reloaded in the background when read.
+     */
+    public static final long DEFAULT_REFRESH_IN_MILLIS = 30 * 1000;
+
+    private static final int MAX_TABLES = 10000;
+
+    private static final String ALL_DATABASES = "";
+
+    private final LoadingCache<String, List<String>> databases;
+
+    private final LoadingCache<String, Set<String>> tableNames;
+
+    private final LoadingCache<TableKey, Table> tables;
+
+    private final LoadingCache<IndexKey, IndexField> indexes;
+
+    /**
+     * Constructs a new MetadataCache.
+     *
+     * @param client          the client loading the metadata.
+     * @param ttlInMillis     the time to live of an entry.
+     * @param refreshInMillis the age after which an entry is reloaded in the background when read, or 0 to only
+     *                        reload it once expired.
+     * @param refreshExecutor the executor running the background reloads.
+     */
+    public MetadataCache(final MochowClient client, long ttlInMillis, long refreshInMillis,
+                         Executor refreshExecutor) {
+        this.databases = newBuilder(1, ttlInMillis, refreshInMillis)
+                .build(reloadingIn(refreshExecutor, new CacheLoader<String, List<String>>() {
+                    @Override
+                    public List<String> load(String key) {
+                        List<String> names = client.listDatabase().getDatabases();
+                        return names == null ? Collections.<String>emptyList()
+                                : Collections.unmodifiableList(new ArrayList<String>(names));
+                    }
+                }));
+        this.tableNames = newBuilder(MAX_TABLES, ttlInMillis, refreshInMillis)
+                .build(reloadingIn(refreshExecutor, new CacheLoader<String, Set<String>>() {
+                    @Override
+                    public Set<String> load(String database) {
+                        List<String> names = client.listTable(database).getTables();
+                        return names == null ? Collections.<String>emptySet()
+                                : Collections.unmodifiableSet(new HashSet<String>(names));
+                    }
+                }));
+        this.tables = newBuilder(MAX_TABLES, ttlInMillis, refreshInMillis)
+                .build(reloadingIn(refreshExecutor, new CacheLoader<TableKey, Table>() {
+                    @Override
+                    public Table load(TableKey key) {
+                        return client.describeTable(key.getDatabase(), key.getTable()).getTable();
+                    }
+                }));
+        this.indexes = newBuilder(MAX_TABLES, ttlInMillis, refreshInMillis)
+                .build(reloadingIn(refreshExecutor, new CacheLoader<IndexKey, IndexField>() {
+                    @Override
+                    public IndexField load(IndexKey key) {
+                        return client.describeIndex(key.table.getDatabase(), key.table.getTable(), key.index)
+                                .getIndex();
+                    }
+                }));
+    }
+
+    /**
+     * Returns the names of the databases, loading them with listDatabase on a miss.
+     *
+     * @return the database names.
+     * @throws MochowClientException if the databases cannot be listed.
+     */
+    public List<String> getDatabases() throws MochowClientException {
+        return get(this.databases, ALL_DATABASES);
+    }
+
+    /**
+     * Returns the names of the tables of a database, loading them with listTable on a miss.
+     *
+     * @param database the database name.
+     * @return the table names.
+     * @throws MochowClientException if the tables cannot be listed, e.g. the database does not exist.
+     */
+    public Set<String> getTableNames(String database) throws MochowClientException {
+        return get(this.tableNames, database);
+    }
+
+    /**
+     * Returns the description of the given table, loading it with describeTable on a miss.
+     *
+     * @param database the database name.
+     * @param table    the table name.
+     * @return the table description.
+     * @throws MochowClientException if the table cannot be described.
+     */
+    public Table getTable(String database, String table) throws MochowClientException {
+        return get(this.tables, new TableKey(database, table));
+    }
+
+    /**
+     * Returns the description of the given index, loading it with describeIndex on a miss. Its state may be as old
+     * as the refresh interval; call describeIndex to follow an index build.
+     *
+     * @param database the database name.
+     * @param table    the table name.
+     * @param index    the index name.
+     * @return the index description.
+     * @throws MochowClientException if the index cannot be described.
+     */
+    public IndexField getIndex(String database, String table, String index) throws MochowClientException {
+        return get(this.indexes, new IndexKey(new TableKey(database, table), index));
+    }
+
+    /**
+     * Drops the cached database list, and the cached entries of the tables of the given database.
+     *
+     * @param database the database name.
+     */
+    public void invalidateDatabase(String database) {
+        this.databases.invalidateAll();
+        this.tableNames.invalidate(database);
+        for (TableKey key : this.tables.asMap().keySet()) {
+            if (key.getDatabase().equals(database)) {
+                this.tables.invalidate(key);
+            }
+        }
+        for (IndexKey key : this.indexes.asMap().keySet()) {
+            if (key.table.getDatabase().equals(database)) {
+                this.indexes.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached description of the given table and of its indexes, and the table list of its database.
+     *
+     * @param database the database name.
+     * @param table    the table name.
+     */
+    public void invalidate(String database, String table) {
+        TableKey tableKey = new TableKey(database, table);
+        this.tableNames.invalidate(database);
+        this.tables.invalidate(tableKey);
+        for (IndexKey key : this.indexes.asMap().keySet()) {
+            if (key.table.equals(tableKey)) {
+                this.indexes.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Drops all cached metadata.
+     */
+    public void invalidateAll() {
+        this.databases.invalidateAll();
+        this.tableNames.invalidateAll();
+        this.tables.invalidateAll();
+        this.indexes.invalidateAll();
+    }
+
+    private static CacheBuilder<Object, Object> newBuilder(int maximumSize, long ttlInMillis, long refreshInMillis) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlInMillis, TimeUnit.MILLISECONDS);
+        if (refreshInMillis > 0 && refreshInMillis < ttlInMillis) {
+            builder.refreshAfterWrite(refreshInMillis, TimeUnit.MILLISECONDS);
+        }
+        return builder;
+    }
+
+    private static <K, V> CacheLoader<K, V> reloadingIn(Executor executor, CacheLoader<K, V> loader) {
+        return CacheLoader.asyncReloading(loader, executor);
+    }
+
+    private static <K, V> V get(LoadingCache<K, V> cache, K key) throws MochowClientException {
+        try {
+            return cache.get(key);
+        } catch (UncheckedExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static MochowClientException unwrap(Throwable cause) {
+        if (cause instanceof MochowClientException) {
+            return (MochowClientException) cause;
+        }
+        return new MochowClientException("Fail to load metadata", cause);
+    }
+
+    private static final class IndexKey {
+        private final TableKey table;
+        private final String index;
+
+        private IndexKey(TableKey table, String index) {
+            this.table = table;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IndexKey)) {
+                return false;
+            }
+            IndexKey other = (IndexKey) o;
+            return this.table.equals(other.table) && this.index.equals(other.index);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.table.hashCode() + this.index.hashCode();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.MochowServiceException;
+import com.baidu.mochow.model.QueryRequest;
+import com.baidu.mochow.model.QueryResponse;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.enums.ReadConsistency;
+import com.baidu.mochow.model.enums.ServerErrorCode;
+import com.baidu.mochow.util.JsonUtils;
+import com.baidu.mochow.util.RowSizeEstimator;
+
+/**
+ * Caches rows read with query, keyed by table and primary key.
+ * <p>
+ * Each primary key holds one entry per distinct projection (projected fields and whether the vector is retrieved),
+ * so a narrow projection never serves a wider request. ROW_KEY_NOT_FOUND errors are cached too, for a shorter TTL.
+ * TTLs may differ per table. Entries are bounded by their estimated size and evicted least recently used first.
+ * Rows are kept on the heap, or serialized in direct buffers when configured off-heap.
+ * <p>
+ * Writes through the owning client invalidate the written primary keys, or the whole table when the written keys
+ * are unknown, e.g. for a delete by filter. A row read concurrently with a write to the same key is not cached.
+ * Requests with strong read consistency bypass the cache.
+ */
+public class QueryCache {
+
+    private static final int STRIPES = 4096;
+
+    private static final String NOT_FOUND_MESSAGE = "Row key not found (cached by client)";
+
+    private final QueryCacheOptions options;
+
+    private final Cache<RowKey, Map<ProjectionKey, Entry>> rows;
+
+    /**
+     * Bumped before invalidating the rows hashed to a stripe, so that a read racing with a write does not cache a
+     * row older than the write.
+     */
+    private final AtomicLongArray stripeGenerations = new AtomicLongArray(STRIPES);
+
+    private final ConcurrentMap<TableKey, AtomicLong> tableGenerations = new ConcurrentHashMap<TableKey, AtomicLong>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong negativeHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong bypassCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public QueryCache(QueryCacheOptions options) {
+        this.options = options;
+        long maxTtlInMillis = Math.max(options.getTtlInMillis(), options.getNegativeTtlInMillis());
+        for (Long ttl : options.getTableTtlsInMillis().values()) {
+            maxTtlInMillis = Math.max(maxTtlInMillis, ttl);
+        }
+        this.rows = CacheBuilder.newBuilder()
+                .maximumWeight(options.getMaxSizeInBytes())
+                .weigher(new Weigher<RowKey, Map<ProjectionKey, Entry>>() {
+                    @Override
+                    public int weigh(RowKey key, Map<ProjectionKey, Entry> entries) {
+                        long weight = 64;
+                        for (Entry entry : entries.values()) {
+                            weight += entry.weight;
+                        }
+                        return (int) Math.min(Integer.MAX_VALUE, weight);
+                    }
+                })
+                .expireAfterWrite(maxTtlInMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached response of a query request, or loads and caches it.
+     *
+     * @param request the query request.
+     * @param loader  sends the request to the server.
+     * @return the response.
+     * @throws MochowClientException if the response is not cached and the loader fails, or a ROW_KEY_NOT_FOUND
+     *                               error is cached for the key.
+     */
+    public QueryResponse query(QueryRequest request, Supplier<QueryResponse> loader) throws MochowClientException {
+        if (request.getReadConsistency() == ReadConsistency.STRONG || request.getPrimaryKey() == null) {
+            this.bypassCount.incrementAndGet();
+            return loader.get();
+        }
+        TableKey tableKey = new TableKey(request.getDatabase(), request.getTable());
+        RowKey rowKey = new RowKey(tableKey, canonicalKey(request.getPrimaryKey().getItems()));
+        ProjectionKey projectionKey = new ProjectionKey(request.getProjections(),
+                Boolean.TRUE.equals(request.getRetrieveVector()));
+
+        Map<ProjectionKey, Entry> entries = this.rows.getIfPresent(rowKey);
+        Entry entry = entries != null ? entries.get(projectionKey) : null;
+        if (entry != null && entry.expireAtMillis > System.currentTimeMillis()) {
+            if (entry.notFound) {
+                this.negativeHitCount.incrementAndGet();
+                MochowServiceException e = new MochowServiceException(NOT_FOUND_MESSAGE);
+                e.setErrorCode(ServerErrorCode.ROW_KEY_NOT_FOUND.getValue());
+                e.setErrorType(MochowServiceException.ErrorType.Client);
+                e.setStatusCode(entry.statusCode);
+                throw e;
+            }
+            this.hitCount.incrementAndGet();
+            QueryResponse response = new QueryResponse();
+            response.setRow(this.decode(entry));
+            return response;
+        }
+        this.missCount.incrementAndGet();
+
+        int stripe = stripeOf(rowKey);
+        long stripeGeneration = this.stripeGenerations.get(stripe);
+        long tableGeneration = this.tableGeneration(tableKey).get();
+        long ttlInMillis = this.options.getTtlInMillis(request.getDatabase(), request.getTable());
+        QueryResponse response;
+        try {
+            response = loader.get();
+        } catch (MochowServiceException e) {
+            if (e.getErrorCode() == ServerErrorCode.ROW_KEY_NOT_FOUND.getValue()
+                    && this.options.getNegativeTtlInMillis() > 0) {
+                this.put(rowKey, projectionKey, new Entry(null, null, true, e.getStatusCode(), 64,
+                        System.currentTimeMillis() + this.options.getNegativeTtlInMillis()),
+                        stripe, stripeGeneration, tableGeneration);
+            }
+            throw e;
+        }
+        if (response != null && response.getRow() != null) {
+            this.put(rowKey, projectionKey, this.encode(response.getRow(), System.currentTimeMillis() + ttlInMillis),
+                    stripe, stripeGeneration, tableGeneration);
+        }
+        return response;
+    }
+
+    /**
+     * Invalidates the cached rows of the given primary keys.
+     *
+     * @param database    the database name.
+     * @param table       the table name.
+     * @param primaryKeys the primary keys, each mapping primary key field names to values.
+     */
+    public void invalidateRows(String database, String table, List<Map<String, Object>> primaryKeys) {
+        TableKey tableKey = new TableKey(database, table);
+        for (Map<String, Object> primaryKey : primaryKeys) {
+            RowKey rowKey = new RowKey(tableKey, canonicalKey(primaryKey));
+            this.stripeGenerations.incrementAndGet(stripeOf(rowKey));
+            this.rows.invalidate(rowKey);
+        }
+        this.invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * Invalidates all cached rows of a table.
+     *
+     * @param database the database name.
+     * @param table    the table name.
+     */
+    public void invalidate(String database, String table) {
+        TableKey tableKey = new TableKey(database, table);
+        this.tableGeneration(tableKey).incrementAndGet();
+        for (RowKey rowKey : new ArrayList<RowKey>(this.rows.asMap().keySet())) {
+            if (rowKey.table.equals(tableKey)) {
+                this.rows.invalidate(rowKey);
+            }
+        }
+        this.invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * Drops all cached rows.
+     */
+    public void invalidateAll() {
+        this.rows.invalidateAll();
+    }
+
+    public QueryCacheStats getStats() {
+        return new QueryCacheStats(this.hitCount.get(), this.negativeHitCount.get(), this.missCount.get(),
+                this.bypassCount.get(), this.rows.stats().evictionCount(), this.invalidationCount.get(),
+                this.rows.size());
+    }
+
+    private void put(RowKey rowKey, final ProjectionKey projectionKey, final Entry entry, final int stripe,
+                     final long stripeGeneration, final long tableGeneration) {
+        final AtomicLong currentTableGeneration = this.tableGeneration(rowKey.table);
+        // checked inside compute: an invalidation either happens later and drops the entry, or is seen here
+        this.rows.asMap().compute(rowKey,
+                new BiFunction<RowKey, Map<ProjectionKey, Entry>, Map<ProjectionKey, Entry>>() {
+                    @Override
+                    public Map<ProjectionKey, Entry> apply(RowKey key, Map<ProjectionKey, Entry> entries) {
+                        if (stripeGenerations.get(stripe) != stripeGeneration
+                                || currentTableGeneration.get() != tableGeneration) {
+                            return entries;
+                        }
+                        Map<ProjectionKey, Entry> updated = entries == null
+                                ? new HashMap<ProjectionKey, Entry>() : new HashMap<ProjectionKey, Entry>(entries);
+                        updated.put(projectionKey, entry);
+                        return Collections.unmodifiableMap(updated);
+                    }
+                });
+    }
+
+    private Entry encode(Row row, long expireAtMillis) {
+        if (this.options.isOffHeap()) {
+            byte[] bytes = JsonUtils.toJsonString(row).getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes);
+            buffer.flip();
+            return new Entry(null, buffer.asReadOnlyBuffer(), false, 0, 64 + bytes.length, expireAtMillis);
+        }
+        Row copy = new Row(new HashMap<String, Object>(row.getFields()));
+        return new Entry(copy, null, false, 0, RowSizeEstimator.estimate(copy), expireAtMillis);
+    }
+
+    private Row decode(Entry entry) {
+        if (entry.serializedRow != null) {
+            ByteBuffer buffer = entry.serializedRow.duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            try {
+                return JsonUtils.getObjectMapper().readValue(bytes, Row.class);
+            } catch (IOException e) {
+                throw new MochowClientException("Fail to decode cached row", e);
+            }
+        }
+        return new Row(new HashMap<String, Object>(entry.row.getFields()));
+    }
+
+    private AtomicLong tableGeneration(TableKey tableKey) {
+        AtomicLong generation = this.tableGenerations.get(tableKey);
+        if (generation == null) {
+            AtomicLong created = new AtomicLong();
+            generation = this.tableGenerations.putIfAbsent(tableKey, created);
+            if (generation == null) {
+                generation = created;
+            }
+        }
+        return generation;
+    }
+
+    private static int stripeOf(RowKey rowKey) {
+        int hash = rowKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Returns a primary key in a form independent of the field order and of the boxed number types.
+     */
+    private static SortedMap<String, Object> canonicalKey(Map<String, Object> primaryKey) {
+        SortedMap<String, Object> key = new TreeMap<String, Object>();
+        for (Map.Entry<String, Object> field : primaryKey.entrySet()) {
+            Object value = field.getValue();
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                value = ((Number) value).longValue();
+            } else if (value instanceof Float) {
+                value = ((Float) value).doubleValue();
+            }
+            key.put(field.getKey(), value);
+        }
+        return key;
+    }
+
+    private static final class RowKey {
+        private final TableKey table;
+        private final SortedMap<String, Object> primaryKey;
+
+        private RowKey(TableKey table, SortedMap<String, Object> primaryKey) {
+            this.table = table;
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RowKey)) {
+                return false;
+            }
+            RowKey other = (RowKey) o;
+            return this.table.equals(other.table) && this.primaryKey.equals(other.primaryKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.table.hashCode() + this.primaryKey.hashCode();
+        }
+    }
+
+    private static final class ProjectionKey {
+        private final List<String> projections;
+        private final boolean retrieveVector;
+
+        private ProjectionKey(List<String> projections, boolean retrieveVector) {
+            List<String> sorted = projections != null ? new ArrayList<String>(projections) : new ArrayList<String>();
+            Collections.sort(sorted);
+            this.projections = sorted;
+            this.retrieveVector = retrieveVector;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProjectionKey)) {
+                return false;
+            }
+            ProjectionKey other = (ProjectionKey) o;
+            return this.retrieveVector == other.retrieveVector && this.projections.equals(other.projections);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.projections.hashCode() + (this.retrieveVector ? 1 : 0);
+        }
+    }
+
+    private static final class Entry {
+        private final Row row;
+        private final ByteBuffer serializedRow;
+        /**
+         * Whether the entry caches a ROW_KEY_NOT_FOUND error, returned with the HTTP status code.
+         */
+        private final boolean notFound;
+        private final int statusCode;
+        private final long weight;
+        private final long expireAtMillis;
+
+        private Entry(Row row, ByteBuffer serializedRow, boolean notFound, int statusCode, long weight,
+                      long expireAtMillis) {
+            this.row = row;
+            this.serializedRow = serializedRow;
+            this.notFound = notFound;
+            this.statusCode = statusCode;
+            this.weight = weight;
+            this.expireAtMillis = expireAtMillis;
+        }
+    }
+}
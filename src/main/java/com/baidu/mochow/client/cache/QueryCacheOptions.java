@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the client-side cache of rows read with query.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withQueryCacheOptions(QueryCacheOptions)
+ */
+@Getter
+@Setter
+public class QueryCacheOptions {
+
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 64L * 1024 * 1024;
+
+    public static final long DEFAULT_TTL_IN_MILLIS = 30 * 1000;
+
+    public static final long DEFAULT_NEGATIVE_TTL_IN_MILLIS = 5 * 1000;
+
+    /**
+     * The maximum estimated size of the cached rows. Least recently used rows are evicted first.
+     */
+    private long maxSizeInBytes = DEFAULT_MAX_SIZE_IN_BYTES;
+
+    /**
+     * How long a row is served from the cache after it was read, for tables without a specific TTL.
+     */
+    private long ttlInMillis = DEFAULT_TTL_IN_MILLIS;
+
+    /**
+     * How long a ROW_KEY_NOT_FOUND error is served from the cache. Missing keys are not cached if 0.
+     */
+    private long negativeTtlInMillis = DEFAULT_NEGATIVE_TTL_IN_MILLIS;
+
+    /**
+     * Whether to keep the cached rows serialized in direct buffers outside the Java heap, which also makes each hit
+     * return a private copy of the row.
+     */
+    private boolean offHeap = false;
+
+    /**
+     * TTLs of specific tables, keyed by "database.table".
+     */
+    private Map<String, Long> tableTtlsInMillis = new HashMap<String, Long>();
+
+    public void setMaxSizeInBytes(long maxSizeInBytes) {
+        checkArgument(maxSizeInBytes > 0, "maxSizeInBytes should be positive.");
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    public void setTtlInMillis(long ttlInMillis) {
+        checkArgument(ttlInMillis > 0, "ttlInMillis should be positive.");
+        this.ttlInMillis = ttlInMillis;
+    }
+
+    public void setNegativeTtlInMillis(long negativeTtlInMillis) {
+        checkArgument(negativeTtlInMillis >= 0, "negativeTtlInMillis should not be negative.");
+        this.negativeTtlInMillis = negativeTtlInMillis;
+    }
+
+    /**
+     * Returns the TTL of the rows of a table.
+     */
+    public long getTtlInMillis(String database, String table) {
+        Long ttl = this.tableTtlsInMillis.get(database + "." + table);
+        return ttl != null ? ttl : this.ttlInMillis;
+    }
+
+    public QueryCacheOptions withMaxSizeInBytes(long maxSizeInBytes) {
+        this.setMaxSizeInBytes(maxSizeInBytes);
+        return this;
+    }
+
+    public QueryCacheOptions withTtlInMillis(long ttlInMillis) {
+        this.setTtlInMillis(ttlInMillis);
+        return this;
+    }
+
+    /**
+     * Sets the TTL of the rows of a table, overriding the default TTL.
+     */
+    public QueryCacheOptions withTableTtlInMillis(String database, String table, long ttlInMillis) {
+        checkArgument(ttlInMillis > 0, "ttlInMillis should be positive.");
+        this.tableTtlsInMillis.put(database + "." + table, ttlInMillis);
+        return this;
+    }
+
+    public QueryCacheOptions withNegativeTtlInMillis(long negativeTtlInMillis) {
+        this.setNegativeTtlInMillis(negativeTtlInMillis);
+        return this;
+    }
+
+    public QueryCacheOptions withOffHeap(boolean offHeap) {
+        this.setOffHeap(offHeap);
+        return this;
+    }
+}
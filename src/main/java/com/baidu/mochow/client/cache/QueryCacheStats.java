@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the counters of a {@link QueryCache}.
+ */
+@Getter
+@AllArgsConstructor
+public class QueryCacheStats {
+
+    private final long hitCount;
+
+    /**
+     * The number of hits answered with a cached ROW_KEY_NOT_FOUND error.
+     */
+    private final long negativeHitCount;
+
+    private final long missCount;
+
+    /**
+     * The number of requests not looked up in the cache, e.g. with strong read consistency.
+     */
+    private final long bypassCount;
+
+    /**
+     * The number of cached rows evicted for size or expired.
+     */
+    private final long evictionCount;
+
+    /**
+     * The number of writes that invalidated cached rows.
+     */
+    private final long invalidationCount;
+
+    /**
+     * The number of primary keys with cached entries.
+     */
+    private final long keyCount;
+
+    /**
+     * Returns the ratio of hits, including negative hits, among looked up requests, or 0 if there was no lookup.
+     */
+    public double getHitRate() {
+        long lookups = this.hitCount + this.negativeHitCount + this.missCount;
+        return lookups == 0 ? 0 : (double) (this.hitCount + this.negativeHitCount) / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCacheStats{hitCount=" + this.hitCount + ", negativeHitCount=" + this.negativeHitCount
+                + ", missCount=" + this.missCount + ", bypassCount=" + this.bypassCount
+                + ", evictionCount=" + this.evictionCount + ", invalidationCount=" + this.invalidationCount
+                + ", keyCount=" + this.keyCount + ", hitRate=" + this.getHitRate() + '}';
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.baidu.mochow.model.AbstractMochowResponse;
+import com.baidu.mochow.model.BatchSearchResponse;
+import com.baidu.mochow.model.QueryResponse;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.SearchResultRow;
+
+/**
+ * Copies of read responses, handed to callers sharing one response: rows and their field maps are copied, field
+ * values such as vectors are shared, and the response metadata is copied.
+ */
+class ResponseCopies {
+
+    private ResponseCopies() {
+    }
+
+    static QueryResponse copy(QueryResponse response) {
+        QueryResponse copy = new QueryResponse();
+        copyMetadata(response, copy);
+        copy.setRow(copy(response.getRow()));
+        return copy;
+    }
+
+    static SearchResponse copy(SearchResponse response) {
+        SearchResponse copy = new SearchResponse();
+        copyMetadata(response, copy);
+        if (response.getSearchVectorFloats() != null) {
+            copy.setSearchVectorFloats(new ArrayList<Float>(response.getSearchVectorFloats()));
+        }
+        if (response.getRows() != null) {
+            List<SearchResultRow> rows = new ArrayList<SearchResultRow>(response.getRows().size());
+            for (SearchResultRow row : response.getRows()) {
+                SearchResultRow rowCopy = new SearchResultRow();
+                rowCopy.setRow(copy(row.getRow()));
+                rowCopy.setDistance(row.getDistance());
+                rows.add(rowCopy);
+            }
+            copy.setRows(rows);
+        }
+        return copy;
+    }
+
+    static BatchSearchResponse copy(BatchSearchResponse response) {
+        if (response.getResults() == null) {
+            return response;
+        }
+        BatchSearchResponse copy = new BatchSearchResponse();
+        copyMetadata(response, copy);
+        List<SearchResponse> results = new ArrayList<SearchResponse>(response.getResults().size());
+        for (SearchResponse result : response.getResults()) {
+            results.add(copy(result));
+        }
+        copy.setResults(results);
+        return copy;
+    }
+
+    private static void copyMetadata(AbstractMochowResponse response, AbstractMochowResponse copy) {
+        copy.getMetadata().setRequestID(response.getMetadata().getRequestID());
+        copy.getMetadata().setContentLength(response.getMetadata().getContentLength());
+        copy.getMetadata().setContentType(response.getMetadata().getContentType());
+    }
+
+    private static Row copy(Row row) {
+        if (row == null || row.getFields() == null) {
+            return row;
+        }
+        return new Row(new HashMap<String, Object>(row.getFields()));
+    }
+}
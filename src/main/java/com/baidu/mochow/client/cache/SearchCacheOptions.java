@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the client-side cache of search and batchSearch results.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withSearchCacheOptions(SearchCacheOptions)
+ */
+@Getter
+@Setter
+public class SearchCacheOptions {
+
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 32L * 1024 * 1024;
+
+    public static final long DEFAULT_TTL_IN_MILLIS = 5 * 1000;
+
+    /**
+     * The maximum estimated heap size of the cached results. Least recently used results are evicted first.
+     */
+    private long maxSizeInBytes = DEFAULT_MAX_SIZE_IN_BYTES;
+
+    /**
+     * How long a result is served from the cache after it was fetched. This bounds the staleness of results when
+     * the table is written by other clients.
+     */
+    private long ttlInMillis = DEFAULT_TTL_IN_MILLIS;
+
+    public void setMaxSizeInBytes(long maxSizeInBytes) {
+        checkArgument(maxSizeInBytes > 0, "maxSizeInBytes should be positive.");
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    public void setTtlInMillis(long ttlInMillis) {
+        checkArgument(ttlInMillis > 0, "ttlInMillis should be positive.");
+        this.ttlInMillis = ttlInMillis;
+    }
+
+    public SearchCacheOptions withMaxSizeInBytes(long maxSizeInBytes) {
+        this.setMaxSizeInBytes(maxSizeInBytes);
+        return this;
+    }
+
+    public SearchCacheOptions withTtlInMillis(long ttlInMillis) {
+        this.setTtlInMillis(ttlInMillis);
+        return this;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the counters of a client-side result cache.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchCacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    /**
+     * The number of requests not looked up in the cache, e.g. with strong read consistency.
+     */
+    private final long bypassCount;
+
+    /**
+     * The number of results evicted for size or expired.
+     */
+    private final long evictionCount;
+
+    /**
+     * The number of writes that invalidated the cached results of a table.
+     */
+    private final long invalidationCount;
+
+    private final long entryCount;
+
+    /**
+     * Returns the ratio of hits among looked up requests, or 0 if there was no lookup.
+     */
+    public double getHitRate() {
+        long lookups = this.hitCount + this.missCount;
+        return lookups == 0 ? 0 : (double) this.hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCacheStats{hitCount=" + this.hitCount + ", missCount=" + this.missCount
+                + ", bypassCount=" + this.bypassCount + ", evictionCount=" + this.evictionCount
+                + ", invalidationCount=" + this.invalidationCount + ", entryCount=" + this.entryCount
+                + ", hitRate=" + this.getHitRate() + '}';
+    }
+}
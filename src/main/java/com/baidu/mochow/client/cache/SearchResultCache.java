@@ -0,0 +1,235 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.BatchSearchRequest;
+import com.baidu.mochow.model.BatchSearchResponse;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.entity.SearchResultRow;
+import com.baidu.mochow.model.enums.ReadConsistency;
+import com.baidu.mochow.util.JsonUtils;
+import com.baidu.mochow.util.RowSizeEstimator;
+
+/**
+ * Caches the responses of search and batchSearch requests.
+ * <p>
+ * Responses are keyed by the table and a 128-bit hash of the serialized request, which covers the vector field,
+ * the search vector, the search parameters, the filter, the projections and the partition key. Entries are bounded
+ * by their estimated heap size, evicted least recently used first, and expire after a TTL.
+ * <p>
+ * Each table has a write generation, part of the key, which is bumped when the owning client writes to the table,
+ * so results computed before the write are never served after it. Requests with strong read consistency bypass the
+ * cache.
+ * <p>
+ * Each caller gets its own copy of a cached response: rows and their field maps are copied, field values such as
+ * vectors are shared and must not be modified.
+ */
+public class SearchResultCache {
+
+    private static final String SEARCH = "search";
+    private static final String BATCH_SEARCH = "batchSearch";
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final Cache<CacheKey, Object> results;
+
+    private final ConcurrentMap<TableKey, AtomicLong> writeGenerations = new ConcurrentHashMap<TableKey, AtomicLong>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong bypassCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public SearchResultCache(SearchCacheOptions options) {
+        this.results = CacheBuilder.newBuilder()
+                .maximumWeight(options.getMaxSizeInBytes())
+                .weigher(new Weigher<CacheKey, Object>() {
+                    @Override
+                    public int weigh(CacheKey key, Object value) {
+                        return (int) Math.min(Integer.MAX_VALUE, estimate(value));
+                    }
+                })
+                .expireAfterWrite(options.getTtlInMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached response of a search request, or loads and caches it.
+     *
+     * @param request the search request.
+     * @param loader  sends the request to the server.
+     * @return the response.
+     * @throws MochowClientException if the response is not cached and the loader fails.
+     */
+    public SearchResponse search(SearchRequest request, Supplier<SearchResponse> loader) throws MochowClientException {
+        return this.get(SEARCH, request.getDatabase(), request.getTable(), request, request.getReadConsistency(),
+                SearchResponse.class, loader);
+    }
+
+    /**
+     * Returns the cached response of a batchSearch request, or loads and caches it.
+     *
+     * @param request the batchSearch request.
+     * @param loader  sends the request to the server.
+     * @return the response.
+     * @throws MochowClientException if the response is not cached and the loader fails.
+     */
+    public BatchSearchResponse batchSearch(BatchSearchRequest request, Supplier<BatchSearchResponse> loader)
+            throws MochowClientException {
+        return this.get(BATCH_SEARCH, request.getDatabase(), request.getTable(), request,
+                request.getReadConsistency(), BatchSearchResponse.class, loader);
+    }
+
+    /**
+     * Invalidates the cached results of a table, e.g. after a write to it.
+     *
+     * @param database the database name.
+     * @param table    the table name.
+     */
+    public void invalidate(String database, String table) {
+        TableKey tableKey = new TableKey(database, table);
+        AtomicLong generation = this.writeGenerations.get(tableKey);
+        if (generation == null) {
+            AtomicLong created = new AtomicLong();
+            generation = this.writeGenerations.putIfAbsent(tableKey, created);
+            if (generation == null) {
+                generation = created;
+            }
+        }
+        generation.incrementAndGet();
+        this.invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * Drops all cached results.
+     */
+    public void invalidateAll() {
+        this.results.invalidateAll();
+    }
+
+    public SearchCacheStats getStats() {
+        return new SearchCacheStats(this.hitCount.get(), this.missCount.get(), this.bypassCount.get(),
+                this.results.stats().evictionCount(), this.invalidationCount.get(), this.results.size());
+    }
+
+    private <T> T get(String operation, String database, String table, Object request,
+                      ReadConsistency readConsistency, Class<T> responseClass, Supplier<T> loader) {
+        if (readConsistency == ReadConsistency.STRONG) {
+            this.bypassCount.incrementAndGet();
+            return loader.get();
+        }
+        TableKey tableKey = new TableKey(database, table);
+        AtomicLong generation = this.writeGenerations.get(tableKey);
+        // the generation is read before the request is sent, so that a result racing with a write is not served
+        CacheKey key = new CacheKey(tableKey, generation != null ? generation.get() : 0,
+                HASH_FUNCTION.hashString(operation + JsonUtils.toJsonString(request), StandardCharsets.UTF_8));
+        Object cached = this.results.getIfPresent(key);
+        if (cached != null) {
+            this.hitCount.incrementAndGet();
+            return responseClass.cast(copy(cached));
+        }
+        this.missCount.incrementAndGet();
+        T response = loader.get();
+        if (response != null) {
+            // the caller may modify its response, the cache keeps a copy of its own
+            this.results.put(key, copy(response));
+        }
+        return response;
+    }
+
+    private static Object copy(Object response) {
+        if (response instanceof SearchResponse) {
+            return ResponseCopies.copy((SearchResponse) response);
+        }
+        if (response instanceof BatchSearchResponse) {
+            return ResponseCopies.copy((BatchSearchResponse) response);
+        }
+        return response;
+    }
+
+    private static long estimate(Object response) {
+        if (response instanceof SearchResponse) {
+            SearchResponse searchResponse = (SearchResponse) response;
+            long size = 64;
+            if (searchResponse.getSearchVectorFloats() != null) {
+                size += 20L * searchResponse.getSearchVectorFloats().size();
+            }
+            List<SearchResultRow> rows = searchResponse.getRows();
+            if (rows != null) {
+                for (SearchResultRow row : rows) {
+                    size += 32 + RowSizeEstimator.estimate(row.getRow());
+                }
+            }
+            return size;
+        }
+        if (response instanceof BatchSearchResponse) {
+            long size = 64;
+            List<SearchResponse> results = ((BatchSearchResponse) response).getResults();
+            if (results != null) {
+                for (SearchResponse result : results) {
+                    size += estimate(result);
+                }
+            }
+            return size;
+        }
+        return 64;
+    }
+
+    private static final class CacheKey {
+        private final TableKey table;
+        private final long generation;
+        private final HashCode requestHash;
+
+        private CacheKey(TableKey table, long generation, HashCode requestHash) {
+            this.table = table;
+            this.generation = generation;
+            this.requestHash = requestHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return this.generation == other.generation && this.table.equals(other.table)
+                    && this.requestHash.equals(other.requestHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.requestHash.hashCode();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Supplier;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.MochowServiceException;
+import com.baidu.mochow.model.BatchSearchRequest;
+import com.baidu.mochow.model.BatchSearchResponse;
+import com.baidu.mochow.model.QueryRequest;
+import com.baidu.mochow.model.QueryResponse;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.util.JsonUtils;
+
+/**
+ * Collapses concurrent identical read requests into one call.
+ * <p>
+ * A request whose serialized form equals the one of a request already in flight waits for that request instead of
+ * sending its own, and gets a copy of its response: rows and their field maps are copied, field values such as
+ * vectors are shared, and the response metadata is copied. A failure of the shared call is thrown to each waiting
+ * caller as its own exception: a copy of a {@link MochowServiceException}, or a {@link MochowClientException}
+ * caused by the shared failure otherwise.
+ */
+public class SingleFlight {
+
+    private final Set<ReadOperation> operations;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight =
+            new ConcurrentHashMap<String, CompletableFuture<Object>>();
+
+    private final Map<ReadOperation, AtomicLong> callCounts =
+            new EnumMap<ReadOperation, AtomicLong>(ReadOperation.class);
+    private final Map<ReadOperation, AtomicLong> collapsedCounts =
+            new EnumMap<ReadOperation, AtomicLong>(ReadOperation.class);
+
+    /**
+     * @param operations the operations to collapse; requests of other operations are sent as they are.
+     */
+    public SingleFlight(Set<ReadOperation> operations) {
+        this.operations = operations.isEmpty()
+                ? EnumSet.noneOf(ReadOperation.class) : EnumSet.copyOf(operations);
+        for (ReadOperation operation : ReadOperation.values()) {
+            this.callCounts.put(operation, new AtomicLong());
+            this.collapsedCounts.put(operation, new AtomicLong());
+        }
+    }
+
+    public boolean isEnabled(ReadOperation operation) {
+        return this.operations.contains(operation);
+    }
+
+    public QueryResponse query(QueryRequest request, Supplier<QueryResponse> loader) throws MochowClientException {
+        QueryResponse response = this.execute(ReadOperation.QUERY, request, loader);
+        return response == null ? null : ResponseCopies.copy(response);
+    }
+
+    public SearchResponse search(SearchRequest request, Supplier<SearchResponse> loader) throws MochowClientException {
+        SearchResponse response = this.execute(ReadOperation.SEARCH, request, loader);
+        return response == null ? null : ResponseCopies.copy(response);
+    }
+
+    public BatchSearchResponse batchSearch(BatchSearchRequest request, Supplier<BatchSearchResponse> loader)
+            throws MochowClientException {
+        BatchSearchResponse response = this.execute(ReadOperation.BATCH_SEARCH, request, loader);
+        return response == null ? null : ResponseCopies.copy(response);
+    }
+
+    /**
+     * Returns the number of calls sent to the server for an operation.
+     */
+    public long getCallCount(ReadOperation operation) {
+        return this.callCounts.get(operation).get();
+    }
+
+    /**
+     * Returns the number of requests of an operation answered by the call of an identical request.
+     */
+    public long getCollapsedCount(ReadOperation operation) {
+        return this.collapsedCounts.get(operation).get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T execute(ReadOperation operation, Object request, Supplier<T> loader) {
+        String key = operation.name() + ':' + JsonUtils.toJsonString(request);
+        CompletableFuture<Object> call = new CompletableFuture<Object>();
+        CompletableFuture<Object> existing = this.inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            this.collapsedCounts.get(operation).incrementAndGet();
+            return (T) await(existing);
+        }
+        this.callCounts.get(operation).incrementAndGet();
+        try {
+            T response = loader.get();
+            call.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, call);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> call) {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MochowClientException("Interrupted while waiting for an identical request", e);
+        } catch (ExecutionException e) {
+            throw failureOf(e.getCause());
+        }
+    }
+
+    /**
+     * Returns an exception of the waiting caller for the failure of a shared call, so that callers never share an
+     * exception instance, its stack trace or its suppressed exceptions.
+     */
+    private static RuntimeException failureOf(Throwable shared) {
+        if (shared instanceof MochowServiceException) {
+            MochowServiceException service = (MochowServiceException) shared;
+            MochowServiceException copy = new MochowServiceException(service.getErrorMessage(), service);
+            copy.setRequestId(service.getRequestId());
+            copy.setErrorCode(service.getErrorCode());
+            copy.setErrorType(service.getErrorType());
+            copy.setStatusCode(service.getStatusCode());
+            return copy;
+        }
+        return new MochowClientException("Identical request failed: " + shared.getMessage(), shared);
+    }
+}
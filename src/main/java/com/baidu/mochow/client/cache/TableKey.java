@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.cache;
+
+/**
+ * Identifies a table in client-side caches.
+ */
+final class TableKey {
+    private final String database;
+    private final String table;
+
+    TableKey(String database, String table) {
+        this.database = database;
+        this.table = table;
+    }
+
+    String getDatabase() {
+        return this.database;
+    }
+
+    String getTable() {
+        return this.table;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TableKey)) {
+            return false;
+        }
+        TableKey other = (TableKey) o;
+        return this.database.equals(other.database) && this.table.equals(other.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.database.hashCode() + this.table.hashCode();
+    }
+}
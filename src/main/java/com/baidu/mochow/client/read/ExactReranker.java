@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.entity.ANNSearchParams;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.SearchResultRow;
+import com.baidu.mochow.model.enums.MetricType;
+import com.baidu.mochow.util.VectorUtils;
+
+/**
+ * Re-ranks approximate search results with exact distances computed on the client.
+ * <p>
+ * An index searched with a small ef or searchCoarseCount is fast but misses some of the true nearest rows. Fetching
+ * more candidates than needed, with their vectors, and re-ranking them exactly restores most of the recall at a
+ * fraction of the cost of a wider index search. Distances are recomputed as the squared L2 distance for L2, the
+ * inner product for IP and the cosine similarity for COSINE.
+ */
+public class ExactReranker {
+
+    private final MochowClient client;
+
+    /**
+     * Use {@link MochowClient#searchAndRerank(SearchRequest, int)} instead.
+     *
+     * @param client the client sending the search requests.
+     */
+    public ExactReranker(MochowClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Searches the candidates of a request with their vectors, and returns the exact top-k among them.
+     *
+     * @param request the search request, whose limit is the number of candidates; it is not modified.
+     * @param k       the number of rows to return.
+     * @return the top-k rows with exact distances. Vectors are kept only if the request retrieves them.
+     * @throws MochowClientException if the search fails or the vector field has no vector index.
+     */
+    public SearchResponse search(SearchRequest request, int k) throws MochowClientException {
+        checkArgument(k > 0, "k should be positive.");
+        ANNSearchParams anns = request.getAnns();
+        checkArgument(anns != null && anns.getVectorFloats() != null, "request should have a search vector.");
+        MetricType metricType = VectorMetrics.metricTypeOf(this.client, request.getDatabase(), request.getTable(),
+                anns.getVectorField());
+        SearchRequest candidatesRequest = SearchRequest.builder()
+                .database(request.getDatabase())
+                .table(request.getTable())
+                .anns(anns)
+                .partitionKey(request.getPartitionKey())
+                .retrieveVector(true)
+                .projections(request.getProjections())
+                .readConsistency(request.getReadConsistency()).build();
+        candidatesRequest.setPriority(request.getPriority());
+        SearchResponse response = this.client.search(candidatesRequest);
+        return rerank(response, anns.getVectorField(), VectorUtils.toFloatArray(anns.getVectorFloats()), metricType,
+                k, request.isRetrieveVector());
+    }
+
+    /**
+     * Re-ranks search result rows by their exact distance to the search vector. Rows without a vector are ranked
+     * after the others, in their original order. The response is not modified.
+     *
+     * @param response      the search response, whose rows hold the vector field.
+     * @param vectorField   the name of the vector field.
+     * @param searchVector  the search vector.
+     * @param metricType    the metric of the distances.
+     * @param k             the maximum number of rows to return.
+     * @param retainVectors whether to keep the vector field in the returned rows.
+     * @return a new response with the top-k rows.
+     */
+    public static SearchResponse rerank(SearchResponse response, String vectorField, float[] searchVector,
+                                        MetricType metricType, int k, boolean retainVectors) {
+        List<SearchResultRow> rows = response.getRows() != null
+                ? response.getRows() : new ArrayList<SearchResultRow>();
+        Candidate[] candidates = new Candidate[rows.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            SearchResultRow row = rows.get(i);
+            float[] vector = row.getRow() != null && row.getRow().getFields() != null
+                    ? VectorUtils.toFloatArray(row.getRow().getFields().get(vectorField)) : null;
+            candidates[i] = vector == null || vector.length != searchVector.length
+                    ? new Candidate(row, i, 0, false)
+                    : new Candidate(row, i, distance(metricType, searchVector, vector), true);
+        }
+        final boolean ascending = VectorMetrics.isAscending(metricType);
+        Arrays.sort(candidates, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate c1, Candidate c2) {
+                if (c1.exact != c2.exact) {
+                    return c1.exact ? -1 : 1;
+                }
+                if (!c1.exact) {
+                    return Integer.compare(c1.position, c2.position);
+                }
+                return ascending ? Float.compare(c1.distance, c2.distance) : Float.compare(c2.distance, c1.distance);
+            }
+        });
+
+        List<SearchResultRow> reranked = new ArrayList<SearchResultRow>(Math.min(k, candidates.length));
+        for (int i = 0; i < candidates.length && i < k; i++) {
+            Candidate candidate = candidates[i];
+            SearchResultRow row = new SearchResultRow();
+            row.setRow(retainVectors ? candidate.row.getRow() : withoutField(candidate.row.getRow(), vectorField));
+            row.setDistance(candidate.exact ? candidate.distance : candidate.row.getDistance());
+            reranked.add(row);
+        }
+        SearchResponse result = new SearchResponse();
+        result.setSearchVectorFloats(response.getSearchVectorFloats());
+        result.setRows(reranked);
+        return result;
+    }
+
+    private static float distance(MetricType metricType, float[] a, float[] b) {
+        switch (metricType) {
+            case L2:
+                return VectorUtils.squaredL2Distance(a, b);
+            case IP:
+                return VectorUtils.dotProduct(a, b);
+            case COSINE:
+                return VectorUtils.cosineSimilarity(a, b);
+            default:
+                throw new MochowClientException("Unsupported metric type " + metricType);
+        }
+    }
+
+    private static Row withoutField(Row row, String field) {
+        if (row == null || row.getFields() == null || !row.getFields().containsKey(field)) {
+            return row;
+        }
+        Map<String, Object> fields = new HashMap<String, Object>(row.getFields());
+        fields.remove(field);
+        return new Row(fields);
+    }
+
+    private static final class Candidate {
+        private final SearchResultRow row;
+        private final int position;
+        private final float distance;
+        private final boolean exact;
+
+        private Candidate(SearchResultRow row, int position, float distance, boolean exact) {
+            this.row = row;
+            this.position = position;
+            this.distance = distance;
+            this.exact = exact;
+        }
+    }
+}
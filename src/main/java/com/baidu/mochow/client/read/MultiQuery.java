@@ -0,0 +1,221 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.client.write.RowKeyExtractor;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.MochowServiceException;
+import com.baidu.mochow.model.QueryRequest;
+import com.baidu.mochow.model.SelectRequest;
+import com.baidu.mochow.model.SelectResponse;
+import com.baidu.mochow.model.entity.GeneralParams;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.enums.ServerErrorCode;
+
+/**
+ * Reads rows by primary key with a bounded number of requests in flight, returning them in the order of the keys.
+ * <p>
+ * When the table has a single primary key field and all key values are numbers or strings, keys are read in batches
+ * with select requests filtering on the key. Otherwise, or with the filter path disabled, each key is read with a
+ * query request, which goes through the query cache and the single-flight layer of the client. A key which does not
+ * exist yields a null row rather than a ROW_KEY_NOT_FOUND error; other failures are reported per key.
+ */
+public class MultiQuery {
+
+    private final MochowClient client;
+    private final ExecutorService executor;
+
+    /**
+     * Use {@link MochowClient#multiQuery(String, String, List, List, MultiQueryOptions)} instead.
+     *
+     * @param client   the client sending the requests.
+     * @param executor the executor running the requests.
+     */
+    public MultiQuery(MochowClient client, ExecutorService executor) {
+        this.client = client;
+        this.executor = executor;
+    }
+
+    public MultiQueryResponse execute(final String database, final String table, final List<GeneralParams> keys,
+                                      final List<String> projections, MultiQueryOptions options)
+            throws MochowClientException {
+        checkNotNull(keys, "keys should not be null.");
+        final AtomicReferenceArray<Row> rows = new AtomicReferenceArray<Row>(keys.size());
+        final ConcurrentMap<Integer, MochowClientException> errors =
+                new ConcurrentHashMap<Integer, MochowClientException>();
+
+        final RowKeyExtractor primaryKey = RowKeyExtractor.primaryKeyOf(this.client.getTableSchema(database, table));
+        final int batchSize;
+        final int tasks;
+        if (options.isFilterBatchEnabled() && isScalarKey(primaryKey, keys)) {
+            batchSize = options.getFilterBatchSize();
+            tasks = (keys.size() + batchSize - 1) / batchSize;
+        } else {
+            batchSize = 0;
+            tasks = keys.size();
+        }
+
+        final AtomicInteger nextTask = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < Math.min(options.getParallelism(), tasks); i++) {
+            workers.add(this.executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int task = nextTask.getAndIncrement(); task < tasks; task = nextTask.getAndIncrement()) {
+                        if (batchSize > 0) {
+                            int from = task * batchSize;
+                            selectBatch(database, table, keys, from, Math.min(keys.size(), from + batchSize),
+                                    projections, primaryKey, rows, errors);
+                        } else {
+                            query(database, table, keys, task, projections, rows, errors);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                for (Future<?> remaining : workers) {
+                    remaining.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new MochowClientException("Interrupted while reading rows by primary key", e);
+            } catch (ExecutionException e) {
+                throw new MochowClientException("Multi query worker failed", e.getCause());
+            }
+        }
+
+        List<Row> result = new ArrayList<Row>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            result.add(rows.get(i));
+        }
+        return new MultiQueryResponse(result, new TreeMap<Integer, MochowClientException>(errors));
+    }
+
+    private void query(String database, String table, List<GeneralParams> keys, int index, List<String> projections,
+                       AtomicReferenceArray<Row> rows, ConcurrentMap<Integer, MochowClientException> errors) {
+        QueryRequest.Builder builder = QueryRequest.builder()
+                .database(database)
+                .table(table);
+        for (Map.Entry<String, Object> item : keys.get(index).getItems().entrySet()) {
+            builder.addPrimaryKey(item.getKey(), item.getValue());
+        }
+        if (projections != null) {
+            builder.projections(projections);
+        }
+        try {
+            rows.set(index, this.client.query(builder.build()).getRow());
+        } catch (MochowServiceException e) {
+            if (e.getErrorCode() != ServerErrorCode.ROW_KEY_NOT_FOUND.getValue()) {
+                errors.put(index, e);
+            }
+        } catch (MochowClientException e) {
+            errors.put(index, e);
+        }
+    }
+
+    private void selectBatch(String database, String table, List<GeneralParams> keys, int from, int to,
+                             List<String> projections, RowKeyExtractor primaryKey, AtomicReferenceArray<Row> rows,
+                             ConcurrentMap<Integer, MochowClientException> errors) {
+        String keyField = primaryKey.getFieldNames().get(0);
+        Map<Object, List<Integer>> indexes = new HashMap<Object, List<Integer>>();
+        StringBuilder filter = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            Object value = keys.get(i).get(keyField);
+            Object key = primaryKey.extract(new Row(keys.get(i).getItems()));
+            List<Integer> keyIndexes = indexes.get(key);
+            if (keyIndexes == null) {
+                keyIndexes = new ArrayList<Integer>();
+                indexes.put(key, keyIndexes);
+                if (filter.length() > 0) {
+                    filter.append(" OR ");
+                }
+                filter.append(keyField).append(" = ").append(literal(value));
+            }
+            keyIndexes.add(i);
+        }
+        List<String> selectProjections = projections;
+        boolean keyProjected = true;
+        if (projections != null && !projections.isEmpty() && !projections.contains(keyField)) {
+            selectProjections = new ArrayList<String>(projections);
+            selectProjections.add(keyField);
+            keyProjected = false;
+        }
+        try {
+            SelectResponse response = this.client.select(SelectRequest.builder()
+                    .database(database)
+                    .table(table)
+                    .filter(filter.toString())
+                    .limit(indexes.size())
+                    .projections(selectProjections).build());
+            if (response.getRows() == null) {
+                return;
+            }
+            for (Row row : response.getRows()) {
+                List<Integer> keyIndexes = indexes.get(primaryKey.extract(row));
+                if (keyIndexes == null) {
+                    continue;
+                }
+                if (!keyProjected && row.getFields() != null) {
+                    row.getFields().remove(keyField);
+                }
+                for (int index : keyIndexes) {
+                    rows.set(index, row);
+                }
+            }
+        } catch (MochowClientException e) {
+            for (int i = from; i < to; i++) {
+                errors.put(i, e);
+            }
+        }
+    }
+
+    private static boolean isScalarKey(RowKeyExtractor primaryKey, List<GeneralParams> keys) {
+        if (primaryKey.getFieldNames().size() != 1) {
+            return false;
+        }
+        String keyField = primaryKey.getFieldNames().get(0);
+        for (GeneralParams key : keys) {
+            Object value = key.get(keyField);
+            if (!(value instanceof Number || value instanceof String) || key.getItems().size() != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String literal(Object value) {
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        return '\'' + value.toString().replace("\\", "\\\\").replace("'", "\\'") + '\'';
+    }
+}
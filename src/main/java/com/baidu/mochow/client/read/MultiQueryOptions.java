@@ -0,0 +1,74 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of {@link MultiQuery}.
+ *
+ * @see com.baidu.mochow.client.MochowClient#multiQuery(String, String, java.util.List, java.util.List,
+ * MultiQueryOptions)
+ */
+@Getter
+@Setter
+public class MultiQueryOptions {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    public static final int DEFAULT_FILTER_BATCH_SIZE = 100;
+
+    /**
+     * The maximum number of requests in flight for one multiQuery call.
+     */
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Whether keys of a table with a single scalar primary key field are read with select requests filtering on
+     * the key, instead of one query request per key.
+     */
+    private boolean filterBatchEnabled = true;
+
+    /**
+     * The maximum number of keys of one select request of the filter path.
+     */
+    private int filterBatchSize = DEFAULT_FILTER_BATCH_SIZE;
+
+    public void setParallelism(int parallelism) {
+        checkArgument(parallelism > 0, "parallelism should be positive.");
+        this.parallelism = parallelism;
+    }
+
+    public void setFilterBatchSize(int filterBatchSize) {
+        checkArgument(filterBatchSize > 0, "filterBatchSize should be positive.");
+        this.filterBatchSize = filterBatchSize;
+    }
+
+    public MultiQueryOptions withParallelism(int parallelism) {
+        this.setParallelism(parallelism);
+        return this;
+    }
+
+    public MultiQueryOptions withFilterBatchEnabled(boolean filterBatchEnabled) {
+        this.setFilterBatchEnabled(filterBatchEnabled);
+        return this;
+    }
+
+    public MultiQueryOptions withFilterBatchSize(int filterBatchSize) {
+        this.setFilterBatchSize(filterBatchSize);
+        return this;
+    }
+}
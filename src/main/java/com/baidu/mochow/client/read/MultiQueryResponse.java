@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.entity.Row;
+
+/**
+ * The rows read by a multiQuery call.
+ */
+@Getter
+@AllArgsConstructor
+public class MultiQueryResponse {
+
+    /**
+     * The rows in the order of the keys, null for a key which does not exist or whose read failed.
+     */
+    private final List<Row> rows;
+
+    /**
+     * The read failures, by index of the key. Missing keys are not failures.
+     */
+    private final Map<Integer, MochowClientException> errors;
+
+    public boolean hasErrors() {
+        return !this.errors.isEmpty();
+    }
+}
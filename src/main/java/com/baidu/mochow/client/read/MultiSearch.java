@@ -0,0 +1,159 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.entity.ANNSearchParams;
+import com.baidu.mochow.model.entity.SearchResultRow;
+import com.baidu.mochow.model.enums.MetricType;
+
+/**
+ * Runs a {@link MultiSearchRequest}: searches all its tables in parallel and merges their rows by distance, in
+ * ascending order for L2 and descending order for IP and COSINE. Rows at equal distances keep the order of the
+ * tables in the request.
+ * <p>
+ * The search of a table that fails, or that has not completed at the deadline, is reported in the response
+ * instead of failing the whole request; searches still running at the deadline are cancelled. The request fails
+ * only if no table answered.
+ */
+public class MultiSearch {
+
+    private final MochowClient client;
+    private final ExecutorService executor;
+
+    /**
+     * Use {@link MochowClient#multiSearch(MultiSearchRequest)} instead.
+     *
+     * @param client   the client sending the search requests.
+     * @param executor the executor running the searches.
+     */
+    public MultiSearch(MochowClient client, ExecutorService executor) {
+        this.client = client;
+        this.executor = executor;
+    }
+
+    public MultiSearchResponse execute(MultiSearchRequest request) throws MochowClientException {
+        List<SearchTarget> targets = request.getTargets();
+        MetricType metricType = request.getMetricType() != null ? request.getMetricType()
+                : VectorMetrics.metricTypeOf(this.client, targets.get(0).getDatabase(), targets.get(0).getTable(),
+                        request.getRequest().getAnns().getVectorField());
+
+        List<Future<SearchResponse>> futures = new ArrayList<Future<SearchResponse>>(targets.size());
+        for (SearchTarget target : targets) {
+            final SearchRequest tableRequest = copyFor(request.getRequest(), target);
+            futures.add(this.executor.submit(new Callable<SearchResponse>() {
+                @Override
+                public SearchResponse call() {
+                    return client.search(tableRequest);
+                }
+            }));
+        }
+
+        long deadline = request.getTimeoutInMillis() > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(request.getTimeoutInMillis()) : 0;
+        List<MultiSearchResultRow> rows = new ArrayList<MultiSearchResultRow>();
+        Map<SearchTarget, RuntimeException> failures = new LinkedHashMap<SearchTarget, RuntimeException>();
+        List<SearchTarget> timedOut = new ArrayList<SearchTarget>();
+        for (int i = 0; i < targets.size(); i++) {
+            SearchTarget target = targets.get(i);
+            Future<SearchResponse> future = futures.get(i);
+            try {
+                SearchResponse response = deadline == 0 ? future.get()
+                        : future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (response != null && response.getRows() != null) {
+                    for (SearchResultRow row : response.getRows()) {
+                        rows.add(new MultiSearchResultRow(target, row.getRow(), row.getDistance()));
+                    }
+                }
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                timedOut.add(target);
+            } catch (ExecutionException e) {
+                failures.put(target, e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new MochowClientException("Search of " + target + " failed", e.getCause()));
+            } catch (InterruptedException e) {
+                for (Future<SearchResponse> remaining : futures) {
+                    remaining.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new MochowClientException("Interrupted while waiting for the table searches", e);
+            }
+        }
+        if (failures.size() + timedOut.size() == targets.size()) {
+            if (!failures.isEmpty()) {
+                throw failures.values().iterator().next();
+            }
+            throw new MochowClientException("No table answered the search within "
+                    + request.getTimeoutInMillis() + " ms");
+        }
+
+        Collections.sort(rows, comparatorOf(metricType));
+        int limit = request.getLimit() > 0 ? request.getLimit() : limitOf(request.getRequest());
+        if (limit > 0 && rows.size() > limit) {
+            rows = new ArrayList<MultiSearchResultRow>(rows.subList(0, limit));
+        }
+        return new MultiSearchResponse(rows, failures, timedOut);
+    }
+
+    private static SearchRequest copyFor(SearchRequest request, SearchTarget target) {
+        SearchRequest copy = SearchRequest.builder()
+                .database(target.getDatabase())
+                .table(target.getTable())
+                .anns(request.getAnns())
+                .partitionKey(request.getPartitionKey())
+                .retrieveVector(request.isRetrieveVector())
+                .projections(request.getProjections())
+                .readConsistency(request.getReadConsistency()).build();
+        copy.setPriority(request.getPriority());
+        return copy;
+    }
+
+    private static int limitOf(SearchRequest request) {
+        ANNSearchParams anns = request.getAnns();
+        return anns.getParams() != null ? anns.getParams().getLimit() : 0;
+    }
+
+    private static Comparator<MultiSearchResultRow> comparatorOf(MetricType metricType) {
+        if (VectorMetrics.isAscending(metricType)) {
+            return new Comparator<MultiSearchResultRow>() {
+                @Override
+                public int compare(MultiSearchResultRow r1, MultiSearchResultRow r2) {
+                    return Float.compare(r1.getDistance(), r2.getDistance());
+                }
+            };
+        }
+        return new Comparator<MultiSearchResultRow>() {
+            @Override
+            public int compare(MultiSearchResultRow r1, MultiSearchResultRow r2) {
+                return Float.compare(r2.getDistance(), r1.getDistance());
+            }
+        };
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Getter;
+
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.enums.MetricType;
+
+/**
+ * A search sent to several tables or aliases in parallel, whose results are merged into a global top-k.
+ */
+@Getter
+public class MultiSearchRequest {
+
+    /**
+     * The search sent to every table; its database and table are ignored.
+     */
+    private final SearchRequest request;
+
+    private final List<SearchTarget> targets;
+
+    /**
+     * The number of merged rows, or 0 to use the limit of the search parameters.
+     */
+    private final int limit;
+
+    /**
+     * The metric ordering the distances, or null to read it from the vector index of the first table.
+     */
+    private final MetricType metricType;
+
+    /**
+     * How long to wait for the tables before cancelling the remaining searches, or 0 to wait for all of them.
+     */
+    private final long timeoutInMillis;
+
+    private MultiSearchRequest(Builder builder) {
+        checkNotNull(builder.request, "request should not be null.");
+        checkNotNull(builder.request.getAnns(), "request should have anns.");
+        checkArgument(!builder.targets.isEmpty(), "at least one table should be searched.");
+        this.request = builder.request;
+        this.targets = Collections.unmodifiableList(new ArrayList<SearchTarget>(builder.targets));
+        this.limit = builder.limit;
+        this.metricType = builder.metricType;
+        this.timeoutInMillis = builder.timeoutInMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private SearchRequest request;
+        private List<SearchTarget> targets = new ArrayList<SearchTarget>();
+        private int limit = 0;
+        private MetricType metricType;
+        private long timeoutInMillis = 0;
+
+        public Builder request(SearchRequest request) {
+            this.request = request;
+            return this;
+        }
+
+        public Builder addTable(String database, String table) {
+            checkNotNull(database, "database should not be null.");
+            checkNotNull(table, "table should not be null.");
+            this.targets.add(new SearchTarget(database, table));
+            return this;
+        }
+
+        public Builder addTables(String database, List<String> tables) {
+            for (String table : tables) {
+                this.addTable(database, table);
+            }
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            checkArgument(limit >= 0, "limit should not be negative.");
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder metricType(MetricType metricType) {
+            this.metricType = metricType;
+            return this;
+        }
+
+        public Builder timeoutInMillis(long timeoutInMillis) {
+            checkArgument(timeoutInMillis >= 0, "timeoutInMillis should not be negative.");
+            this.timeoutInMillis = timeoutInMillis;
+            return this;
+        }
+
+        public MultiSearchRequest build() {
+            return new MultiSearchRequest(this);
+        }
+    }
+}
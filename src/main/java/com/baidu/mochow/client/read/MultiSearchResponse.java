@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The merged result of a multi-table search.
+ */
+@Getter
+@AllArgsConstructor
+public class MultiSearchResponse {
+
+    /**
+     * The global top-k rows of the answered tables, best first.
+     */
+    private final List<MultiSearchResultRow> rows;
+
+    /**
+     * The search failures of tables, by table.
+     */
+    private final Map<SearchTarget, RuntimeException> failures;
+
+    /**
+     * The tables whose search did not complete before the deadline and was cancelled.
+     */
+    private final List<SearchTarget> timedOut;
+
+    /**
+     * Returns whether some tables did not contribute to the rows, because their search failed or timed out.
+     */
+    public boolean isPartial() {
+        return !this.failures.isEmpty() || !this.timedOut.isEmpty();
+    }
+}
@@ -0,0 +1,557 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.SelectRequest;
+import com.baidu.mochow.model.SelectResponse;
+import com.baidu.mochow.model.entity.Field;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.Schema;
+
+/**
+ * Scans a table with several concurrent chains of select markers, each over a disjoint range of the primary key.
+ * <p>
+ * The table must have a single primary key field. Ranges are bounded by split points given by the user, or by
+ * points evenly spread over an integer primary key, between the given bounds or between the smallest and the largest
+ * key of the rows to scan, found by a binary search of at most a few dozen selects each.
+ * The first and the last range are unbounded, so all rows are scanned whatever the split points; the split points
+ * only decide how the rows are balanced between splits.
+ * <p>
+ * Rows are either passed to a {@link ScanSplitHandler} by {@link #run(ScanSplitHandler)}, with splits scanned on
+ * {@code parallelism} threads, or returned by the parallel stream of {@link #stream()}, which runs on the common
+ * fork-join pool. Per-split statistics are available from {@link #getSplitStats()}.
+ */
+public class ParallelScan {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final MochowClient client;
+    private final SelectRequest request;
+    private final List<ScanSplit> splits;
+    private final int parallelism;
+    private final SelectAllOptions selectAllOptions;
+
+    private final List<ScanSplitStats> splitStats = Collections.synchronizedList(new ArrayList<ScanSplitStats>());
+    private final Set<SelectIterator> openIterators =
+            Collections.newSetFromMap(new ConcurrentHashMap<SelectIterator, Boolean>());
+
+    private ParallelScan(Builder builder) {
+        checkNotNull(builder.client, "client should not be null.");
+        checkNotNull(builder.request, "request should not be null.");
+        this.client = builder.client;
+        this.request = builder.request;
+        this.parallelism = builder.parallelism;
+        this.selectAllOptions = builder.selectAllOptions;
+
+        Schema schema = this.client.getTableSchema(this.request.getDatabase(), this.request.getTable());
+        Field primaryKey = singlePrimaryKeyOf(schema);
+        checkArgument(primaryKey != null, "parallel scan needs a table with a single primary key field.");
+
+        List<?> splitPoints = builder.splitPoints;
+        if (splitPoints == null) {
+            splitPoints = this.evenSplitPoints(primaryKey, builder.splits, builder.lowerBound, builder.upperBound);
+        }
+        this.splits = new ArrayList<ScanSplit>(splitPoints.size() + 1);
+        for (int i = 0; i <= splitPoints.size(); i++) {
+            Object lower = i > 0 ? splitPoints.get(i - 1) : null;
+            Object upper = i < splitPoints.size() ? splitPoints.get(i) : null;
+            this.splits.add(new ScanSplit(i, lower, upper,
+                    rangeFilter(this.request.getFilter(), primaryKey.getFieldName(), lower, upper)));
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns whether a table can be scanned without split points given by the user: whether it has a single
+     * primary key field, of an integer type.
+     *
+     * @param schema the schema of the table.
+     */
+    public static boolean canSplit(Schema schema) {
+        Field primaryKey = singlePrimaryKeyOf(schema);
+        if (primaryKey == null) {
+            return false;
+        }
+        switch (primaryKey.getFieldType()) {
+            case INT8:
+            case UINT8:
+            case INT16:
+            case UINT16:
+            case INT32:
+            case UINT32:
+            case INT64:
+            case UINT64:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public List<ScanSplit> getSplits() {
+        return Collections.unmodifiableList(this.splits);
+    }
+
+    /**
+     * Returns the statistics of the splits scanned so far, in split order.
+     */
+    public List<ScanSplitStats> getSplitStats() {
+        List<ScanSplitStats> stats;
+        synchronized (this.splitStats) {
+            stats = new ArrayList<ScanSplitStats>(this.splitStats);
+        }
+        Collections.sort(stats, new Comparator<ScanSplitStats>() {
+            @Override
+            public int compare(ScanSplitStats s1, ScanSplitStats s2) {
+                return Integer.compare(s1.getSplit().getIndex(), s2.getSplit().getIndex());
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Scans all splits, at most {@code parallelism} at a time, and passes their rows to the handler. The scan stops
+     * at the first failure of a split or of the handler.
+     *
+     * @param handler the row handler.
+     * @return the statistics of all splits, in split order.
+     * @throws MochowClientException the first failure.
+     */
+    public List<ScanSplitStats> run(final ScanSplitHandler handler) throws MochowClientException {
+        checkNotNull(handler, "handler should not be null.");
+        final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+        ExecutorService scanners = Executors.newFixedThreadPool(Math.min(this.parallelism, this.splits.size()),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mochow-parallel-scan-%d").build());
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(this.splits.size());
+            for (final ScanSplit split : this.splits) {
+                futures.add(scanners.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        if (failure.get() == null) {
+                            scanSplit(split, handler, failure);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new MochowClientException("Parallel scan interrupted", e);
+        } catch (ExecutionException e) {
+            throw new MochowClientException("Parallel scan failed", e.getCause());
+        } finally {
+            scanners.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return this.getSplitStats();
+    }
+
+    /**
+     * Returns a parallel stream over the rows of all splits. Rows come in no particular order. Closing the stream
+     * stops the scan.
+     */
+    public Stream<Row> stream() {
+        return StreamSupport.stream(new ScanSpliterator(0, this.splits.size()), true).onClose(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    private void close() {
+        for (SelectIterator iterator : this.openIterators) {
+            iterator.close();
+        }
+    }
+
+    private void scanSplit(ScanSplit split, ScanSplitHandler handler, AtomicReference<RuntimeException> failure) {
+        long startMillis = System.currentTimeMillis();
+        long rows = 0;
+        boolean completed = false;
+        SelectIterator iterator = this.open(split);
+        try {
+            while (failure.get() == null) {
+                if (!iterator.hasNext()) {
+                    completed = true;
+                    break;
+                }
+                handler.onRow(split, iterator.next());
+                rows++;
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            this.finish(split, iterator, rows, startMillis, completed);
+        }
+    }
+
+    private SelectIterator open(ScanSplit split) {
+        SelectRequest splitRequest = SelectRequest.builder()
+                .database(this.request.getDatabase())
+                .table(this.request.getTable())
+                .filter(split.getFilter())
+                .limit(this.request.getLimit())
+                .projections(this.request.getProjections())
+                .readConsistency(this.request.getReadConsistency()).build();
+        splitRequest.setPriority(this.request.getPriority());
+        SelectIterator iterator = this.client.selectAll(splitRequest, this.selectAllOptions);
+        this.openIterators.add(iterator);
+        return iterator;
+    }
+
+    private void finish(ScanSplit split, SelectIterator iterator, long rows, long startMillis, boolean completed) {
+        iterator.close();
+        this.openIterators.remove(iterator);
+        this.splitStats.add(new ScanSplitStats(split, rows, System.currentTimeMillis() - startMillis, completed));
+    }
+
+    private static Field singlePrimaryKeyOf(Schema schema) {
+        Field primaryKey = null;
+        for (Field field : schema.getFields()) {
+            if (Boolean.TRUE.equals(field.getPrimaryKey())) {
+                if (primaryKey != null) {
+                    return null;
+                }
+                primaryKey = field;
+            }
+        }
+        return primaryKey;
+    }
+
+    private List<Object> evenSplitPoints(Field primaryKey, int splits, Number lowerBound, Number upperBound) {
+        BigInteger lower;
+        BigInteger upper;
+        switch (primaryKey.getFieldType()) {
+            case INT8:
+                lower = BigInteger.valueOf(Byte.MIN_VALUE);
+                upper = BigInteger.valueOf(Byte.MAX_VALUE);
+                break;
+            case UINT8:
+                lower = BigInteger.ZERO;
+                upper = BigInteger.valueOf(255);
+                break;
+            case INT16:
+                lower = BigInteger.valueOf(Short.MIN_VALUE);
+                upper = BigInteger.valueOf(Short.MAX_VALUE);
+                break;
+            case UINT16:
+                lower = BigInteger.ZERO;
+                upper = BigInteger.valueOf(65535);
+                break;
+            case INT32:
+                lower = BigInteger.valueOf(Integer.MIN_VALUE);
+                upper = BigInteger.valueOf(Integer.MAX_VALUE);
+                break;
+            case UINT32:
+                lower = BigInteger.ZERO;
+                upper = BigInteger.valueOf(4294967295L);
+                break;
+            case INT64:
+                lower = BigInteger.valueOf(Long.MIN_VALUE);
+                upper = BigInteger.valueOf(Long.MAX_VALUE);
+                break;
+            case UINT64:
+                lower = BigInteger.ZERO;
+                upper = BigInteger.valueOf(Long.MAX_VALUE);
+                break;
+            default:
+                throw new IllegalArgumentException("split points are required to scan a table with a primary key of "
+                        + "type " + primaryKey.getFieldType());
+        }
+        if (lowerBound == null || upperBound == null) {
+            // the keys in use are usually a small part of the range of the type, split the range actually stored
+            if (!this.hasRow(null, null, null)) {
+                return Collections.emptyList();
+            }
+            String fieldName = primaryKey.getFieldName();
+            BigInteger smallest = lowerBound == null ? this.smallestKey(fieldName, lower, upper) : null;
+            BigInteger largest = upperBound == null ? this.largestKey(fieldName, lower, upper) : null;
+            lower = smallest != null ? smallest : lower;
+            upper = largest != null ? largest.add(BigInteger.ONE) : upper;
+        }
+        if (lowerBound != null) {
+            lower = BigInteger.valueOf(lowerBound.longValue());
+        }
+        if (upperBound != null) {
+            upper = BigInteger.valueOf(upperBound.longValue());
+        }
+        checkArgument(lower.compareTo(upper) < 0, "lowerBound should be less than upperBound.");
+        BigInteger width = upper.subtract(lower);
+        List<Object> points = new ArrayList<Object>(splits - 1);
+        for (int i = 1; i < splits; i++) {
+            long point = lower.add(width.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(splits)))
+                    .longValue();
+            if (points.isEmpty() || (Long) points.get(points.size() - 1) < point) {
+                points.add(point);
+            }
+        }
+        return points;
+    }
+
+    private BigInteger smallestKey(String fieldName, BigInteger lower, BigInteger upper) {
+        while (lower.compareTo(upper) < 0) {
+            BigInteger middle = lower.add(upper.subtract(lower).shiftRight(1));
+            if (this.hasRow(fieldName, "<=", middle)) {
+                upper = middle;
+            } else {
+                lower = middle.add(BigInteger.ONE);
+            }
+        }
+        return lower;
+    }
+
+    private BigInteger largestKey(String fieldName, BigInteger lower, BigInteger upper) {
+        while (lower.compareTo(upper) < 0) {
+            BigInteger middle = lower.add(upper.subtract(lower).add(BigInteger.ONE).shiftRight(1));
+            if (this.hasRow(fieldName, ">=", middle)) {
+                lower = middle;
+            } else {
+                upper = middle.subtract(BigInteger.ONE);
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Returns whether a row matching the filter of the request has a primary key matching the condition, or
+     * whether any row matches the filter if the condition is null.
+     */
+    private boolean hasRow(String fieldName, String operator, Object value) {
+        StringBuilder filter = new StringBuilder();
+        if (this.request.getFilter() != null && !this.request.getFilter().isEmpty()) {
+            filter.append('(').append(this.request.getFilter()).append(')');
+        }
+        List<String> projections = new ArrayList<String>();
+        if (fieldName != null) {
+            appendCondition(filter, fieldName, operator, value);
+            projections.add(fieldName);
+        }
+        SelectRequest probe = SelectRequest.builder()
+                .database(this.request.getDatabase())
+                .table(this.request.getTable())
+                .filter(filter.length() > 0 ? filter.toString() : null)
+                .limit(1)
+                .projections(projections.isEmpty() ? null : projections)
+                .readConsistency(this.request.getReadConsistency()).build();
+        probe.setPriority(this.request.getPriority());
+        SelectResponse response = this.client.select(probe);
+        return response.getRows() != null && !response.getRows().isEmpty();
+    }
+
+    private static String rangeFilter(String filter, String fieldName, Object lower, Object upper) {
+        StringBuilder builder = new StringBuilder();
+        if (filter != null && !filter.isEmpty()) {
+            builder.append('(').append(filter).append(')');
+        }
+        if (lower != null) {
+            appendCondition(builder, fieldName, ">=", lower);
+        }
+        if (upper != null) {
+            appendCondition(builder, fieldName, "<", upper);
+        }
+        return builder.length() > 0 ? builder.toString() : null;
+    }
+
+    private static void appendCondition(StringBuilder builder, String fieldName, String operator, Object value) {
+        if (builder.length() > 0) {
+            builder.append(" AND ");
+        }
+        builder.append(fieldName).append(' ').append(operator).append(' ');
+        if (value instanceof Number) {
+            builder.append(value);
+        } else {
+            builder.append('\'').append(value.toString().replace("\\", "\\\\").replace("'", "\\'")).append('\'');
+        }
+    }
+
+    /**
+     * Splits the scan along split boundaries; each part scans its splits one after another.
+     */
+    private class ScanSpliterator implements Spliterator<Row> {
+        private int from;
+        private int to;
+        private ScanSplit currentSplit;
+        private SelectIterator current;
+        private long rows;
+        private long startMillis;
+
+        ScanSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Row> action) {
+            while (true) {
+                if (this.current == null) {
+                    if (this.from >= this.to) {
+                        return false;
+                    }
+                    this.currentSplit = splits.get(this.from++);
+                    this.current = open(this.currentSplit);
+                    this.rows = 0;
+                    this.startMillis = System.currentTimeMillis();
+                }
+                if (this.current.hasNext()) {
+                    Row row = this.current.next();
+                    this.rows++;
+                    action.accept(row);
+                    return true;
+                }
+                finish(this.currentSplit, this.current, this.rows, this.startMillis, true);
+                this.current = null;
+            }
+        }
+
+        @Override
+        public Spliterator<Row> trySplit() {
+            int remaining = this.to - this.from;
+            if (this.current != null) {
+                // keep the split in progress, give away the others
+                if (remaining < 1) {
+                    return null;
+                }
+                ScanSpliterator rest = new ScanSpliterator(this.from, this.to);
+                this.to = this.from;
+                return rest;
+            }
+            if (remaining < 2) {
+                return null;
+            }
+            int middle = this.from + remaining / 2;
+            ScanSpliterator prefix = new ScanSpliterator(this.from, middle);
+            this.from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.NONNULL;
+        }
+    }
+
+    public static class Builder {
+        private MochowClient client;
+        private SelectRequest request;
+        private List<?> splitPoints;
+        private int splits;
+        private Number lowerBound;
+        private Number upperBound;
+        private int parallelism;
+        private SelectAllOptions selectAllOptions;
+
+        public Builder() {
+            this.parallelism = DEFAULT_PARALLELISM;
+            this.splits = DEFAULT_PARALLELISM;
+            this.selectAllOptions = new SelectAllOptions();
+        }
+
+        public Builder client(MochowClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Sets the select request to scan. Its filter is combined with the range of each split, its limit is the
+         * page size, and its marker is ignored.
+         */
+        public Builder request(SelectRequest request) {
+            this.request = request;
+            return this;
+        }
+
+        /**
+         * Sets the primary key values separating the splits, in ascending order. N points make N + 1 splits.
+         */
+        public Builder splitPoints(List<?> splitPoints) {
+            checkNotNull(splitPoints, "splitPoints should not be null.");
+            this.splitPoints = new ArrayList<Object>(splitPoints);
+            return this;
+        }
+
+        /**
+         * Sets the number of even splits of an integer primary key, used without split points.
+         */
+        public Builder splits(int splits) {
+            checkArgument(splits > 0, "splits should be positive.");
+            this.splits = splits;
+            return this;
+        }
+
+        /**
+         * Sets the range of primary key values the even splits are spread over. A bound not set defaults to the
+         * smallest or the largest key of the rows to scan.
+         */
+        public Builder bounds(Number lowerBound, Number upperBound) {
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            return this;
+        }
+
+        public Builder parallelism(int parallelism) {
+            checkArgument(parallelism > 0, "parallelism should be positive.");
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder selectAllOptions(SelectAllOptions selectAllOptions) {
+            checkNotNull(selectAllOptions, "selectAllOptions should not be null.");
+            this.selectAllOptions = selectAllOptions;
+            return this;
+        }
+
+        public ParallelScan build() {
+            return new ParallelScan(this);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.client.write.RowKeyExtractor;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.entity.ANNSearchParams;
+import com.baidu.mochow.model.entity.FLATSearchParams;
+import com.baidu.mochow.model.entity.HNSWSearchParams;
+import com.baidu.mochow.model.entity.SearchParams;
+import com.baidu.mochow.model.entity.SearchResultRow;
+
+/**
+ * Iterates over all rows within the distance range of a search, beyond the limit of a single search call.
+ * <p>
+ * The range is given by the distanceNear and distanceFar of the HNSW or FLAT search parameters, and each call
+ * returns at most their limit of rows. After each call the near bound moves to the distance of the last returned
+ * row, and rows at that boundary distance already returned are skipped by primary key, so every row is returned
+ * once and only the keys of the boundary rows are kept in memory. The next window is fetched in the background
+ * while the current one is consumed.
+ * <p>
+ * If more rows than the limit share one distance, the rows of that distance not returned by the first call cannot
+ * be reached: the near bound is moved just past that distance and they are skipped.
+ */
+@NotThreadSafe
+public class RangeSearchIterator implements Iterator<SearchResultRow>, Closeable {
+
+    private final MochowClient client;
+    private final SearchRequest request;
+    private final SearchParams params;
+    private final RowKeyExtractor primaryKey;
+    private final boolean ascending;
+    private final ExecutorService executor;
+
+    private float near;
+    private Set<Object> boundaryKeys = new HashSet<Object>();
+    private boolean finished = false;
+    private Future<SearchResponse> nextWindow;
+
+    private Iterator<SearchResultRow> currentWindow = Collections.<SearchResultRow>emptyList().iterator();
+
+    /**
+     * Starts iterating. Use {@link MochowClient#rangeSearch(SearchRequest)} instead.
+     *
+     * @param client   the client sending the search requests.
+     * @param request  the range search request; it is not modified.
+     * @param executor the executor fetching the next window.
+     */
+    public RangeSearchIterator(MochowClient client, SearchRequest request, ExecutorService executor) {
+        ANNSearchParams anns = request.getAnns();
+        checkArgument(anns != null && (anns.getParams() instanceof HNSWSearchParams
+                || anns.getParams() instanceof FLATSearchParams), "range search needs HNSW or FLAT search params.");
+        this.client = client;
+        this.params = anns.getParams();
+        checkArgument(this.params.getLimit() > 0, "range search needs a positive limit.");
+        this.primaryKey = RowKeyExtractor.primaryKeyOf(client.getTableSchema(request.getDatabase(),
+                request.getTable()));
+        this.ascending = VectorMetrics.isAscending(VectorMetrics.metricTypeOf(client, request.getDatabase(),
+                request.getTable(), anns.getVectorField()));
+        List<String> projections = request.getProjections();
+        if (projections != null && !projections.isEmpty()) {
+            projections = new ArrayList<String>(projections);
+            for (String field : this.primaryKey.getFieldNames()) {
+                if (!projections.contains(field)) {
+                    projections.add(field);
+                }
+            }
+        }
+        this.request = SearchRequest.builder()
+                .database(request.getDatabase())
+                .table(request.getTable())
+                .anns(anns)
+                .partitionKey(request.getPartitionKey())
+                .retrieveVector(request.isRetrieveVector())
+                .projections(projections)
+                .readConsistency(request.getReadConsistency()).build();
+        this.request.setPriority(request.getPriority());
+        this.near = this.params instanceof HNSWSearchParams
+                ? ((HNSWSearchParams) this.params).getDistanceNear()
+                : ((FLATSearchParams) this.params).getDistanceNear();
+        this.executor = executor;
+        this.nextWindow = this.fetch(this.near);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!this.currentWindow.hasNext()) {
+            if (this.nextWindow == null) {
+                return false;
+            }
+            SearchResponse response = await(this.nextWindow);
+            this.nextWindow = null;
+            List<SearchResultRow> rows = this.advance(response);
+            if (!this.finished) {
+                this.nextWindow = this.fetch(this.near);
+            }
+            this.currentWindow = rows.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public SearchResultRow next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.currentWindow.next();
+    }
+
+    /**
+     * Cancels the background fetch of the next window.
+     */
+    @Override
+    public void close() {
+        if (this.nextWindow != null) {
+            this.nextWindow.cancel(true);
+            this.nextWindow = null;
+        }
+        this.finished = true;
+        this.currentWindow = Collections.<SearchResultRow>emptyList().iterator();
+    }
+
+    /**
+     * Returns the new rows of a window, and moves the near bound past them.
+     */
+    private List<SearchResultRow> advance(SearchResponse response) {
+        List<SearchResultRow> rows = response.getRows() != null
+                ? response.getRows() : Collections.<SearchResultRow>emptyList();
+        if (rows.size() < this.params.getLimit()) {
+            this.finished = true;
+        }
+        List<SearchResultRow> fresh = new ArrayList<SearchResultRow>(rows.size());
+        float boundary = this.near;
+        Set<Object> keys = this.boundaryKeys;
+        for (SearchResultRow row : rows) {
+            Object key = this.primaryKey.extract(row.getRow());
+            if (row.getDistance() == this.near && this.boundaryKeys.contains(key)) {
+                continue;
+            }
+            fresh.add(row);
+            if (row.getDistance() != boundary) {
+                boundary = row.getDistance();
+                keys = new HashSet<Object>();
+            }
+            keys.add(key);
+        }
+        if (!this.finished && fresh.isEmpty()) {
+            // a full window of already returned rows at one distance, step over that distance
+            this.near = this.ascending ? Math.nextUp(this.near) : Math.nextDown(this.near);
+            this.boundaryKeys = new HashSet<Object>();
+        } else {
+            this.near = boundary;
+            this.boundaryKeys = keys;
+        }
+        return fresh;
+    }
+
+    private Future<SearchResponse> fetch(final float windowNear) {
+        ANNSearchParams anns = this.request.getAnns();
+        final SearchRequest windowRequest = SearchRequest.builder()
+                .database(this.request.getDatabase())
+                .table(this.request.getTable())
+                .anns(new ANNSearchParams(anns.getVectorField(), anns.getVectorFloats(), this.windowParams(windowNear),
+                        anns.getFilter()))
+                .partitionKey(this.request.getPartitionKey())
+                .retrieveVector(this.request.isRetrieveVector())
+                .projections(this.request.getProjections())
+                .readConsistency(this.request.getReadConsistency()).build();
+        windowRequest.setPriority(this.request.getPriority());
+        return this.executor.submit(new Callable<SearchResponse>() {
+            @Override
+            public SearchResponse call() {
+                return client.search(windowRequest);
+            }
+        });
+    }
+
+    private SearchParams windowParams(float windowNear) {
+        if (this.params instanceof HNSWSearchParams) {
+            HNSWSearchParams hnsw = (HNSWSearchParams) this.params;
+            return HNSWSearchParams.builder()
+                    .limit(hnsw.getLimit())
+                    .ef(hnsw.getEf())
+                    .distanceNear(windowNear)
+                    .distanceFar(hnsw.getDistanceFar())
+                    .pruning(hnsw.isPruning()).build();
+        }
+        FLATSearchParams flat = (FLATSearchParams) this.params;
+        return FLATSearchParams.builder()
+                .limit(flat.getLimit())
+                .distanceNear(windowNear)
+                .distanceFar(flat.getDistanceFar()).build();
+    }
+
+    private SearchResponse await(Future<SearchResponse> window) {
+        try {
+            return window.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new MochowClientException("Interrupted while waiting for the next distance window", e);
+        } catch (ExecutionException e) {
+            this.close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new MochowClientException("Range search failed", e.getCause());
+        }
+    }
+}
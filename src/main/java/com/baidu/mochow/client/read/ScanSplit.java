@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A primary key range of a {@link ParallelScan}, scanned with its own chain of select markers.
+ */
+@Getter
+@AllArgsConstructor
+public class ScanSplit {
+
+    /**
+     * The position of the split in key order, starting from 0.
+     */
+    private final int index;
+
+    /**
+     * The inclusive lower bound of the primary key, or null for no lower bound.
+     */
+    private final Object lowerBound;
+
+    /**
+     * The exclusive upper bound of the primary key, or null for no upper bound.
+     */
+    private final Object upperBound;
+
+    /**
+     * The filter of the select requests of the split.
+     */
+    private final String filter;
+
+    @Override
+    public String toString() {
+        return "ScanSplit{index=" + this.index + ", range=[" + this.lowerBound + ", " + this.upperBound + ")}";
+    }
+}
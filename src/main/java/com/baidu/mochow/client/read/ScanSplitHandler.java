@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import com.baidu.mochow.model.entity.Row;
+
+/**
+ * Receives the rows of a {@link ParallelScan}.
+ */
+public interface ScanSplitHandler {
+
+    /**
+     * Called for each row, in key order within a split. Calls for different splits happen concurrently on the scan
+     * threads; calls for the same split happen on a single thread.
+     *
+     * @param split the split of the row.
+     * @param row   the row.
+     */
+    void onRow(ScanSplit split, Row row);
+}
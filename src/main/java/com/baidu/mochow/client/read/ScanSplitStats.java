@@ -0,0 +1,45 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of scanning one {@link ScanSplit}.
+ */
+@Getter
+@AllArgsConstructor
+public class ScanSplitStats {
+
+    private final ScanSplit split;
+
+    private final long rows;
+
+    private final long elapsedMillis;
+
+    /**
+     * Whether all rows of the split have been scanned.
+     */
+    private final boolean completed;
+
+    public double getRowsPerSecond() {
+        return this.elapsedMillis > 0 ? this.rows * 1000.0 / this.elapsedMillis : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanSplitStats{split=" + this.split + ", rows=" + this.rows + ", elapsedMillis=" + this.elapsedMillis
+                + ", completed=" + this.completed + '}';
+    }
+}
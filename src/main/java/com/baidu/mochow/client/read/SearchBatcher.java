@@ -0,0 +1,270 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Function;
+import com.google.common.base.Supplier;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.MochowServiceException;
+import com.baidu.mochow.model.BatchSearchRequest;
+import com.baidu.mochow.model.BatchSearchResponse;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.entity.ANNSearchParams;
+import com.baidu.mochow.model.entity.BatchANNSearchParams;
+import com.baidu.mochow.util.JsonUtils;
+
+/**
+ * Groups concurrent search calls into batchSearch calls.
+ * <p>
+ * Searches are batched when they share the database, the table, the vector field, the search parameters, the
+ * filter, the partition key, the projections, retrieveVector and the read consistency; only their search vectors
+ * differ. The first search of a group waits up to the configured delay, or until the batch is full, for other
+ * searches to join, then sends one batchSearch call and hands each caller its own result. A search not joined by
+ * any other is sent as a plain search. A failure of the batchSearch call is thrown to all searches of the batch,
+ * each joined search getting its own exception: a copy of a {@link MochowServiceException}, or a
+ * {@link MochowClientException} caused by the failure otherwise.
+ */
+public class SearchBatcher {
+
+    private final int maxBatchSize;
+    private final long maxDelayInNanos;
+    private final Function<BatchSearchRequest, BatchSearchResponse> batchSender;
+
+    private final ConcurrentMap<String, Batch> openBatches = new ConcurrentHashMap<String, Batch>();
+
+    private final AtomicLong searchCount = new AtomicLong();
+    private final AtomicLong batchedSearchCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    /**
+     * @param options     the batching options.
+     * @param batchSender sends a batchSearch request to the server.
+     */
+    public SearchBatcher(SearchBatchingOptions options, Function<BatchSearchRequest, BatchSearchResponse> batchSender) {
+        this.maxBatchSize = options.getMaxBatchSize();
+        this.maxDelayInNanos = TimeUnit.MICROSECONDS.toNanos(options.getMaxDelayInMicros());
+        this.batchSender = batchSender;
+    }
+
+    /**
+     * Sends a search request, batched with concurrent compatible searches.
+     *
+     * @param request the search request.
+     * @param loader  sends the request as a plain search, when it is not batched.
+     * @return the response.
+     * @throws MochowClientException if the search, or the batchSearch it is part of, fails.
+     */
+    public SearchResponse search(SearchRequest request, Supplier<SearchResponse> loader) throws MochowClientException {
+        this.searchCount.incrementAndGet();
+        ANNSearchParams anns = request.getAnns();
+        if (anns == null || anns.getVectorFloats() == null) {
+            return loader.get();
+        }
+        String key = batchKey(request);
+        Pending pending = new Pending(request);
+        while (true) {
+            Batch batch = this.openBatches.get(key);
+            if (batch == null) {
+                Batch created = new Batch(pending);
+                batch = this.openBatches.putIfAbsent(key, created);
+                if (batch == null) {
+                    return this.lead(key, created, loader);
+                }
+            }
+            if (batch.join(pending, this.maxBatchSize)) {
+                return await(pending.response);
+            }
+            // the batch is being sent, open a new one
+            this.openBatches.remove(key, batch);
+        }
+    }
+
+    public SearchBatchingStats getStats() {
+        return new SearchBatchingStats(this.searchCount.get(), this.batchedSearchCount.get(), this.batchCount.get());
+    }
+
+    private SearchResponse lead(String key, Batch batch, Supplier<SearchResponse> loader) {
+        List<Pending> searches;
+        try {
+            searches = batch.awaitAndClose(this.maxBatchSize, this.maxDelayInNanos);
+        } finally {
+            this.openBatches.remove(key, batch);
+        }
+        if (searches.size() == 1) {
+            return loader.get();
+        }
+        this.batchCount.incrementAndGet();
+        this.batchedSearchCount.addAndGet(searches.size());
+        try {
+            List<SearchResponse> results = this.sendBatch(searches);
+            for (int i = 1; i < searches.size(); i++) {
+                searches.get(i).response.complete(results.get(i));
+            }
+            return results.get(0);
+        } catch (RuntimeException e) {
+            for (int i = 1; i < searches.size(); i++) {
+                searches.get(i).response.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+
+    private List<SearchResponse> sendBatch(List<Pending> searches) {
+        SearchRequest first = searches.get(0).request;
+        List<List<Float>> vectors = new ArrayList<List<Float>>(searches.size());
+        for (Pending search : searches) {
+            vectors.add(search.request.getAnns().getVectorFloats());
+        }
+        BatchSearchRequest batchRequest = BatchSearchRequest.builder()
+                .database(first.getDatabase())
+                .table(first.getTable())
+                .anns(new BatchANNSearchParams(first.getAnns().getVectorField(), vectors,
+                        first.getAnns().getParams(), first.getAnns().getFilter()))
+                .partitionKey(first.getPartitionKey())
+                .retrieveVector(first.isRetrieveVector())
+                .projections(first.getProjections())
+                .readConsistency(first.getReadConsistency()).build();
+        batchRequest.setPriority(first.getPriority());
+        BatchSearchResponse response = this.batchSender.apply(batchRequest);
+        List<SearchResponse> results = response == null ? null : response.getResults();
+        if (results == null || results.size() != searches.size()) {
+            throw new MochowClientException("batchSearch of " + searches.size() + " vectors returned "
+                    + (results == null ? 0 : results.size()) + " results");
+        }
+        return results;
+    }
+
+    private static String batchKey(SearchRequest request) {
+        ANNSearchParams anns = request.getAnns();
+        StringBuilder key = new StringBuilder();
+        key.append(request.getDatabase()).append('\0')
+                .append(request.getTable()).append('\0')
+                .append(anns.getVectorField()).append('\0')
+                .append(anns.getFilter()).append('\0')
+                .append(request.isRetrieveVector()).append('\0')
+                .append(request.getReadConsistency()).append('\0')
+                .append(request.getPriority()).append('\0');
+        if (anns.getParams() != null) {
+            key.append(anns.getParams().getClass().getName()).append(JsonUtils.toJsonString(anns.getParams()));
+        }
+        key.append('\0');
+        if (request.getPartitionKey() != null) {
+            key.append(JsonUtils.toJsonString(request.getPartitionKey()));
+        }
+        key.append('\0').append(request.getProjections());
+        return key.toString();
+    }
+
+    private static SearchResponse await(CompletableFuture<SearchResponse> response) {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MochowClientException("Interrupted while waiting for a batched search", e);
+        } catch (ExecutionException e) {
+            throw failureOf(e.getCause());
+        }
+    }
+
+    /**
+     * Returns an exception of one waiting search for the failure of its batch, so that the searches of a batch never
+     * share an exception instance, its stack trace or its suppressed exceptions.
+     */
+    private static RuntimeException failureOf(Throwable shared) {
+        if (shared instanceof MochowServiceException) {
+            MochowServiceException service = (MochowServiceException) shared;
+            MochowServiceException copy = new MochowServiceException(service.getErrorMessage(), service);
+            copy.setRequestId(service.getRequestId());
+            copy.setErrorCode(service.getErrorCode());
+            copy.setErrorType(service.getErrorType());
+            copy.setStatusCode(service.getStatusCode());
+            return copy;
+        }
+        return new MochowClientException("Batched search failed: " + shared.getMessage(), shared);
+    }
+
+    private static final class Pending {
+        private final SearchRequest request;
+        private final CompletableFuture<SearchResponse> response = new CompletableFuture<SearchResponse>();
+
+        private Pending(SearchRequest request) {
+            this.request = request;
+        }
+    }
+
+    private static final class Batch {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition full = this.lock.newCondition();
+        private final List<Pending> searches = new ArrayList<Pending>();
+        private boolean closed = false;
+
+        private Batch(Pending leader) {
+            this.searches.add(leader);
+        }
+
+        /**
+         * Adds a search to the batch, or returns false if the batch is closed or full.
+         */
+        private boolean join(Pending search, int maxBatchSize) {
+            this.lock.lock();
+            try {
+                if (this.closed || this.searches.size() >= maxBatchSize) {
+                    return false;
+                }
+                this.searches.add(search);
+                if (this.searches.size() >= maxBatchSize) {
+                    this.full.signal();
+                }
+                return true;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Waits until the batch is full or the delay elapsed, then closes it and returns its searches.
+         */
+        private List<Pending> awaitAndClose(int maxBatchSize, long maxDelayInNanos) {
+            this.lock.lock();
+            try {
+                long remainingNanos = maxDelayInNanos;
+                while (this.searches.size() < maxBatchSize && remainingNanos > 0) {
+                    try {
+                        remainingNanos = this.full.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        // send what has been batched so far, joined searches are waiting for it
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                this.closed = true;
+                return new ArrayList<Pending>(this.searches);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
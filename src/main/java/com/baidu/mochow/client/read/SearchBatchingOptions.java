@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the automatic micro-batching of concurrent search calls into batchSearch calls.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withSearchBatchingOptions(SearchBatchingOptions)
+ */
+@Getter
+@Setter
+public class SearchBatchingOptions {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 16;
+
+    public static final long DEFAULT_MAX_DELAY_IN_MICROS = 200;
+
+    /**
+     * The maximum number of search vectors sent in one batchSearch call. A batch is sent as soon as it is full.
+     */
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    /**
+     * How long the first search of a batch waits for other searches to join it. This is the latency added to a
+     * search which is not joined by others.
+     */
+    private long maxDelayInMicros = DEFAULT_MAX_DELAY_IN_MICROS;
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize > 1, "maxBatchSize should be greater than 1.");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setMaxDelayInMicros(long maxDelayInMicros) {
+        checkArgument(maxDelayInMicros >= 0, "maxDelayInMicros should not be negative.");
+        this.maxDelayInMicros = maxDelayInMicros;
+    }
+
+    public SearchBatchingOptions withMaxBatchSize(int maxBatchSize) {
+        this.setMaxBatchSize(maxBatchSize);
+        return this;
+    }
+
+    public SearchBatchingOptions withMaxDelayInMicros(long maxDelayInMicros) {
+        this.setMaxDelayInMicros(maxDelayInMicros);
+        return this;
+    }
+}
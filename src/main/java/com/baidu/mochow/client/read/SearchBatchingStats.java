@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the counters of the search micro-batcher.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchBatchingStats {
+
+    /**
+     * The number of search calls handled by the batcher.
+     */
+    private final long searchCount;
+
+    /**
+     * The number of searches sent as part of a batchSearch call of at least two vectors.
+     */
+    private final long batchedSearchCount;
+
+    /**
+     * The number of batchSearch calls sent for batched searches.
+     */
+    private final long batchCount;
+
+    /**
+     * Returns the average number of searches per batchSearch call, or 0 if no batch was sent.
+     */
+    public double getAverageBatchSize() {
+        return this.batchCount == 0 ? 0 : (double) this.batchedSearchCount / this.batchCount;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchBatchingStats{searchCount=" + this.searchCount
+                + ", batchedSearchCount=" + this.batchedSearchCount + ", batchCount=" + this.batchCount
+                + ", averageBatchSize=" + this.getAverageBatchSize() + '}';
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A table, or an alias of a table, searched by a multi-table search.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchTarget {
+
+    private final String database;
+
+    private final String table;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SearchTarget)) {
+            return false;
+        }
+        SearchTarget other = (SearchTarget) o;
+        return this.database.equals(other.database) && this.table.equals(other.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.database.hashCode() + this.table.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.database + '.' + this.table;
+    }
+}
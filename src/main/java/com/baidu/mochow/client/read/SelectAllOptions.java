@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the page prefetching of {@link SelectIterator}.
+ *
+ * @see com.baidu.mochow.client.MochowClient#selectAll(com.baidu.mochow.model.SelectRequest, SelectAllOptions)
+ */
+@Getter
+@Setter
+public class SelectAllOptions {
+
+    public static final int DEFAULT_PREFETCH_PAGES = 2;
+
+    public static final long DEFAULT_MAX_PREFETCH_BYTES = 64L * 1024 * 1024;
+
+    public static final long DEFAULT_IDLE_TIMEOUT_IN_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * The maximum number of pages fetched ahead of the consumer. Zero disables prefetching, so each page is fetched
+     * when the previous one has been consumed.
+     */
+    private int prefetchPages = DEFAULT_PREFETCH_PAGES;
+
+    /**
+     * The maximum estimated heap size of the pages fetched ahead of the consumer. One page is always fetched ahead,
+     * whatever its size, when prefetching is enabled.
+     */
+    private long maxPrefetchBytes = DEFAULT_MAX_PREFETCH_BYTES;
+
+    /**
+     * How long the prefetcher waits for the consumer before giving up on an iterator that was abandoned without
+     * being closed, releasing its buffered pages.
+     */
+    private long idleTimeoutInMillis = DEFAULT_IDLE_TIMEOUT_IN_MILLIS;
+
+    public void setPrefetchPages(int prefetchPages) {
+        checkArgument(prefetchPages >= 0, "prefetchPages should not be negative.");
+        this.prefetchPages = prefetchPages;
+    }
+
+    public void setMaxPrefetchBytes(long maxPrefetchBytes) {
+        checkArgument(maxPrefetchBytes > 0, "maxPrefetchBytes should be positive.");
+        this.maxPrefetchBytes = maxPrefetchBytes;
+    }
+
+    public void setIdleTimeoutInMillis(long idleTimeoutInMillis) {
+        checkArgument(idleTimeoutInMillis > 0, "idleTimeoutInMillis should be positive.");
+        this.idleTimeoutInMillis = idleTimeoutInMillis;
+    }
+
+    public SelectAllOptions withPrefetchPages(int prefetchPages) {
+        this.setPrefetchPages(prefetchPages);
+        return this;
+    }
+
+    public SelectAllOptions withMaxPrefetchBytes(long maxPrefetchBytes) {
+        this.setMaxPrefetchBytes(maxPrefetchBytes);
+        return this;
+    }
+
+    public SelectAllOptions withIdleTimeoutInMillis(long idleTimeoutInMillis) {
+        this.setIdleTimeoutInMillis(idleTimeoutInMillis);
+        return this;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.SelectRequest;
+import com.baidu.mochow.model.SelectResponse;
+import com.baidu.mochow.model.entity.GeneralParams;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.util.RowSizeEstimator;
+
+/**
+ * Iterates over all rows matching a select request, following the markers of the paginated select responses.
+ * <p>
+ * Unless prefetching is disabled, a background task fetches the following pages while the current one is being
+ * consumed, keeping at most {@code prefetchPages} pages and {@code maxPrefetchBytes} estimated bytes ahead of the
+ * consumer. The iterator should be closed when it is not consumed to the end, e.g. with try-with-resources, or by
+ * closing the stream returned by {@link #stream()}. An iterator abandoned without being closed is released after
+ * the idle timeout of its options.
+ * <p>
+ * A failed page request is thrown by the {@link #hasNext()} call that reaches it; rows of earlier pages are still
+ * returned first.
+ */
+@NotThreadSafe
+public class SelectIterator implements Iterator<Row>, Closeable {
+
+    private final MochowClient client;
+    private final SelectRequest request;
+    private final int prefetchPages;
+    private final long maxPrefetchBytes;
+    private final long idleTimeoutInMillis;
+
+    private final Object lock = new Object();
+    private final Deque<Page> pages = new ArrayDeque<Page>();
+    private long prefetchedBytes = 0;
+    private boolean finished = false;
+    private RuntimeException failure = null;
+    private boolean closed = false;
+
+    private Iterator<Row> currentPage = Collections.<Row>emptyList().iterator();
+    private GeneralParams marker;
+
+    /**
+     * Starts iterating. Use {@link MochowClient#selectAll(SelectRequest, SelectAllOptions)} instead.
+     *
+     * @param client   the client sending the select requests.
+     * @param request  the first select request; it is not modified.
+     * @param options  the prefetch options.
+     * @param executor the executor running the prefetch task.
+     */
+    public SelectIterator(MochowClient client, SelectRequest request, SelectAllOptions options,
+                          ExecutorService executor) {
+        this.client = client;
+        this.request = SelectRequest.builder()
+                .database(request.getDatabase())
+                .table(request.getTable())
+                .filter(request.getFilter())
+                .limit(request.getLimit())
+                .projections(request.getProjections())
+                .readConsistency(request.getReadConsistency()).build();
+        this.request.setPriority(request.getPriority());
+        this.marker = request.getMarker();
+        this.prefetchPages = options.getPrefetchPages();
+        this.maxPrefetchBytes = options.getMaxPrefetchBytes();
+        this.idleTimeoutInMillis = options.getIdleTimeoutInMillis();
+        if (this.prefetchPages > 0) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    prefetch();
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!this.currentPage.hasNext()) {
+            List<Row> rows = this.prefetchPages > 0 ? this.takePage() : this.fetchPage();
+            if (rows == null) {
+                return false;
+            }
+            this.currentPage = rows.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Row next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return this.currentPage.next();
+    }
+
+    /**
+     * Stops prefetching and drops the prefetched pages.
+     */
+    @Override
+    public void close() {
+        synchronized (this.lock) {
+            this.closed = true;
+            this.pages.clear();
+            this.prefetchedBytes = 0;
+            this.lock.notifyAll();
+        }
+        this.currentPage = Collections.<Row>emptyList().iterator();
+    }
+
+    /**
+     * Returns a spliterator over the remaining rows. It does not split.
+     */
+    public Spliterator<Row> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Returns a sequential stream over the remaining rows. Closing the stream closes this iterator.
+     */
+    public Stream<Row> stream() {
+        return StreamSupport.stream(this.spliterator(), false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    /**
+     * Returns the next prefetched page, or null at the end of the table.
+     */
+    private List<Row> takePage() {
+        synchronized (this.lock) {
+            while (this.pages.isEmpty() && !this.finished && !this.closed) {
+                try {
+                    this.lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.close();
+                    throw new MochowClientException("Interrupted while waiting for the next page", e);
+                }
+            }
+            Page page = this.pages.pollFirst();
+            if (page != null) {
+                this.prefetchedBytes -= page.bytes;
+                this.lock.notifyAll();
+                return page.rows;
+            }
+            if (this.failure != null && !this.closed) {
+                throw this.failure;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Fetches the next page in the calling thread, or returns null at the end of the table.
+     */
+    private List<Row> fetchPage() {
+        if (this.closed || this.finished) {
+            return null;
+        }
+        SelectResponse response = this.client.select(this.pageRequest());
+        if (!response.isTruncated() || response.getNextMarker() == null) {
+            this.finished = true;
+        }
+        this.marker = response.getNextMarker();
+        return response.getRows() != null ? response.getRows() : Collections.<Row>emptyList();
+    }
+
+    private void prefetch() {
+        try {
+            while (true) {
+                synchronized (this.lock) {
+                    long deadline = System.currentTimeMillis() + this.idleTimeoutInMillis;
+                    while (!this.closed && !this.pages.isEmpty()
+                            && (this.pages.size() >= this.prefetchPages
+                            || this.prefetchedBytes >= this.maxPrefetchBytes)) {
+                        long waitMillis = deadline - System.currentTimeMillis();
+                        if (waitMillis <= 0) {
+                            this.pages.clear();
+                            this.prefetchedBytes = 0;
+                            this.failure = new MochowClientException("Select iterator has not been consumed for "
+                                    + this.idleTimeoutInMillis + " ms and was released");
+                            this.finished = true;
+                            return;
+                        }
+                        this.lock.wait(waitMillis);
+                    }
+                    if (this.closed) {
+                        return;
+                    }
+                }
+                SelectResponse response = this.client.select(this.pageRequest());
+                boolean last = !response.isTruncated() || response.getNextMarker() == null;
+                synchronized (this.lock) {
+                    if (this.closed) {
+                        return;
+                    }
+                    List<Row> rows = response.getRows();
+                    if (rows != null && !rows.isEmpty()) {
+                        Page page = new Page(rows, RowSizeEstimator.estimate(rows));
+                        this.pages.addLast(page);
+                        this.prefetchedBytes += page.bytes;
+                    }
+                    this.finished = last;
+                    this.lock.notifyAll();
+                }
+                if (last) {
+                    return;
+                }
+                this.marker = response.getNextMarker();
+            }
+        } catch (InterruptedException e) {
+            this.fail(new MochowClientException("Select prefetch interrupted", e));
+        } catch (RuntimeException e) {
+            this.fail(e);
+        }
+    }
+
+    private void fail(RuntimeException e) {
+        synchronized (this.lock) {
+            this.failure = e;
+            this.finished = true;
+            this.lock.notifyAll();
+        }
+    }
+
+    private SelectRequest pageRequest() {
+        this.request.setMarker(this.marker);
+        return this.request;
+    }
+
+    private static class Page {
+        private final List<Row> rows;
+        private final long bytes;
+
+        Page(List<Row> rows, long bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.read;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.entity.IndexField;
+import com.baidu.mochow.model.entity.Schema;
+import com.baidu.mochow.model.enums.MetricType;
+
+/**
+ * Metric helpers of the client-side search features.
+ */
+final class VectorMetrics {
+
+    private VectorMetrics() {
+    }
+
+    /**
+     * Returns the metric of the vector index on a field, read from the cached schema of the table.
+     *
+     * @throws MochowClientException if the field has no vector index.
+     */
+    static MetricType metricTypeOf(MochowClient client, String database, String table, String vectorField) {
+        Schema schema = client.getTableSchema(database, table);
+        if (schema.getIndexes() != null) {
+            for (IndexField index : schema.getIndexes()) {
+                if (index.getMetricType() != null && vectorField.equals(index.getField())) {
+                    return index.getMetricType();
+                }
+            }
+        }
+        throw new MochowClientException("No vector index on field " + vectorField + " of " + database + '.' + table);
+    }
+
+    /**
+     * Returns whether smaller distances are better for a metric: true for L2, false for the similarities IP and
+     * COSINE.
+     */
+    static boolean isAscending(MetricType metricType) {
+        return metricType == MetricType.L2;
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.tuning;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.client.write.RowKeyExtractor;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.SearchResponse;
+import com.baidu.mochow.model.SelectRequest;
+import com.baidu.mochow.model.SelectResponse;
+import com.baidu.mochow.model.entity.ANNSearchParams;
+import com.baidu.mochow.model.entity.FLATSearchParams;
+import com.baidu.mochow.model.entity.HNSWSearchParams;
+import com.baidu.mochow.model.entity.IndexField;
+import com.baidu.mochow.model.entity.PUCKSearchParams;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.Schema;
+import com.baidu.mochow.model.entity.SearchParams;
+import com.baidu.mochow.model.entity.SearchResultRow;
+import com.baidu.mochow.model.enums.IndexType;
+import com.baidu.mochow.util.VectorUtils;
+
+/**
+ * Tunes the ef of an HNSW index, or the searchCoarseCount of a PUCK index, toward a target recall.
+ * <p>
+ * The tuner computes the exact top-k of sample query vectors with FLAT searches, then sweeps the candidate values
+ * of the parameter in increasing order against the live table, measuring the recall and the average latency of
+ * each. The cheapest value meeting the target recall is chosen and registered in the client's
+ * {@link TunedSearchParams}, so that subsequent searches of the vector field which leave the parameter unset use
+ * it.
+ * <p>
+ * Unless query vectors are given, the sample is the vectors of the first rows returned by a select on the table.
+ * Once started, the tuner re-evaluates the table periodically, as the right value drifts while the table grows.
+ */
+public class SearchParamsTuner implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchParamsTuner.class);
+
+    public static final List<Integer> DEFAULT_EF_CANDIDATES =
+            Collections.unmodifiableList(Arrays.asList(16, 32, 64, 128, 256, 512));
+
+    public static final List<Integer> DEFAULT_SEARCH_COARSE_COUNT_CANDIDATES =
+            Collections.unmodifiableList(Arrays.asList(5, 10, 20, 40, 80, 160));
+
+    private final MochowClient client;
+    private final String database;
+    private final String table;
+    private final String vectorField;
+    private final List<List<Float>> queryVectors;
+    private final int sampleSize;
+    private final int limit;
+    private final double targetRecall;
+    private final List<Integer> candidates;
+    private final long reevaluationIntervalInMillis;
+
+    private ScheduledExecutorService scheduler;
+    private volatile TuningResult lastResult;
+
+    private SearchParamsTuner(Builder builder) {
+        checkNotNull(builder.client, "client should not be null.");
+        checkNotNull(builder.database, "database should not be null.");
+        checkNotNull(builder.table, "table should not be null.");
+        checkNotNull(builder.vectorField, "vectorField should not be null.");
+        this.client = builder.client;
+        this.database = builder.database;
+        this.table = builder.table;
+        this.vectorField = builder.vectorField;
+        this.queryVectors = builder.queryVectors;
+        this.sampleSize = builder.sampleSize;
+        this.limit = builder.limit;
+        this.targetRecall = builder.targetRecall;
+        this.candidates = builder.candidates;
+        this.reevaluationIntervalInMillis = builder.reevaluationIntervalInMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs one sweep, registers the chosen value in the client and returns the measured curve.
+     *
+     * @return the tuning result.
+     * @throws MochowClientException if the table has no HNSW or PUCK index on the vector field, or a request fails.
+     */
+    public TuningResult tune() throws MochowClientException {
+        IndexType indexType = this.indexType();
+        List<List<Float>> queries = this.queryVectors != null ? this.queryVectors : this.sampleQueryVectors();
+        if (queries.isEmpty()) {
+            throw new MochowClientException("No query vector to tune " + this.database + '.' + this.table);
+        }
+        Schema schema = this.client.getTableSchema(this.database, this.table);
+        RowKeyExtractor primaryKey = RowKeyExtractor.primaryKeyOf(schema);
+
+        List<Set<Object>> truths = new ArrayList<Set<Object>>(queries.size());
+        for (List<Float> query : queries) {
+            truths.add(this.search(query, FLATSearchParams.builder().limit(this.limit).build(), primaryKey));
+        }
+
+        List<Integer> values = this.candidates != null ? this.candidates
+                : indexType == IndexType.HNSW ? DEFAULT_EF_CANDIDATES : DEFAULT_SEARCH_COARSE_COUNT_CANDIDATES;
+        List<TuningPoint> points = new ArrayList<TuningPoint>();
+        TuningPoint chosen = null;
+        TuningPoint best = null;
+        for (int value : values) {
+            if (indexType == IndexType.HNSW && value < this.limit) {
+                // ef below the limit cannot return limit rows
+                continue;
+            }
+            TuningPoint point = this.measure(indexType, value, queries, truths, primaryKey);
+            points.add(point);
+            if (best == null || point.getRecall() > best.getRecall()) {
+                best = point;
+            }
+            if (point.getRecall() >= this.targetRecall) {
+                chosen = point;
+                break;
+            }
+        }
+        if (best == null) {
+            throw new MochowClientException("No candidate value to tune " + this.database + '.' + this.table);
+        }
+        boolean targetMet = chosen != null;
+        if (!targetMet) {
+            chosen = best;
+        }
+        this.client.getTunedSearchParams().put(this.database, this.table, this.vectorField, chosen.getValue());
+        TuningResult result = new TuningResult(this.database, this.table,
+                indexType == IndexType.HNSW ? "ef" : "searchCoarseCount", points, chosen.getValue(),
+                this.targetRecall, targetMet, System.currentTimeMillis());
+        this.lastResult = result;
+        return result;
+    }
+
+    /**
+     * Tunes the table now, then again at every re-evaluation interval until the tuner is closed. Failures of
+     * periodic sweeps are logged and keep the previous value.
+     *
+     * @return the result of the first sweep.
+     * @throws MochowClientException if the first sweep fails.
+     */
+    public synchronized TuningResult start() throws MochowClientException {
+        checkArgument(this.scheduler == null, "tuner is already started.");
+        TuningResult result = this.tune();
+        if (this.reevaluationIntervalInMillis > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                    .setDaemon(true).setNameFormat("mochow-search-params-tuner-%d").build());
+            this.scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        tune();
+                    } catch (RuntimeException e) {
+                        LOG.warn("Re-evaluation of the search parameters of {}.{} failed", database, table, e);
+                    }
+                }
+            }, this.reevaluationIntervalInMillis, this.reevaluationIntervalInMillis, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the result of the last sweep, or null if none completed.
+     */
+    public TuningResult getLastResult() {
+        return this.lastResult;
+    }
+
+    /**
+     * Stops the periodic re-evaluation. The last chosen value stays registered in the client.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    private TuningPoint measure(IndexType indexType, int value, List<List<Float>> queries, List<Set<Object>> truths,
+                                RowKeyExtractor primaryKey) {
+        SearchParams params = indexType == IndexType.HNSW
+                ? HNSWSearchParams.builder().limit(this.limit).ef(value).build()
+                : PUCKSearchParams.builder().limit(this.limit).searchCoarseCount(value).build();
+        double recallSum = 0;
+        long elapsedNanos = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            Set<Object> truth = truths.get(i);
+            long start = System.nanoTime();
+            Set<Object> found = this.search(queries.get(i), params, primaryKey);
+            elapsedNanos += System.nanoTime() - start;
+            if (truth.isEmpty()) {
+                recallSum += 1;
+                continue;
+            }
+            int hits = 0;
+            for (Object key : found) {
+                if (truth.contains(key)) {
+                    hits++;
+                }
+            }
+            recallSum += (double) hits / truth.size();
+        }
+        return new TuningPoint(value, recallSum / queries.size(),
+                elapsedNanos / 1e6 / queries.size());
+    }
+
+    private Set<Object> search(List<Float> query, SearchParams params, RowKeyExtractor primaryKey) {
+        // sent directly, as cached, collapsed or batched searches would distort the measured recall and latency
+        SearchResponse response = this.client.searchDirect(SearchRequest.builder()
+                .database(this.database)
+                .table(this.table)
+                .anns(new ANNSearchParams(this.vectorField, query, params, null))
+                .projections(primaryKey.getFieldNames()).build());
+        Set<Object> keys = new HashSet<Object>();
+        if (response.getRows() != null) {
+            for (SearchResultRow row : response.getRows()) {
+                Object key = primaryKey.extract(row.getRow());
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private List<List<Float>> sampleQueryVectors() {
+        SelectResponse response = this.client.select(SelectRequest.builder()
+                .database(this.database)
+                .table(this.table)
+                .limit(this.sampleSize)
+                .projections(Collections.singletonList(this.vectorField)).build());
+        List<List<Float>> vectors = new ArrayList<List<Float>>();
+        if (response.getRows() != null) {
+            for (Row row : response.getRows()) {
+                float[] vector = row.getFields() != null
+                        ? VectorUtils.toFloatArray(row.getFields().get(this.vectorField)) : null;
+                if (vector == null) {
+                    continue;
+                }
+                List<Float> query = new ArrayList<Float>(vector.length);
+                for (float element : vector) {
+                    query.add(element);
+                }
+                vectors.add(query);
+            }
+        }
+        return vectors;
+    }
+
+    private IndexType indexType() {
+        Schema schema = this.client.getTableSchema(this.database, this.table);
+        if (schema.getIndexes() != null) {
+            for (IndexField index : schema.getIndexes()) {
+                if (this.vectorField.equals(index.getField())
+                        && (index.getIndexType() == IndexType.HNSW || index.getIndexType() == IndexType.PUCK)) {
+                    return index.getIndexType();
+                }
+            }
+        }
+        throw new MochowClientException("No HNSW or PUCK index on field " + this.vectorField + " of "
+                + this.database + '.' + this.table);
+    }
+
+    public static class Builder {
+        private MochowClient client;
+        private String database;
+        private String table;
+        private String vectorField;
+        private List<List<Float>> queryVectors;
+        private int sampleSize = 100;
+        private int limit = 10;
+        private double targetRecall = 0.95;
+        private List<Integer> candidates;
+        private long reevaluationIntervalInMillis = 60 * 60 * 1000;
+
+        public Builder client(MochowClient client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder database(String database) {
+            this.database = database;
+            return this;
+        }
+
+        public Builder table(String table) {
+            this.table = table;
+            return this;
+        }
+
+        public Builder vectorField(String vectorField) {
+            this.vectorField = vectorField;
+            return this;
+        }
+
+        /**
+         * Sets the query vectors to tune with, instead of sampling vectors of the table.
+         */
+        public Builder queryVectors(List<List<Float>> queryVectors) {
+            checkNotNull(queryVectors, "queryVectors should not be null.");
+            this.queryVectors = queryVectors;
+            return this;
+        }
+
+        public Builder sampleSize(int sampleSize) {
+            checkArgument(sampleSize > 0, "sampleSize should be positive.");
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        /**
+         * Sets the k of the recall at k.
+         */
+        public Builder limit(int limit) {
+            checkArgument(limit > 0, "limit should be positive.");
+            this.limit = limit;
+            return this;
+        }
+
+        public Builder targetRecall(double targetRecall) {
+            checkArgument(targetRecall > 0 && targetRecall <= 1, "targetRecall should be in (0, 1].");
+            this.targetRecall = targetRecall;
+            return this;
+        }
+
+        /**
+         * Sets the values of ef or searchCoarseCount to sweep, in increasing order of cost.
+         */
+        public Builder candidates(List<Integer> candidates) {
+            checkArgument(candidates != null && !candidates.isEmpty(), "candidates should not be empty.");
+            List<Integer> sorted = new ArrayList<Integer>(candidates);
+            Collections.sort(sorted);
+            checkArgument(sorted.get(0) > 0, "candidates should be positive.");
+            this.candidates = sorted;
+            return this;
+        }
+
+        /**
+         * Sets the interval of the periodic re-evaluation after {@link SearchParamsTuner#start()}, or 0 to disable it.
+         */
+        public Builder reevaluationIntervalInMillis(long reevaluationIntervalInMillis) {
+            checkArgument(reevaluationIntervalInMillis >= 0, "reevaluationIntervalInMillis should not be negative.");
+            this.reevaluationIntervalInMillis = reevaluationIntervalInMillis;
+            return this;
+        }
+
+        public SearchParamsTuner build() {
+            return new SearchParamsTuner(this);
+        }
+    }
+}
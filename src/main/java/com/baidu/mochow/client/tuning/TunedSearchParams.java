@@ -0,0 +1,143 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.tuning;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.baidu.mochow.model.BatchSearchRequest;
+import com.baidu.mochow.model.SearchRequest;
+import com.baidu.mochow.model.entity.ANNSearchParams;
+import com.baidu.mochow.model.entity.BatchANNSearchParams;
+import com.baidu.mochow.model.entity.HNSWSearchParams;
+import com.baidu.mochow.model.entity.PUCKSearchParams;
+import com.baidu.mochow.model.entity.SearchParams;
+
+/**
+ * The tuned ef or searchCoarseCount of the vector fields of tables, applied by the client to the searches that leave
+ * them unset.
+ * <p>
+ * A search whose HNSW parameters have no ef, or whose PUCK parameters have no searchCoarseCount, is sent with the
+ * tuned value of its table and vector field. As an ef below the limit cannot return limit rows, the ef sent is at
+ * least the limit of the search. Values set by the caller are never overridden. The caller's request is not modified;
+ * a copy is sent instead.
+ */
+public class TunedSearchParams {
+
+    private final ConcurrentMap<String, Integer> values = new ConcurrentHashMap<String, Integer>();
+
+    /**
+     * Sets the tuned value of a vector field.
+     *
+     * @param database    the database name.
+     * @param table       the table name.
+     * @param vectorField the vector field name.
+     * @param value       the ef or searchCoarseCount to apply.
+     */
+    public void put(String database, String table, String vectorField, int value) {
+        this.values.put(key(database, table, vectorField), value);
+    }
+
+    /**
+     * Returns the tuned value of a vector field, or null if it has not been tuned.
+     */
+    public Integer get(String database, String table, String vectorField) {
+        return this.values.get(key(database, table, vectorField));
+    }
+
+    public void remove(String database, String table, String vectorField) {
+        this.values.remove(key(database, table, vectorField));
+    }
+
+    /**
+     * Returns the request to send: a copy with the tuned value if it applies, otherwise the request itself.
+     */
+    public SearchRequest apply(SearchRequest request) {
+        if (this.values.isEmpty() || request.getAnns() == null) {
+            return request;
+        }
+        ANNSearchParams anns = request.getAnns();
+        SearchParams params = this.tuned(request.getDatabase(), request.getTable(), anns.getVectorField(),
+                anns.getParams());
+        if (params == anns.getParams()) {
+            return request;
+        }
+        SearchRequest tunedRequest = SearchRequest.builder()
+                .database(request.getDatabase())
+                .table(request.getTable())
+                .anns(new ANNSearchParams(anns.getVectorField(), anns.getVectorFloats(), params, anns.getFilter()))
+                .partitionKey(request.getPartitionKey())
+                .retrieveVector(request.isRetrieveVector())
+                .projections(request.getProjections())
+                .readConsistency(request.getReadConsistency()).build();
+        tunedRequest.setPriority(request.getPriority());
+        return tunedRequest;
+    }
+
+    /**
+     * Returns the request to send: a copy with the tuned value if it applies, otherwise the request itself.
+     */
+    public BatchSearchRequest apply(BatchSearchRequest request) {
+        if (this.values.isEmpty() || request.getAnns() == null) {
+            return request;
+        }
+        BatchANNSearchParams anns = request.getAnns();
+        SearchParams params = this.tuned(request.getDatabase(), request.getTable(), anns.getVectorField(),
+                anns.getParams());
+        if (params == anns.getParams()) {
+            return request;
+        }
+        BatchSearchRequest tunedRequest = BatchSearchRequest.builder()
+                .database(request.getDatabase())
+                .table(request.getTable())
+                .anns(new BatchANNSearchParams(anns.getVectorField(), anns.getVectorFloats(), params,
+                        anns.getFilter()))
+                .partitionKey(request.getPartitionKey())
+                .retrieveVector(request.isRetrieveVector())
+                .projections(request.getProjections())
+                .readConsistency(request.getReadConsistency()).build();
+        tunedRequest.setPriority(request.getPriority());
+        return tunedRequest;
+    }
+
+    private SearchParams tuned(String database, String table, String vectorField, SearchParams params) {
+        if (params instanceof HNSWSearchParams && ((HNSWSearchParams) params).getEf() == 0) {
+            Integer value = this.get(database, table, vectorField);
+            if (value == null) {
+                return params;
+            }
+            HNSWSearchParams hnsw = (HNSWSearchParams) params;
+            return HNSWSearchParams.builder()
+                    .limit(hnsw.getLimit())
+                    // the value was tuned at the limit of the tuner, which may be below the one of this search
+                    .ef(Math.max(value, hnsw.getLimit()))
+                    .distanceNear(hnsw.getDistanceNear())
+                    .distanceFar(hnsw.getDistanceFar())
+                    .pruning(hnsw.isPruning()).build();
+        }
+        if (params instanceof PUCKSearchParams && ((PUCKSearchParams) params).getSearchCoarseCount() == 0) {
+            Integer value = this.get(database, table, vectorField);
+            if (value == null) {
+                return params;
+            }
+            return PUCKSearchParams.builder()
+                    .limit(params.getLimit())
+                    .searchCoarseCount(value).build();
+        }
+        return params;
+    }
+
+    private static String key(String database, String table, String vectorField) {
+        return database + '\0' + table + '\0' + vectorField;
+    }
+}
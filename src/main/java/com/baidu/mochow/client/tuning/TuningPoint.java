@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.tuning;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The measured recall and latency of one value of a search parameter.
+ */
+@Getter
+@AllArgsConstructor
+public class TuningPoint {
+
+    /**
+     * The value of ef or searchCoarseCount.
+     */
+    private final int value;
+
+    /**
+     * The average recall at the search limit against the exact results.
+     */
+    private final double recall;
+
+    private final double averageLatencyInMillis;
+
+    @Override
+    public String toString() {
+        return "TuningPoint{value=" + this.value + ", recall=" + this.recall
+                + ", averageLatencyInMillis=" + this.averageLatencyInMillis + '}';
+    }
+}
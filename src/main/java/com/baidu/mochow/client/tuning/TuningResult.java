@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.tuning;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The recall and latency curve of a parameter sweep, and the chosen value.
+ */
+@Getter
+@AllArgsConstructor
+public class TuningResult {
+
+    private final String database;
+
+    private final String table;
+
+    /**
+     * The tuned parameter, "ef" for HNSW indexes or "searchCoarseCount" for PUCK indexes.
+     */
+    private final String parameterName;
+
+    /**
+     * The measured points, in increasing order of value.
+     */
+    private final List<TuningPoint> points;
+
+    /**
+     * The chosen value: the smallest one meeting the target recall, or the one with the best recall if none does.
+     */
+    private final int chosenValue;
+
+    private final double targetRecall;
+
+    private final boolean targetMet;
+
+    private final long evaluatedAtMillis;
+
+    @Override
+    public String toString() {
+        return "TuningResult{table=" + this.database + '.' + this.table + ", parameterName=" + this.parameterName
+                + ", chosenValue=" + this.chosenValue + ", targetRecall=" + this.targetRecall
+                + ", targetMet=" + this.targetMet + ", points=" + this.points + '}';
+    }
+}
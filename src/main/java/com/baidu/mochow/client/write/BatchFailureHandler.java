@@ -0,0 +1,34 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import java.util.List;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.entity.Row;
+
+/**
+ * Receives batches that a {@link BulkWriter} failed to write.
+ */
+public interface BatchFailureHandler {
+
+    /**
+     * Called on a writer thread after the client gave up on a batch, including its retries.
+     *
+     * @param database the database of the batch.
+     * @param table    the table of the batch.
+     * @param rows     the rows of the failed batch.
+     * @param cause    the failure.
+     */
+    void onFailure(String database, String table, List<Row> rows, MochowClientException cause);
+}
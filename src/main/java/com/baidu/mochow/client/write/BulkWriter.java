@@ -0,0 +1,609 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.exception.BulkheadFullException;
+import com.baidu.mochow.exception.CircuitBreakerOpenException;
+import com.baidu.mochow.exception.ConcurrencyLimitExceededException;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.MochowServiceException;
+import com.baidu.mochow.exception.RateLimitExceededException;
+import com.baidu.mochow.exception.RequestShedException;
+import com.baidu.mochow.model.UpsertRequest;
+import com.baidu.mochow.model.entity.Schema;
+import com.baidu.mochow.model.entity.Row;
+
+/**
+ * Asynchronous batching writer for one table.
+ * <p>
+ * Rows passed to {@link #add(Row)} are buffered and written with upsert in batches of up to {@code batchSize} rows.
+ * A batch is sent as soon as the buffer is full, or once its oldest row has waited for {@code lingerInMillis}. At
+ * most {@code maxInFlightBatches} batches are written concurrently; {@link #add(Row)} blocks when that limit is
+ * reached, which pushes back on the producer.
+ * <p>
+ * With {@code coalesceByPrimaryKey} enabled, rows with the same primary key (determined from the table schema)
+ * replace each other in the buffer, so only the last version of a key within the linger window is written. Batches
+ * in flight concurrently may complete out of order; use a single in-flight batch when later versions of a key must
+ * never be overwritten by earlier ones.
+ * <p>
+ * With {@code groupByPartitionKey} enabled, up to {@code maxBufferedRows} rows are buffered and grouped by the value
+ * of the partition key of the table before being split into batches, so that each batch touches as few partitions
+ * as possible. Rows of the same partition keep their order, rows of different partitions may be reordered.
+ * <p>
+ * Failed batches are passed to the {@link BatchFailureHandler} if one is set, and the last failure is rethrown by
+ * the next {@link #flush()}.
+ * <p>
+ * With a {@code spillDirectory} set, batches are written to a local {@link SpillLog} instead of failing when the
+ * server is unavailable, and instead of blocking the producer when no in-flight slot frees up within
+ * {@code spillAfterWaitInMillis}. While the log holds batches, new batches are appended behind them, and a
+ * background thread replays the log in order at a bounded rate once the server takes writes again. Spilled batches
+ * survive a restart of the writer.
+ */
+@ThreadSafe
+public class BulkWriter implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BulkWriter.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_LINGER_IN_MILLIS = 200;
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 4;
+    public static final int DEFAULT_GROUPED_BUFFER_BATCHES = 8;
+    public static final int DEFAULT_SPILL_SEGMENT_SIZE_IN_BYTES = 64 * 1024 * 1024;
+    public static final long DEFAULT_SPILL_MAX_SIZE_IN_BYTES = 1024L * 1024 * 1024;
+    public static final double DEFAULT_SPILL_REPLAY_ROWS_PER_SECOND = 5000;
+    public static final long DEFAULT_SPILL_AFTER_WAIT_IN_MILLIS = 10 * 1000;
+
+    private static final long SPILL_REPLAY_INTERVAL_IN_MILLIS = 1000;
+
+    private final MochowClient client;
+    private final String database;
+    private final String table;
+    private final int batchSize;
+    private final int maxBufferedRows;
+    private final boolean groupByPartitionKey;
+    private final long lingerInMillis;
+    private final int maxInFlightBatches;
+    private final BatchFailureHandler failureHandler;
+
+    private final BulkWriterStats stats = new BulkWriterStats();
+    private final Object lock = new Object();
+    private final WriteBuffer buffer;
+    private final RowKeyExtractor partitionKeyExtractor;
+    private final Semaphore inFlightBatches;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService lingerTimer;
+    private final AtomicReference<MochowClientException> lastFailure = new AtomicReference<MochowClientException>();
+
+    private final SpillLog spillLog;
+    private final long spillAfterWaitInMillis;
+    private final RateLimiter replayRateLimiter;
+    private final ScheduledExecutorService replayer;
+
+    private volatile boolean serverAvailable = true;
+    private volatile boolean closed = false;
+
+    private BulkWriter(Builder builder) {
+        checkNotNull(builder.client, "client should not be null.");
+        checkNotNull(builder.database, "database should not be null.");
+        checkNotNull(builder.table, "table should not be null.");
+        this.client = builder.client;
+        this.database = builder.database;
+        this.table = builder.table;
+        this.batchSize = builder.batchSize;
+        this.maxBufferedRows = builder.maxBufferedRows > 0 ? builder.maxBufferedRows
+                : (builder.groupByPartitionKey
+                ? DEFAULT_GROUPED_BUFFER_BATCHES * builder.batchSize : builder.batchSize);
+        checkArgument(this.maxBufferedRows >= this.batchSize, "maxBufferedRows should not be less than batchSize.");
+        this.groupByPartitionKey = builder.groupByPartitionKey;
+        this.lingerInMillis = builder.lingerInMillis;
+        this.maxInFlightBatches = builder.maxInFlightBatches;
+        this.failureHandler = builder.failureHandler;
+        this.spillAfterWaitInMillis = builder.spillAfterWaitInMillis;
+
+        Schema schema = null;
+        if (builder.coalesceByPrimaryKey || builder.groupByPartitionKey) {
+            schema = this.client.getTableSchema(this.database, this.table);
+        }
+        this.buffer = new WriteBuffer(builder.coalesceByPrimaryKey ? RowKeyExtractor.primaryKeyOf(schema) : null);
+        this.partitionKeyExtractor = schema != null ? RowKeyExtractor.partitionKeyOf(schema) : null;
+        this.inFlightBatches = new Semaphore(this.maxInFlightBatches);
+        this.senders = Executors.newFixedThreadPool(this.maxInFlightBatches,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mochow-bulk-writer-%d").build());
+        this.lingerTimer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mochow-bulk-writer-linger-%d").build());
+        long checkPeriod = Math.max(1, this.lingerInMillis / 4);
+        this.lingerTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flushIfLingered();
+                } catch (RuntimeException e) {
+                    LOG.warn("Fail to flush lingering rows", e);
+                }
+            }
+        }, checkPeriod, checkPeriod, TimeUnit.MILLISECONDS);
+
+        if (builder.spillDirectory != null) {
+            try {
+                this.spillLog = new SpillLog(builder.spillDirectory, builder.spillSegmentSizeInBytes,
+                        builder.spillMaxSizeInBytes);
+            } catch (IOException e) {
+                this.lingerTimer.shutdownNow();
+                this.senders.shutdown();
+                throw new MochowClientException("Fail to open spill log in " + builder.spillDirectory, e);
+            }
+            this.stats.recordSpillSize(this.spillLog.getSizeInBytes());
+            this.replayRateLimiter = RateLimiter.create(builder.spillReplayRowsPerSecond);
+            this.replayer = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mochow-bulk-writer-replay-%d").build());
+            this.replayer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        replaySpilled();
+                    } catch (RuntimeException e) {
+                        LOG.warn("Fail to replay spilled rows", e);
+                    }
+                }
+            }, 0, SPILL_REPLAY_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            this.spillLog = null;
+            this.replayRateLimiter = null;
+            this.replayer = null;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Buffers a row for writing. Blocks while the maximum number of batches is in flight.
+     *
+     * @param row the row.
+     * @throws IllegalStateException if the writer has been closed.
+     */
+    public void add(Row row) {
+        checkState(!this.closed, "bulk writer has been closed.");
+        List<Row> batch = null;
+        synchronized (this.lock) {
+            if (this.buffer.add(row)) {
+                this.stats.recordCoalesced(1);
+            }
+            this.stats.recordAdded(1);
+            if (this.buffer.size() >= this.maxBufferedRows) {
+                batch = this.buffer.drain();
+            }
+        }
+        if (batch != null) {
+            this.dispatch(batch);
+        }
+    }
+
+    /**
+     * Buffers rows for writing. Blocks while the maximum number of batches is in flight.
+     *
+     * @param rows the rows.
+     * @throws IllegalStateException if the writer has been closed.
+     */
+    public void addAll(Collection<Row> rows) {
+        for (Row row : rows) {
+            this.add(row);
+        }
+    }
+
+    /**
+     * Sends all buffered rows and waits until every batch in flight has completed. Batches held in the spill log are
+     * not waited for.
+     *
+     * @throws MochowClientException the last failure of a batch since the previous flush, if any.
+     */
+    public void flush() throws MochowClientException {
+        List<Row> batch = null;
+        synchronized (this.lock) {
+            if (!this.buffer.isEmpty()) {
+                batch = this.buffer.drain();
+            }
+        }
+        if (batch != null) {
+            this.dispatch(batch);
+        }
+        try {
+            this.inFlightBatches.acquire(this.maxInFlightBatches);
+            this.inFlightBatches.release(this.maxInFlightBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MochowClientException("Flush interrupted", e);
+        }
+        MochowClientException failure = this.lastFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Flushes the buffered rows and releases the writer threads. Batches left in the spill log are replayed by the
+     * next writer opened on the same spill directory.
+     *
+     * @throws MochowClientException the last failure of a batch since the previous flush, if any.
+     */
+    @Override
+    public void close() throws MochowClientException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.flush();
+        } finally {
+            this.closed = true;
+            this.lingerTimer.shutdownNow();
+            this.senders.shutdown();
+            if (this.replayer != null) {
+                this.replayer.shutdown();
+                try {
+                    this.replayer.awaitTermination(SPILL_REPLAY_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (this.spillLog != null) {
+                try {
+                    this.spillLog.close();
+                } catch (IOException e) {
+                    LOG.warn("Fail to close spill log", e);
+                }
+            }
+        }
+    }
+
+    public BulkWriterStats getStats() {
+        return this.stats;
+    }
+
+    private void flushIfLingered() {
+        List<Row> batch = null;
+        synchronized (this.lock) {
+            if (!this.buffer.isEmpty()
+                    && System.currentTimeMillis() - this.buffer.getFirstRowTimeMillis() >= this.lingerInMillis) {
+                batch = this.buffer.drain();
+            }
+        }
+        if (batch != null) {
+            this.dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<Row> rows) {
+        if (this.groupByPartitionKey) {
+            for (List<Row> batch : WriteBuffer.groupByPartitionKey(rows, this.partitionKeyExtractor, this.batchSize)) {
+                this.send(batch);
+            }
+            return;
+        }
+        for (List<Row> batch : Lists.partition(rows, this.batchSize)) {
+            this.send(batch);
+        }
+    }
+
+    private void send(final List<Row> batch) {
+        boolean acquired = false;
+        if (this.spillLog != null) {
+            // keep the order of batches: nothing bypasses the batches waiting in the spill log
+            boolean logEmpty = this.spillLog.isEmpty();
+            if (this.serverAvailable && logEmpty) {
+                // backpressure of a healthy server: wait for a slot, and only spill if none frees up in time
+                try {
+                    acquired = this.inFlightBatches.tryAcquire(this.spillAfterWaitInMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.onFailure(batch, new MochowClientException("Interrupted while waiting to send batch", e));
+                    return;
+                }
+            }
+            if (!acquired && this.spill(batch)) {
+                return;
+            }
+            if (!acquired && !logEmpty) {
+                // sending the batch directly would overtake the older batches of the log
+                this.onFailure(batch, new MochowClientException("Spill log of " + this.database + '.' + this.table
+                        + " is full, the batch cannot be queued behind the spilled batches"));
+                return;
+            }
+        }
+        if (!acquired) {
+            try {
+                this.inFlightBatches.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.onFailure(batch, new MochowClientException("Interrupted while waiting to send batch", e));
+                return;
+            }
+        }
+        this.senders.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(batch);
+                } finally {
+                    inFlightBatches.release();
+                }
+            }
+        });
+    }
+
+    private void write(List<Row> batch) {
+        try {
+            UpsertRequest request = UpsertRequest.builder()
+                    .database(this.database)
+                    .table(this.table)
+                    .rows(batch).build();
+            long startTimeMillis = System.currentTimeMillis();
+            this.client.upsert(request);
+            this.stats.recordWritten(batch.size(), System.currentTimeMillis() - startTimeMillis);
+            if (this.partitionKeyExtractor != null) {
+                this.stats.recordPartitionKeys(WriteBuffer.countPartitionKeys(batch, this.partitionKeyExtractor));
+            }
+        } catch (MochowClientException e) {
+            if (this.spillLog != null && isServerUnavailable(e)) {
+                this.serverAvailable = false;
+                if (this.spill(batch)) {
+                    LOG.warn("Server unavailable, spilled {} rows of {}.{}", batch.size(), this.database, this.table,
+                            e);
+                    return;
+                }
+            }
+            this.onFailure(batch, e);
+        }
+    }
+
+    private boolean spill(List<Row> batch) {
+        try {
+            if (this.spillLog.append(batch)) {
+                this.stats.recordSpilled(batch.size(), this.spillLog.getSizeInBytes());
+                return true;
+            }
+        } catch (IOException e) {
+            LOG.warn("Fail to spill {} rows", batch.size(), e);
+        }
+        return false;
+    }
+
+    private void replaySpilled() {
+        List<Row> batch;
+        while (!this.replayer.isShutdown() && (batch = this.spillLog.peek()) != null) {
+            this.replayRateLimiter.acquire(batch.size());
+            try {
+                UpsertRequest request = UpsertRequest.builder()
+                        .database(this.database)
+                        .table(this.table)
+                        .rows(batch).build();
+                this.client.upsert(request);
+            } catch (MochowClientException e) {
+                this.stats.recordReplayFailed();
+                if (isServerUnavailable(e)) {
+                    // retry at the next round
+                    this.serverAvailable = false;
+                    return;
+                }
+                // the server rejects the batch itself, replaying it again would block the log forever
+                this.onFailure(batch, e);
+                this.spillLog.remove();
+                continue;
+            }
+            this.spillLog.remove();
+            this.serverAvailable = true;
+            this.stats.recordReplayed(batch.size(), this.spillLog.getSizeInBytes());
+        }
+        this.serverAvailable = true;
+    }
+
+    /**
+     * Returns whether a write failed because the server cannot take it now: on an IO error or a timeout, on an
+     * overload rejection of the client, or on a 5xx or 429 status. Other failures, e.g. rows rejected by the write
+     * validation, would fail again on replay.
+     */
+    private static boolean isServerUnavailable(MochowClientException e) {
+        if (e instanceof MochowServiceException) {
+            int statusCode = ((MochowServiceException) e).getStatusCode();
+            return statusCode >= 500 || statusCode == 429;
+        }
+        if (e instanceof RequestShedException || e instanceof RateLimitExceededException
+                || e instanceof CircuitBreakerOpenException || e instanceof ConcurrencyLimitExceededException
+                || e instanceof BulkheadFullException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                // the request did not get a response, timeouts included
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void onFailure(List<Row> batch, MochowClientException e) {
+        this.stats.recordFailed(batch.size());
+        this.lastFailure.set(e);
+        if (this.failureHandler != null) {
+            this.failureHandler.onFailure(this.database, this.table, batch, e);
+        } else {
+            LOG.warn("Fail to write {} rows to {}.{}", batch.size(), this.database, this.table, e);
+        }
+    }
+
+    public static class Builder {
+        private MochowClient client;
+        private String database;
+        private String table;
+        private int batchSize;
+        private int maxBufferedRows;
+        private boolean groupByPartitionKey;
+        private long lingerInMillis;
+        private int maxInFlightBatches;
+        private boolean coalesceByPrimaryKey;
+        private BatchFailureHandler failureHandler;
+        private File spillDirectory;
+        private int spillSegmentSizeInBytes;
+        private long spillMaxSizeInBytes;
+        private double spillReplayRowsPerSecond;
+        private long spillAfterWaitInMillis;
+
+        public Builder() {
+            this.batchSize = DEFAULT_BATCH_SIZE;
+            this.lingerInMillis = DEFAULT_LINGER_IN_MILLIS;
+            this.maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+            this.coalesceByPrimaryKey = false;
+            this.spillSegmentSizeInBytes = DEFAULT_SPILL_SEGMENT_SIZE_IN_BYTES;
+            this.spillMaxSizeInBytes = DEFAULT_SPILL_MAX_SIZE_IN_BYTES;
+            this.spillReplayRowsPerSecond = DEFAULT_SPILL_REPLAY_ROWS_PER_SECOND;
+            this.spillAfterWaitInMillis = DEFAULT_SPILL_AFTER_WAIT_IN_MILLIS;
+        }
+
+        public Builder client(MochowClient client) {
+            this.client = client;
+            return this;
+        }
+
+        public Builder database(String database) {
+            this.database = database;
+            return this;
+        }
+
+        public Builder table(String table) {
+            this.table = table;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            checkArgument(batchSize > 0, "batchSize should be positive.");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of buffered rows that triggers a flush. Defaults to the batch size, or to
+         * {@link #DEFAULT_GROUPED_BUFFER_BATCHES} batches when grouping by partition key.
+         */
+        public Builder maxBufferedRows(int maxBufferedRows) {
+            checkArgument(maxBufferedRows > 0, "maxBufferedRows should be positive.");
+            this.maxBufferedRows = maxBufferedRows;
+            return this;
+        }
+
+        /**
+         * Enables grouping buffered rows by partition key when splitting them into batches.
+         */
+        public Builder groupByPartitionKey(boolean groupByPartitionKey) {
+            this.groupByPartitionKey = groupByPartitionKey;
+            return this;
+        }
+
+        public Builder lingerInMillis(long lingerInMillis) {
+            checkArgument(lingerInMillis >= 0, "lingerInMillis should not be negative.");
+            this.lingerInMillis = lingerInMillis;
+            return this;
+        }
+
+        public Builder maxInFlightBatches(int maxInFlightBatches) {
+            checkArgument(maxInFlightBatches > 0, "maxInFlightBatches should be positive.");
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /**
+         * Enables last-write-wins coalescing of buffered rows with the same primary key.
+         */
+        public Builder coalesceByPrimaryKey(boolean coalesceByPrimaryKey) {
+            this.coalesceByPrimaryKey = coalesceByPrimaryKey;
+            return this;
+        }
+
+        public Builder failureHandler(BatchFailureHandler failureHandler) {
+            this.failureHandler = failureHandler;
+            return this;
+        }
+
+        /**
+         * Enables spilling batches to a log in the given directory. The directory must not be shared with another
+         * writer.
+         */
+        public Builder spillDirectory(File spillDirectory) {
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        /**
+         * Sets how long a batch waits for an in-flight slot, while the server is available and the spill log is
+         * empty, before it is spilled.
+         */
+        public Builder spillAfterWaitInMillis(long spillAfterWaitInMillis) {
+            checkArgument(spillAfterWaitInMillis >= 0, "spillAfterWaitInMillis should not be negative.");
+            this.spillAfterWaitInMillis = spillAfterWaitInMillis;
+            return this;
+        }
+
+        public Builder spillSegmentSizeInBytes(int spillSegmentSizeInBytes) {
+            checkArgument(spillSegmentSizeInBytes > 0, "spillSegmentSizeInBytes should be positive.");
+            this.spillSegmentSizeInBytes = spillSegmentSizeInBytes;
+            return this;
+        }
+
+        /**
+         * Sets the cap of the disk space taken by the spill log. A batch not fitting is sent directly while the log
+         * is empty, and failed otherwise, as it would overtake the spilled batches.
+         */
+        public Builder spillMaxSizeInBytes(long spillMaxSizeInBytes) {
+            checkArgument(spillMaxSizeInBytes > 0, "spillMaxSizeInBytes should be positive.");
+            this.spillMaxSizeInBytes = spillMaxSizeInBytes;
+            return this;
+        }
+
+        /**
+         * Sets the maximum rate at which spilled rows are replayed to the server.
+         */
+        public Builder spillReplayRowsPerSecond(double spillReplayRowsPerSecond) {
+            checkArgument(spillReplayRowsPerSecond > 0, "spillReplayRowsPerSecond should be positive.");
+            this.spillReplayRowsPerSecond = spillReplayRowsPerSecond;
+            return this;
+        }
+
+        public BulkWriter build() {
+            return new BulkWriter(this);
+        }
+    }
+}
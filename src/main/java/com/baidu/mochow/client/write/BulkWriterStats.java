@@ -0,0 +1,202 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of a {@link BulkWriter}.
+ */
+public class BulkWriterStats {
+
+    private final AtomicLong rowsAdded = new AtomicLong();
+    private final AtomicLong rowsCoalesced = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private final AtomicLong batchesFailed = new AtomicLong();
+    private final AtomicLong rowsSpilled = new AtomicLong();
+    private final AtomicLong batchesSpilled = new AtomicLong();
+    private final AtomicLong rowsReplayed = new AtomicLong();
+    private final AtomicLong batchesReplayed = new AtomicLong();
+    private final AtomicLong replayFailures = new AtomicLong();
+    private final AtomicLong spillSizeInBytes = new AtomicLong();
+    private final AtomicLong batchPartitionKeys = new AtomicLong();
+    private final AtomicLong batchesMeasured = new AtomicLong();
+    private final AtomicLong writeTimeInMillis = new AtomicLong();
+    private final long startTimeMillis = System.currentTimeMillis();
+
+    /**
+     * Returns the number of rows passed to the writer.
+     */
+    public long getRowsAdded() {
+        return this.rowsAdded.get();
+    }
+
+    /**
+     * Returns the number of rows never sent because a later row with the same primary key replaced them in the
+     * buffer.
+     */
+    public long getRowsCoalesced() {
+        return this.rowsCoalesced.get();
+    }
+
+    /**
+     * Returns the number of rows acknowledged by the server.
+     */
+    public long getRowsWritten() {
+        return this.rowsWritten.get();
+    }
+
+    /**
+     * Returns the number of rows in batches that failed.
+     */
+    public long getRowsFailed() {
+        return this.rowsFailed.get();
+    }
+
+    public long getBatchesWritten() {
+        return this.batchesWritten.get();
+    }
+
+    public long getBatchesFailed() {
+        return this.batchesFailed.get();
+    }
+
+    /**
+     * Returns the number of rows written to the spill log instead of the server.
+     */
+    public long getRowsSpilled() {
+        return this.rowsSpilled.get();
+    }
+
+    public long getBatchesSpilled() {
+        return this.batchesSpilled.get();
+    }
+
+    /**
+     * Returns the number of spilled rows written to the server afterwards.
+     */
+    public long getRowsReplayed() {
+        return this.rowsReplayed.get();
+    }
+
+    public long getBatchesReplayed() {
+        return this.batchesReplayed.get();
+    }
+
+    /**
+     * Returns the number of failed attempts to replay a spilled batch.
+     */
+    public long getReplayFailures() {
+        return this.replayFailures.get();
+    }
+
+    /**
+     * Returns the disk space currently taken by the spill log.
+     */
+    public long getSpillSizeInBytes() {
+        return this.spillSizeInBytes.get();
+    }
+
+    /**
+     * Returns the average number of distinct partition keys in a batch sent to the server, which is the number of
+     * partitions a batch touches at most. Only measured when the writer loads the table schema, i.e. when coalescing or
+     * grouping rows.
+     */
+    public double getAveragePartitionKeysPerBatch() {
+        long batches = this.batchesMeasured.get();
+        return batches == 0 ? 0 : (double) this.batchPartitionKeys.get() / batches;
+    }
+
+    /**
+     * Returns the average time the server took to acknowledge a batch.
+     */
+    public double getAverageBatchWriteTimeInMillis() {
+        long batches = this.batchesWritten.get();
+        return batches == 0 ? 0 : (double) this.writeTimeInMillis.get() / batches;
+    }
+
+    /**
+     * Returns the number of rows acknowledged by the server per second since the writer was created.
+     */
+    public double getRowsWrittenPerSecond() {
+        long elapsed = Math.max(1, System.currentTimeMillis() - this.startTimeMillis);
+        return this.rowsWritten.get() * 1000.0 / elapsed;
+    }
+
+    void recordAdded(long rows) {
+        this.rowsAdded.addAndGet(rows);
+    }
+
+    void recordCoalesced(long rows) {
+        this.rowsCoalesced.addAndGet(rows);
+    }
+
+    void recordWritten(long rows, long writeTimeInMillis) {
+        this.rowsWritten.addAndGet(rows);
+        this.batchesWritten.incrementAndGet();
+        this.writeTimeInMillis.addAndGet(writeTimeInMillis);
+    }
+
+    void recordPartitionKeys(int partitionKeys) {
+        this.batchPartitionKeys.addAndGet(partitionKeys);
+        this.batchesMeasured.incrementAndGet();
+    }
+
+    void recordFailed(long rows) {
+        this.rowsFailed.addAndGet(rows);
+        this.batchesFailed.incrementAndGet();
+    }
+
+    void recordSpilled(long rows, long spillSizeInBytes) {
+        this.rowsSpilled.addAndGet(rows);
+        this.batchesSpilled.incrementAndGet();
+        this.spillSizeInBytes.set(spillSizeInBytes);
+    }
+
+    void recordSpillSize(long spillSizeInBytes) {
+        this.spillSizeInBytes.set(spillSizeInBytes);
+    }
+
+    void recordReplayed(long rows, long spillSizeInBytes) {
+        this.rowsReplayed.addAndGet(rows);
+        this.batchesReplayed.incrementAndGet();
+        this.spillSizeInBytes.set(spillSizeInBytes);
+    }
+
+    void recordReplayFailed() {
+        this.replayFailures.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "BulkWriterStats{"
+                + "rowsAdded=" + getRowsAdded()
+                + ", rowsCoalesced=" + getRowsCoalesced()
+                + ", rowsWritten=" + getRowsWritten()
+                + ", rowsFailed=" + getRowsFailed()
+                + ", batchesWritten=" + getBatchesWritten()
+                + ", batchesFailed=" + getBatchesFailed()
+                + ", rowsSpilled=" + getRowsSpilled()
+                + ", batchesSpilled=" + getBatchesSpilled()
+                + ", rowsReplayed=" + getRowsReplayed()
+                + ", batchesReplayed=" + getBatchesReplayed()
+                + ", replayFailures=" + getReplayFailures()
+                + ", spillSizeInBytes=" + getSpillSizeInBytes()
+                + ", averagePartitionKeysPerBatch=" + getAveragePartitionKeysPerBatch()
+                + ", averageBatchWriteTimeInMillis=" + getAverageBatchWriteTimeInMillis()
+                + ", rowsWrittenPerSecond=" + getRowsWrittenPerSecond()
+                + '}';
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import com.baidu.mochow.model.entity.Row;
+
+/**
+ * A row rejected by client-side write validation, together with its position in the request and the reason.
+ */
+@Getter
+@AllArgsConstructor
+public class InvalidRow {
+    private int index;
+    private Row row;
+    private String reason;
+
+    @Override
+    public String toString() {
+        return "InvalidRow{index=" + index + ", reason=" + reason + '}';
+    }
+}
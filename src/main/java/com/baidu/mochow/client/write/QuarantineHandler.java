@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import java.util.List;
+
+/**
+ * Receives rows dropped by client-side write validation under {@link InvalidRowPolicy#QUARANTINE}.
+ */
+public interface QuarantineHandler {
+
+    /**
+     * Called on the writing thread before the remaining valid rows are sent.
+     *
+     * @param database    the database of the write request.
+     * @param table       the table of the write request.
+     * @param invalidRows the rows that failed validation.
+     */
+    void onQuarantine(String database, String table, List<InvalidRow> invalidRows);
+}
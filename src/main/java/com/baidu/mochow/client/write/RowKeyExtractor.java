@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.baidu.mochow.model.entity.Field;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.Schema;
+
+/**
+ * Extracts a comparable key from the values of a set of fields of a row, e.g. the primary key fields.
+ * <p>
+ * Numbers are normalized so that a key built from an Integer equals the same key built from a Long, as values of a
+ * row may come from user code or from a deserialized response.
+ */
+public class RowKeyExtractor {
+
+    private final List<String> fieldNames;
+
+    public RowKeyExtractor(List<String> fieldNames) {
+        this.fieldNames = fieldNames;
+    }
+
+    /**
+     * Creates an extractor over the primary key fields of a schema.
+     *
+     * @param schema the table schema.
+     * @return the extractor.
+     */
+    public static RowKeyExtractor primaryKeyOf(Schema schema) {
+        List<String> fieldNames = new ArrayList<String>();
+        for (Field field : schema.getFields()) {
+            if (Boolean.TRUE.equals(field.getPrimaryKey())) {
+                fieldNames.add(field.getFieldName());
+            }
+        }
+        return new RowKeyExtractor(fieldNames);
+    }
+
+    /**
+     * Creates an extractor over the partition key fields of a schema. Tables without a partition key field are
+     * partitioned by their primary key.
+     *
+     * @param schema the table schema.
+     * @return the extractor.
+     */
+    public static RowKeyExtractor partitionKeyOf(Schema schema) {
+        List<String> fieldNames = new ArrayList<String>();
+        for (Field field : schema.getFields()) {
+            if (Boolean.TRUE.equals(field.getPartitionKey())) {
+                fieldNames.add(field.getFieldName());
+            }
+        }
+        if (fieldNames.isEmpty()) {
+            return primaryKeyOf(schema);
+        }
+        return new RowKeyExtractor(fieldNames);
+    }
+
+    public List<String> getFieldNames() {
+        return this.fieldNames;
+    }
+
+    /**
+     * Returns the key of a row.
+     *
+     * @param row the row.
+     * @return the key, or null if the row lacks a value of one of the key fields.
+     */
+    public Object extract(Row row) {
+        if (row == null || row.getFields() == null || this.fieldNames.isEmpty()) {
+            return null;
+        }
+        if (this.fieldNames.size() == 1) {
+            return normalize(row.getFields().get(this.fieldNames.get(0)));
+        }
+        List<Object> key = new ArrayList<Object>(this.fieldNames.size());
+        for (String fieldName : this.fieldNames) {
+            Object value = normalize(row.getFields().get(fieldName));
+            if (value == null) {
+                return null;
+            }
+            key.add(value);
+        }
+        return key;
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.primitives.Floats;
+
+import com.baidu.mochow.exception.RowValidationException;
+import com.baidu.mochow.model.entity.Field;
+import com.baidu.mochow.model.entity.IndexField;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.entity.Table;
+import com.baidu.mochow.model.enums.FieldType;
+import com.baidu.mochow.model.enums.MetricType;
+import com.baidu.mochow.util.VectorUtils;
+
+/**
+ * Checks rows against the table schema before they are sent with insert or upsert, so that a malformed row is
+ * reported locally instead of failing the whole batch on the server after a round trip.
+ * <p>
+ * The following is checked for every row: values are present for not-null, primary key and partition key fields
+ * (unless auto-incremented), scalar values match the field type, vectors have the declared dimension and contain
+ * no NaN or infinite element, and no undeclared field is written into a table without dynamic fields.
+ */
+public class RowValidator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RowValidator.class);
+
+    /**
+     * Maximum accepted difference between the squared norm of a vector and 1 for it to count as normalized.
+     */
+    private static final float NORMALIZATION_TOLERANCE = 1e-4f;
+
+    private final WriteValidationOptions options;
+
+    public RowValidator(WriteValidationOptions options) {
+        checkNotNull(options, "options should not be null.");
+        this.options = options;
+    }
+
+    /**
+     * Validates the rows of a write request.
+     *
+     * @param database the database of the request.
+     * @param table    the description of the target table.
+     * @param rows     the rows to write.
+     * @return the rows to send: the given list if all rows are valid and nothing was normalized, otherwise a new list
+     *         where normalized rows are copies and, under {@link InvalidRowPolicy#QUARANTINE}, invalid rows are left
+     *         out.
+     * @throws RowValidationException if a row is invalid under {@link InvalidRowPolicy#REJECT}.
+     */
+    public List<Row> validate(String database, Table table, List<Row> rows) {
+        if (rows == null || rows.isEmpty() || table.getSchema() == null || table.getSchema().getFields() == null) {
+            return rows;
+        }
+        Map<String, Field> fields = new HashMap<String, Field>();
+        for (Field field : table.getSchema().getFields()) {
+            fields.put(field.getFieldName(), field);
+        }
+        Set<String> normalizedFields = new HashSet<String>();
+        if (this.options.isNormalizeVectors() && table.getSchema().getIndexes() != null) {
+            for (IndexField index : table.getSchema().getIndexes()) {
+                // the norm of an IP vector is part of its score, only COSINE vectors can be scaled
+                if (index.getMetricType() == MetricType.COSINE) {
+                    normalizedFields.add(index.getField());
+                }
+            }
+        }
+        boolean dynamicFieldEnabled = Boolean.TRUE.equals(table.getEnableDynamicField());
+
+        List<Row> result = rows;
+        List<InvalidRow> invalidRows = null;
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            String reason = this.check(row, fields, dynamicFieldEnabled);
+            Row normalized = row;
+            if (reason == null && !normalizedFields.isEmpty()) {
+                try {
+                    normalized = this.normalize(row, normalizedFields);
+                } catch (IllegalArgumentException e) {
+                    reason = e.getMessage();
+                }
+            }
+            if (reason != null) {
+                if (invalidRows == null) {
+                    invalidRows = new ArrayList<InvalidRow>();
+                }
+                invalidRows.add(new InvalidRow(i, row, reason));
+            }
+            if (result == rows && (reason != null || normalized != row)) {
+                // copy the valid rows seen so far on the first change
+                result = new ArrayList<Row>(rows.size());
+                for (int j = 0; j < i; j++) {
+                    result.add(rows.get(j));
+                }
+            }
+            if (result != rows && reason == null) {
+                result.add(normalized);
+            }
+        }
+        if (invalidRows == null) {
+            return result;
+        }
+        if (this.options.getInvalidRowPolicy() == InvalidRowPolicy.REJECT) {
+            throw new RowValidationException(database, table.getTable(), invalidRows);
+        }
+        if (this.options.getQuarantineHandler() != null) {
+            this.options.getQuarantineHandler().onQuarantine(database, table.getTable(), invalidRows);
+        } else {
+            LOG.warn("Dropped {} invalid rows written to {}.{}: {}", invalidRows.size(), database, table.getTable(),
+                    invalidRows);
+        }
+        return result;
+    }
+
+    private String check(Row row, Map<String, Field> fields, boolean dynamicFieldEnabled) {
+        if (row == null || row.getFields() == null || row.getFields().isEmpty()) {
+            return "row is empty";
+        }
+        for (Field field : fields.values()) {
+            Object value = row.getFields().get(field.getFieldName());
+            if (value == null) {
+                if (this.isRequired(field)) {
+                    return "missing value of field " + field.getFieldName();
+                }
+                continue;
+            }
+            String reason = this.checkValue(field, value);
+            if (reason != null) {
+                return reason;
+            }
+        }
+        if (!dynamicFieldEnabled) {
+            for (String fieldName : row.getFields().keySet()) {
+                if (!fields.containsKey(fieldName)) {
+                    return "unknown field " + fieldName;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isRequired(Field field) {
+        if (Boolean.TRUE.equals(field.getAutoIncrement())) {
+            return false;
+        }
+        return Boolean.TRUE.equals(field.getNotNull()) || Boolean.TRUE.equals(field.getPrimaryKey())
+                || Boolean.TRUE.equals(field.getPartitionKey());
+    }
+
+    private String checkValue(Field field, Object value) {
+        FieldType type = field.getFieldType();
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case BOOL:
+                return value instanceof Boolean ? null : this.typeMismatch(field, value);
+            case INT8:
+                return this.checkInteger(field, value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+            case UINT8:
+                return this.checkInteger(field, value, 0, 0xFFL);
+            case INT16:
+                return this.checkInteger(field, value, Short.MIN_VALUE, Short.MAX_VALUE);
+            case UINT16:
+                return this.checkInteger(field, value, 0, 0xFFFFL);
+            case INT32:
+                return this.checkInteger(field, value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            case UINT32:
+                return this.checkInteger(field, value, 0, 0xFFFFFFFFL);
+            case INT64:
+                return this.checkInteger(field, value, Long.MIN_VALUE, Long.MAX_VALUE);
+            case UINT64:
+                if (value instanceof BigInteger) {
+                    return ((BigInteger) value).signum() >= 0 ? null : this.outOfRange(field, value);
+                }
+                return this.checkInteger(field, value, 0, Long.MAX_VALUE);
+            case FLOAT:
+            case DOUBLE:
+                return value instanceof Number ? null : this.typeMismatch(field, value);
+            case STRING:
+            case TEXT:
+            case TEXT_GBK:
+            case TEXT_GB18030:
+            case UUID:
+                return value instanceof String ? null : this.typeMismatch(field, value);
+            case FLOAT_VECTOR:
+                return this.checkVector(field, value);
+            default:
+                return null;
+        }
+    }
+
+    private String checkInteger(Field field, Object value, long min, long max) {
+        if (!(value instanceof Number)) {
+            return this.typeMismatch(field, value);
+        }
+        if (value instanceof Float || value instanceof Double) {
+            double d = ((Number) value).doubleValue();
+            if (d != Math.rint(d)) {
+                return this.typeMismatch(field, value);
+            }
+        }
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() > 63) {
+            return this.outOfRange(field, value);
+        }
+        long l = ((Number) value).longValue();
+        return l < min || l > max ? this.outOfRange(field, value) : null;
+    }
+
+    private String checkVector(Field field, Object value) {
+        float[] vector = VectorUtils.toFloatArray(value);
+        if (vector == null) {
+            return "value of field " + field.getFieldName() + " is not a float vector";
+        }
+        if (field.getDimension() > 0 && vector.length != field.getDimension()) {
+            return "dimension of field " + field.getFieldName() + " is " + vector.length + ", expected "
+                    + field.getDimension();
+        }
+        if (!VectorUtils.isFinite(vector)) {
+            return "vector of field " + field.getFieldName() + " contains NaN or infinite values";
+        }
+        return null;
+    }
+
+    private Row normalize(Row row, Set<String> normalizedFields) {
+        Map<String, Object> copy = null;
+        for (String fieldName : normalizedFields) {
+            Object value = row.getFields().get(fieldName);
+            if (value == null) {
+                continue;
+            }
+            float[] vector = VectorUtils.toFloatArray(value);
+            if (VectorUtils.isNormalized(vector, NORMALIZATION_TOLERANCE)) {
+                continue;
+            }
+            // never scale the caller's array in place
+            vector = vector == value ? vector.clone() : vector;
+            if (!VectorUtils.normalize(vector)) {
+                throw new IllegalArgumentException("zero vector of field " + fieldName + " cannot be normalized");
+            }
+            if (copy == null) {
+                copy = new HashMap<String, Object>(row.getFields());
+            }
+            copy.put(fieldName, Floats.asList(vector));
+        }
+        return copy == null ? row : new Row(copy);
+    }
+
+    private String typeMismatch(Field field, Object value) {
+        return "value of field " + field.getFieldName() + " does not match type " + field.getFieldType().getValue()
+                + ": " + value.getClass().getSimpleName();
+    }
+
+    private String outOfRange(Field field, Object value) {
+        return "value of field " + field.getFieldName() + " is out of range of type "
+                + field.getFieldType().getValue() + ": " + value;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.util.JsonUtils;
+
+/**
+ * Append-only log of row batches on local disk, used by {@link BulkWriter} to hold batches while the server cannot
+ * take them.
+ * <p>
+ * The log is a sequence of fixed-size memory-mapped segment files. Each record is a batch serialized as JSON and
+ * framed by its length and CRC32; a zero length marks the end of the written part of a segment. A removed record is
+ * marked by negating its length, so that after a restart, replay resumes behind the last removed record instead of
+ * writing stale versions of rows again. Fully replayed segments are deleted.
+ */
+@ThreadSafe
+class SpillLog implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpillLog.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 8;
+
+    private final File directory;
+    private final int segmentSizeInBytes;
+    private final long maxSizeInBytes;
+
+    private final Deque<Segment> segments = new ArrayDeque<Segment>();
+
+    private long nextSegmentId = 0;
+
+    SpillLog(File directory, int segmentSizeInBytes, long maxSizeInBytes) throws IOException {
+        checkArgument(segmentSizeInBytes > HEADER_SIZE, "segmentSizeInBytes is too small.");
+        checkArgument(maxSizeInBytes >= segmentSizeInBytes, "maxSizeInBytes should not be less than segment size.");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Fail to create spill directory " + directory);
+        }
+        this.directory = directory;
+        this.segmentSizeInBytes = segmentSizeInBytes;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.recover();
+    }
+
+    /**
+     * Appends a batch to the log.
+     *
+     * @param rows the batch.
+     * @return false if the batch does not fit into the size cap of the log.
+     */
+    synchronized boolean append(List<Row> rows) throws IOException {
+        byte[] payload = JsonUtils.toJsonString(rows).getBytes("UTF-8");
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize + 4 > this.segmentSizeInBytes) {
+            LOG.warn("Batch of {} bytes is larger than the spill segment size", payload.length);
+            return false;
+        }
+        Segment tail = this.segments.peekLast();
+        if (tail == null || tail.writePosition + recordSize + 4 > this.segmentSizeInBytes) {
+            if (this.getSizeInBytes() + this.segmentSizeInBytes > this.maxSizeInBytes) {
+                return false;
+            }
+            if (tail != null) {
+                tail.buffer.force();
+            }
+            tail = this.openSegment(this.nextSegmentId++);
+            this.segments.addLast(tail);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        MappedByteBuffer buffer = tail.buffer;
+        // write the payload first so that a crash never leaves a length pointing at garbage
+        buffer.position(tail.writePosition + HEADER_SIZE);
+        buffer.put(payload);
+        // terminate the segment behind the record, the space may hold records of a previous round
+        buffer.putInt(tail.writePosition + recordSize, 0);
+        buffer.putInt(tail.writePosition + 4, (int) crc.getValue());
+        buffer.putInt(tail.writePosition, payload.length);
+        tail.writePosition += recordSize;
+        return true;
+    }
+
+    /**
+     * Returns the oldest batch without removing it, or null if the log is empty.
+     */
+    synchronized List<Row> peek() {
+        Segment head = this.advanceToReadableSegment();
+        if (head == null) {
+            return null;
+        }
+        int length = head.buffer.getInt(head.readPosition);
+        byte[] payload = new byte[length];
+        head.buffer.position(head.readPosition + HEADER_SIZE);
+        head.buffer.get(payload);
+        try {
+            return Arrays.asList(JsonUtils.getObjectMapper().readValue(payload, Row[].class));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupted spill record in " + head.file, e);
+        }
+    }
+
+    /**
+     * Removes the batch returned by the last {@link #peek()}.
+     */
+    synchronized void remove() {
+        Segment head = this.advanceToReadableSegment();
+        if (head != null) {
+            int length = head.buffer.getInt(head.readPosition);
+            head.buffer.putInt(head.readPosition, -length);
+            head.readPosition += HEADER_SIZE + length;
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return this.advanceToReadableSegment() == null;
+    }
+
+    synchronized long getSizeInBytes() {
+        return (long) this.segments.size() * this.segmentSizeInBytes;
+    }
+
+    synchronized int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : this.segments) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        this.segments.clear();
+    }
+
+    private Segment advanceToReadableSegment() {
+        while (!this.segments.isEmpty()) {
+            Segment head = this.segments.peekFirst();
+            if (head.readPosition < head.writePosition) {
+                return head;
+            }
+            if (head == this.segments.peekLast()) {
+                // keep the tail open for appends, but start it over once it is fully replayed
+                if (head.writePosition > 0) {
+                    head.buffer.putInt(0, 0);
+                    head.readPosition = 0;
+                    head.writePosition = 0;
+                }
+                return null;
+            }
+            this.segments.removeFirst();
+            this.deleteSegment(head);
+        }
+        return null;
+    }
+
+    private void recover() throws IOException {
+        File[] files = this.directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+                continue;
+            }
+            long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = this.openSegment(id);
+            this.scan(segment);
+            if (segment.readPosition == segment.writePosition) {
+                this.deleteSegment(segment);
+                continue;
+            }
+            this.segments.addLast(segment);
+            this.nextSegmentId = Math.max(this.nextSegmentId, id + 1);
+        }
+        if (!this.segments.isEmpty()) {
+            LOG.info("Recovered {} spill segments from {}", this.segments.size(), this.directory);
+        }
+    }
+
+    /**
+     * Sets the read position of a segment behind its last removed record, and its write position behind its last
+     * valid record.
+     */
+    private void scan(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        int readPosition = 0;
+        while (position + HEADER_SIZE <= this.segmentSizeInBytes) {
+            int removedOrLength = buffer.getInt(position);
+            int length = Math.abs(removedOrLength);
+            if (length <= 0 || position + HEADER_SIZE + length > this.segmentSizeInBytes) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.position(position + HEADER_SIZE);
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                LOG.warn("Truncate torn spill record at {} of {}", position, segment.file);
+                break;
+            }
+            position += HEADER_SIZE + length;
+            if (removedOrLength < 0) {
+                readPosition = position;
+            }
+        }
+        segment.readPosition = readPosition;
+        segment.writePosition = position;
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        File file = new File(this.directory, String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        FileChannel channel = raf.getChannel();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSizeInBytes);
+        return new Segment(file, channel, buffer);
+    }
+
+    private void deleteSegment(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            LOG.warn("Fail to close spill segment {}", segment.file, e);
+        }
+        if (!segment.file.delete()) {
+            LOG.warn("Fail to delete spill segment {}", segment.file);
+        }
+    }
+
+    private static class Segment {
+        private final File file;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int readPosition = 0;
+        private int writePosition = 0;
+
+        Segment(File file, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.baidu.mochow.model.entity.Row;
+
+/**
+ * Rows buffered by a {@link BulkWriter} until the next flush.
+ * <p>
+ * When a primary key extractor is given, the buffer coalesces rows by primary key: a row replaces the buffered row
+ * with the same key, so only the last version of each key is written.
+ */
+@NotThreadSafe
+class WriteBuffer {
+
+    private final RowKeyExtractor primaryKeyExtractor;
+
+    private Map<Object, Row> rowsByKey;
+
+    private List<Row> rows;
+
+    private long firstRowTimeMillis;
+
+    WriteBuffer(RowKeyExtractor primaryKeyExtractor) {
+        this.primaryKeyExtractor = primaryKeyExtractor;
+        this.reset();
+    }
+
+    /**
+     * Adds a row to the buffer.
+     *
+     * @param row the row.
+     * @return true if the row replaced a buffered row with the same primary key.
+     */
+    boolean add(Row row) {
+        if (this.isEmpty()) {
+            this.firstRowTimeMillis = System.currentTimeMillis();
+        }
+        if (this.rowsByKey == null) {
+            this.rows.add(row);
+            return false;
+        }
+        Object key = this.primaryKeyExtractor.extract(row);
+        if (key == null) {
+            // without a key, e.g. an auto-increment primary key, the row cannot be coalesced
+            key = new Object();
+        }
+        return this.rowsByKey.put(key, row) != null;
+    }
+
+    int size() {
+        return this.rowsByKey != null ? this.rowsByKey.size() : this.rows.size();
+    }
+
+    boolean isEmpty() {
+        return this.size() == 0;
+    }
+
+    /**
+     * Returns the time the oldest buffered row was added, in milliseconds since the epoch.
+     */
+    long getFirstRowTimeMillis() {
+        return this.firstRowTimeMillis;
+    }
+
+    /**
+     * Removes and returns all buffered rows.
+     *
+     * @return the buffered rows, in the order their keys were first added.
+     */
+    List<Row> drain() {
+        List<Row> drained = this.rowsByKey != null ? new ArrayList<Row>(this.rowsByKey.values()) : this.rows;
+        this.reset();
+        return drained;
+    }
+
+    /**
+     * Groups rows by partition key and splits them into batches, so that each batch covers as few partitions as
+     * possible. Rows of the same partition keep their relative order.
+     *
+     * @param rows                  the rows.
+     * @param partitionKeyExtractor the partition key extractor.
+     * @param batchSize             the maximum number of rows of a batch.
+     * @return the batches.
+     */
+    static List<List<Row>> groupByPartitionKey(List<Row> rows, RowKeyExtractor partitionKeyExtractor, int batchSize) {
+        Map<Object, List<Row>> rowsByPartitionKey = new LinkedHashMap<Object, List<Row>>();
+        for (Row row : rows) {
+            Object key = partitionKeyExtractor.extract(row);
+            List<Row> group = rowsByPartitionKey.get(key);
+            if (group == null) {
+                group = new ArrayList<Row>();
+                rowsByPartitionKey.put(key, group);
+            }
+            group.add(row);
+        }
+        List<List<Row>> batches = new ArrayList<List<Row>>();
+        List<Row> batch = new ArrayList<Row>(Math.min(batchSize, rows.size()));
+        for (List<Row> group : rowsByPartitionKey.values()) {
+            for (Row row : group) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    batches.add(batch);
+                    batch = new ArrayList<Row>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * Returns the number of distinct partition keys among rows.
+     */
+    static int countPartitionKeys(List<Row> rows, RowKeyExtractor partitionKeyExtractor) {
+        Set<Object> keys = new HashSet<Object>();
+        for (Row row : rows) {
+            keys.add(partitionKeyExtractor.extract(row));
+        }
+        return keys.size();
+    }
+
+    private void reset() {
+        if (this.primaryKeyExtractor != null) {
+            this.rowsByKey = new LinkedHashMap<Object, Row>();
+        } else {
+            this.rows = new ArrayList<Row>();
+        }
+    }
+}
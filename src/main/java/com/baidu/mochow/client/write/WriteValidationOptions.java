@@ -0,0 +1,65 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.client.write;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the client-side validation stage applied to insert and upsert requests.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withWriteValidationOptions(WriteValidationOptions)
+ */
+@Getter
+@Setter
+public class WriteValidationOptions {
+
+    /**
+     * What to do with rows failing validation.
+     */
+    private InvalidRowPolicy invalidRowPolicy = InvalidRowPolicy.REJECT;
+
+    /**
+     * Receives rows dropped under {@link InvalidRowPolicy#QUARANTINE}. Dropped rows are only logged if null.
+     */
+    private QuarantineHandler quarantineHandler = null;
+
+    /**
+     * Whether to scale vectors to unit L2 norm before writing them into a field indexed with the COSINE metric.
+     * Vectors of IP fields are never scaled, as their norm is part of the score. Unnormalized vectors are accepted
+     * as they are if disabled.
+     */
+    private boolean normalizeVectors = false;
+
+    public void setInvalidRowPolicy(InvalidRowPolicy invalidRowPolicy) {
+        checkNotNull(invalidRowPolicy, "invalidRowPolicy should not be null.");
+        this.invalidRowPolicy = invalidRowPolicy;
+    }
+
+    public WriteValidationOptions withInvalidRowPolicy(InvalidRowPolicy invalidRowPolicy) {
+        this.setInvalidRowPolicy(invalidRowPolicy);
+        return this;
+    }
+
+    public WriteValidationOptions withQuarantineHandler(QuarantineHandler quarantineHandler) {
+        this.setQuarantineHandler(quarantineHandler);
+        return this;
+    }
+
+    public WriteValidationOptions withNormalizeVectors(boolean normalizeVectors) {
+        this.setNormalizeVectors(normalizeVectors);
+        return this;
+    }
+}
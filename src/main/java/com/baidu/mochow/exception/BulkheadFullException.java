@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.exception;
+
+import com.baidu.mochow.model.enums.RequestPriority;
+
+/**
+ * Extension of MochowClientException thrown when a request could not get a connection slot of its priority class
+ * in time, because the class already holds its share of the connections of the client. The request has not been
+ * sent.
+ */
+public class BulkheadFullException extends MochowClientException {
+    private static final long serialVersionUID = -2753019437621154820L;
+
+    private final RequestPriority priority;
+
+    /**
+     * The number of connections the priority class may hold.
+     */
+    private final int limit;
+
+    /**
+     * Constructs a new BulkheadFullException.
+     *
+     * @param priority the priority class of the request.
+     * @param limit    the number of connections the class may hold.
+     */
+    public BulkheadFullException(RequestPriority priority, int limit) {
+        super("Bulkhead of " + priority + " requests is full, at " + limit + " connections");
+        this.priority = priority;
+        this.limit = limit;
+    }
+
+    public RequestPriority getPriority() {
+        return this.priority;
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+}
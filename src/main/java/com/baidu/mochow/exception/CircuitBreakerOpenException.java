@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.exception;
+
+/**
+ * Extension of MochowClientException thrown when a request fails fast because the circuit breaker of its endpoint
+ * is open, after too many recent requests to the endpoint failed or were slow. The request has not been sent.
+ */
+public class CircuitBreakerOpenException extends MochowClientException {
+    private static final long serialVersionUID = 4475310836270145541L;
+
+    /**
+     * Constructs a new CircuitBreakerOpenException.
+     *
+     * @param endpoint the endpoint whose circuit is open.
+     */
+    public CircuitBreakerOpenException(String endpoint) {
+        super("Circuit breaker of " + endpoint + " is open");
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.exception;
+
+/**
+ * Extension of MochowClientException thrown when a request is rejected by the client-side adaptive concurrency
+ * limit, as too many requests of its class are in flight to the endpoint. The request has not been sent.
+ */
+public class ConcurrencyLimitExceededException extends MochowClientException {
+    private static final long serialVersionUID = 6120394585610442113L;
+
+    /**
+     * The limit of requests in flight when the request was rejected.
+     */
+    private final int limit;
+
+    /**
+     * Constructs a new ConcurrencyLimitExceededException.
+     *
+     * @param key   the endpoint and operation class whose limit is reached.
+     * @param limit the limit of requests in flight.
+     */
+    public ConcurrencyLimitExceededException(String key, int limit) {
+        super("Concurrency limit of " + limit + " requests reached for " + key);
+        this.limit = limit;
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.exception;
+
+/**
+ * Extension of MochowClientException thrown when a request is rejected by a client-side rate limit rule, because
+ * the rule does not block or the request would have waited too long for its tokens. The request has not been sent.
+ */
+public class RateLimitExceededException extends MochowClientException {
+    private static final long serialVersionUID = -3470296411828459723L;
+
+    /**
+     * Constructs a new RateLimitExceededException.
+     *
+     * @param operation the operation of the rejected request.
+     * @param rule      the rule rejecting it.
+     */
+    public RateLimitExceededException(String operation, String rule) {
+        super("Rate limit exceeded for " + operation + " by " + rule);
+    }
+}
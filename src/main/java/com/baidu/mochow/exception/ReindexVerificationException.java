@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.exception;
+
+/**
+ * Extension of MochowClientException thrown when a table loaded by a reindex does not pass the checks made before
+ * the alias cutover, e.g. its row count or its sampled recall is too low. The alias has not been moved, and the new
+ * table is kept for inspection.
+ */
+public class ReindexVerificationException extends MochowClientException {
+    private static final long serialVersionUID = -3380214756910562847L;
+
+    /**
+     * Constructs a new ReindexVerificationException.
+     *
+     * @param message the failed check.
+     */
+    public ReindexVerificationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.exception;
+
+/**
+ * Extension of MochowClientException thrown when a request is shed by the client because it could not start in
+ * time: the admission queue is full, the request waited too long in it, or no pooled connection could be leased in
+ * time. The request has not been sent, and failing fast lets the caller fall back instead of hanging.
+ */
+public class RequestShedException extends MochowClientException {
+    private static final long serialVersionUID = 8016425738129964213L;
+
+    /**
+     * Constructs a new RequestShedException.
+     *
+     * @param message the reason the request was shed.
+     */
+    public RequestShedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new RequestShedException.
+     *
+     * @param message the reason the request was shed.
+     * @param cause   the cause of the shedding.
+     */
+    public RequestShedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
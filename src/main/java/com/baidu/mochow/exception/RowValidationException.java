@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.exception;
+
+import java.util.List;
+
+import com.baidu.mochow.client.write.InvalidRow;
+
+/**
+ * Extension of MochowClientException thrown when rows of an insert or upsert request fail client-side write
+ * validation. The request has not been sent to the service.
+ */
+public class RowValidationException extends MochowClientException {
+    private static final long serialVersionUID = 2385034735283498517L;
+
+    /**
+     * The rows failing validation.
+     */
+    private final transient List<InvalidRow> invalidRows;
+
+    /**
+     * Constructs a new RowValidationException.
+     *
+     * @param database    the database of the rejected request.
+     * @param table       the table of the rejected request.
+     * @param invalidRows the rows failing validation.
+     */
+    public RowValidationException(String database, String table, List<InvalidRow> invalidRows) {
+        super(invalidRows.size() + " invalid rows written to " + database + "." + table + ", first: "
+                + invalidRows.get(0));
+        this.invalidRows = invalidRows;
+    }
+
+    /**
+     * Returns the rows failing validation.
+     *
+     * @return the rows failing validation.
+     */
+    public List<InvalidRow> getInvalidRows() {
+        return this.invalidRows;
+    }
+}
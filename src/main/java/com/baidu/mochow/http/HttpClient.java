@@ -15,11 +15,21 @@ package com.baidu.mochow.http;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.baidu.mochow.client.ClientConfiguration;
+import com.baidu.mochow.exception.BulkheadFullException;
+import com.baidu.mochow.exception.CircuitBreakerOpenException;
+import com.baidu.mochow.exception.ConcurrencyLimitExceededException;
 import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.RateLimitExceededException;
+import com.baidu.mochow.exception.RequestShedException;
 import com.baidu.mochow.exception.MochowServiceException;
 import com.baidu.mochow.auth.Credentials;
 import com.baidu.mochow.auth.Signer;
 import com.baidu.mochow.http.handler.HttpResponseHandler;
+import com.baidu.mochow.http.resilience.AdaptiveConcurrencyLimiter;
+import com.baidu.mochow.http.resilience.AdmissionController;
+import com.baidu.mochow.http.resilience.Bulkhead;
+import com.baidu.mochow.http.resilience.CircuitBreaker;
+import com.baidu.mochow.http.resilience.RateLimiter;
 import com.baidu.mochow.internal.InternalRequest;
 import com.baidu.mochow.model.AbstractMochowResponse;
 import com.baidu.mochow.util.HttpUtils;
@@ -28,6 +38,7 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.annotation.ThreadSafe;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
@@ -40,6 +51,7 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
 import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
@@ -119,6 +131,31 @@ public class HttpClient {
 
     private boolean isHttpAsyncPutEnabled = false;
 
+    /**
+     * Limits the requests in flight per endpoint and operation class, or null if adaptive concurrency is disabled.
+     */
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Applies the configured rate limit rules, or null if there is none.
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Fails requests fast to unhealthy endpoints, or null if circuit breaking is disabled.
+     */
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * Partitions the connections between request priority classes, or null if disabled.
+     */
+    private final Bulkhead bulkhead;
+
+    /**
+     * Bounds the requests running and queued, or null if admission control is disabled.
+     */
+    private final AdmissionController admissionController;
+
     private static ConcurrentHashMap<String, CloseableHttpAsyncClient> asyncClientMap =
             new ConcurrentHashMap<String, CloseableHttpAsyncClient>();
 
@@ -142,9 +179,19 @@ public class HttpClient {
         this.connectionManager = this.createHttpClientConnectionManager();
         this.httpClient = this.createHttpClient(this.connectionManager);
         IdleConnectionReaper.registerConnectionManager(this.connectionManager);
+        this.concurrencyLimiter = config.getAdaptiveConcurrencyOptions() == null
+                ? null : new AdaptiveConcurrencyLimiter(config.getAdaptiveConcurrencyOptions());
+        this.rateLimiter = config.getRateLimitRules().isEmpty() ? null : new RateLimiter(config.getRateLimitRules());
+        this.circuitBreaker = config.getCircuitBreakerOptions() == null
+                ? null : new CircuitBreaker(config.getCircuitBreakerOptions());
+        this.bulkhead = config.getBulkheadOptions() == null
+                ? null : new Bulkhead(config.getBulkheadOptions(), config.getMaxConnections());
+        this.admissionController = config.getAdmissionOptions() == null
+                ? null : new AdmissionController(config.getAdmissionOptions(), config.getMaxConnections());
 
         this.requestConfigBuilder = RequestConfig.custom();
         this.requestConfigBuilder.setConnectTimeout(config.getConnectionTimeoutInMillis());
+        this.requestConfigBuilder.setConnectionRequestTimeout(config.getConnectionRequestTimeoutInMillis());
         this.requestConfigBuilder.setStaleConnectionCheckEnabled(true);
         if (config.getLocalAddress() != null) {
             this.requestConfigBuilder.setLocalAddress(config.getLocalAddress());
@@ -195,7 +242,33 @@ public class HttpClient {
         for (int attempt = 1; ; ++attempt) {
             HttpRequestBase httpRequest = null;
             CloseableHttpResponse httpResponse = null;
+            AdaptiveConcurrencyLimiter.Permit permit = null;
+            CircuitBreaker.Permit circuitPermit = null;
+            Bulkhead.Permit bulkheadPermit = null;
+            AdmissionController.Permit admissionPermit = null;
             try {
+                if (this.admissionController != null) {
+                    admissionPermit = this.admissionController.acquire();
+                }
+                if (this.rateLimiter != null) {
+                    this.rateLimiter.acquire(request);
+                }
+                // before the circuit breaker and the concurrency limiter, so that a lack of local slots is not
+                // rated as a failure of the endpoint nor shrinks the concurrency limit
+                if (this.bulkhead != null) {
+                    bulkheadPermit = this.bulkhead.acquire(request);
+                }
+                if (this.circuitBreaker != null) {
+                    circuitPermit = this.circuitBreaker.acquire(request);
+                }
+                if (this.concurrencyLimiter != null) {
+                    permit = this.concurrencyLimiter.acquire(request);
+                }
+                if (circuitPermit != null) {
+                    // the waits for the permits above say nothing about the endpoint, so they are not slow calls
+                    circuitPermit.start();
+                }
+
                 // Sign the request if credentials were provided
                 if (credentials != null) {
                     this.signer.sign(request, credentials);
@@ -224,17 +297,64 @@ public class HttpClient {
                         break;
                     }
                 }
+                if (bulkheadPermit != null) {
+                    bulkheadPermit.release();
+                }
+                if (permit != null) {
+                    permit.release(false);
+                }
+                if (circuitPermit != null) {
+                    circuitPermit.release(false);
+                }
+                if (admissionPermit != null) {
+                    admissionPermit.release();
+                }
+                if (this.config.getRetryPolicy() instanceof RequestAwareRetryPolicy) {
+                    ((RequestAwareRetryPolicy) this.config.getRetryPolicy()).onSuccess(request);
+                }
                 // everything is ok
                 return response;
             } catch (Exception e) {
                 MochowClientException bce;
                 if (e instanceof MochowClientException) {
                     bce = (MochowClientException) e;
+                } else if (e instanceof ConnectionPoolTimeoutException) {
+                    if (this.admissionController != null) {
+                        this.admissionController.onConnectionLeaseTimeout();
+                    }
+                    bce = new RequestShedException("Request shed, no connection leased within "
+                            + this.config.getConnectionRequestTimeoutInMillis() + " ms", e);
                 } else {
                     bce = new MochowClientException("Unable to execute HTTP request", e);
                 }
-                delayForNextRetryInMillis =
-                        this.getDelayBeforeNextRetryInMillis(httpRequest, bce, attempt, this.config.getRetryPolicy());
+                if (bulkheadPermit != null) {
+                    bulkheadPermit.release();
+                }
+                if (isClientSideRejection(bce)) {
+                    // rejected by this client after taking the permits, e.g. on a connection lease timeout: the
+                    // endpoint was never reached, so neither its latency nor its health was measured
+                    if (permit != null) {
+                        permit.cancel();
+                    }
+                    if (circuitPermit != null) {
+                        circuitPermit.cancel();
+                    }
+                } else {
+                    if (permit != null) {
+                        permit.release(isOverloadFailure(bce));
+                    }
+                    if (circuitPermit != null) {
+                        circuitPermit.release(isOverloadFailure(bce));
+                    }
+                }
+                if (admissionPermit != null) {
+                    admissionPermit.release();
+                }
+                if (isClientSideRejection(bce)) {
+                    throw bce;
+                }
+                delayForNextRetryInMillis = this.getDelayBeforeNextRetryInMillis(request, httpRequest, bce, attempt,
+                        this.config.getRetryPolicy());
                 if (delayForNextRetryInMillis < 0) {
                     throw bce;
                 }
@@ -271,6 +391,51 @@ public class HttpClient {
         }
     }
 
+    /**
+     * Returns the adaptive concurrency limiter of this client, e.g. to read its current limits.
+     *
+     * @return the limiter, or null if adaptive concurrency is disabled in the client configuration.
+     */
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return this.concurrencyLimiter;
+    }
+
+    /**
+     * Returns the rate limiter of this client, e.g. to read the throttle wait times of its rules.
+     *
+     * @return the rate limiter, or null if no rate limit rule is configured.
+     */
+    public RateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+
+    /**
+     * Returns the circuit breaker of this client, e.g. to read the state of its circuits.
+     *
+     * @return the circuit breaker, or null if it is disabled in the client configuration.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * Returns the bulkhead of this client, e.g. to read the connection slots used by each priority class.
+     *
+     * @return the bulkhead, or null if it is disabled in the client configuration.
+     */
+    public Bulkhead getBulkhead() {
+        return this.bulkhead;
+    }
+
+    /**
+     * Returns the admission controller of this client, e.g. to read its queue depth and shed counts.
+     *
+     * @return the admission controller, or null if it is disabled in the client configuration.
+     */
+    public AdmissionController getAdmissionController() {
+        return this.admissionController;
+    }
+
     /**
      * Shuts down this HTTP client object, releasing any resources that might be held open. This is an optional method,
      * and callers are not expected to call it, but can if they want to explicitly release any open resources. Once a
@@ -308,6 +473,30 @@ public class HttpClient {
         }
     }
 
+    /**
+     * Returns whether a request was rejected by a resilience layer of the client before being sent. Such requests
+     * fail fast and are never retried, as retrying would add to the load they were rejected for.
+     */
+    private static boolean isClientSideRejection(MochowClientException exception) {
+        return exception instanceof RequestShedException
+                || exception instanceof RateLimitExceededException
+                || exception instanceof CircuitBreakerOpenException
+                || exception instanceof ConcurrencyLimitExceededException
+                || exception instanceof BulkheadFullException;
+    }
+
+    /**
+     * Returns whether a request failed because the server or the network is overloaded: on a client side error such
+     * as a timeout or an IO error, or on a 5xx or 429 status.
+     */
+    private static boolean isOverloadFailure(MochowClientException exception) {
+        if (exception instanceof MochowServiceException) {
+            int statusCode = ((MochowServiceException) exception).getStatusCode();
+            return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR || statusCode == StatusCodes.TOO_MANY_REQUESTS;
+        }
+        return true;
+    }
+
     /**
      * Get delay time before next retry.
      *
@@ -319,6 +508,22 @@ public class HttpClient {
      */
     protected long getDelayBeforeNextRetryInMillis(HttpRequestBase method, MochowClientException exception, int attempt,
                                                    RetryPolicy retryPolicy) {
+        return this.getDelayBeforeNextRetryInMillis(null, method, exception, attempt, retryPolicy);
+    }
+
+    /**
+     * Get delay time before next retry, letting a {@link RequestAwareRetryPolicy} look at the failed request.
+     *
+     * @param request     The failed request, or null if unknown.
+     * @param method      The current HTTP method being executed.
+     * @param exception   The client/service exception from the failed request.
+     * @param attempt     The number of times the current request has been attempted.
+     * @param retryPolicy The retryPolicy being used.
+     * @return The deley time before next retry.
+     */
+    protected long getDelayBeforeNextRetryInMillis(InternalRequest request, HttpRequestBase method,
+                                                   MochowClientException exception, int attempt,
+                                                   RetryPolicy retryPolicy) {
         int retries = attempt - 1;
 
         int maxErrorRetry = retryPolicy.getMaxErrorRetry();
@@ -337,6 +542,10 @@ public class HttpClient {
             }
         }
 
+        if (retryPolicy instanceof RequestAwareRetryPolicy) {
+            return Math.min(retryPolicy.getMaxDelayInMillis(), ((RequestAwareRetryPolicy) retryPolicy)
+                    .getDelayBeforeNextRetryInMillis(request, exception, retries));
+        }
         return Math.min(retryPolicy.getMaxDelayInMillis(),
                 retryPolicy.getDelayBeforeNextRetryInMillis(exception, retries));
     }
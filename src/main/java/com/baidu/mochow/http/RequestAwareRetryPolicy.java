@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.internal.InternalRequest;
+
+/**
+ * Retry policy which is told about the failed request itself, e.g. to tell idempotent operations apart, and about
+ * the requests which succeed. {@link HttpClient} calls these methods instead of
+ * {@link RetryPolicy#getDelayBeforeNextRetryInMillis(MochowClientException, int)} when the configured policy
+ * implements this interface.
+ */
+public interface RequestAwareRetryPolicy extends RetryPolicy {
+
+    /**
+     * Returns the delay (in milliseconds) before next retry attempt. A negative value indicates that no more retries
+     * should be made.
+     *
+     * @param request          the failed request.
+     * @param exception        the exception from the failed request, represented as an MochowClientException object.
+     * @param retriesAttempted the number of times the current request has been attempted
+     *         (not including the next attempt after the delay).
+     * @return the delay (in milliseconds) before next retry attempt.A negative value indicates that no more retries
+     *         should be made.
+     */
+    public long getDelayBeforeNextRetryInMillis(InternalRequest request, MochowClientException exception,
+                                                int retriesAttempted);
+
+    /**
+     * Called when a request, retried or not, succeeds.
+     *
+     * @param request the request.
+     */
+    public void onSuccess(InternalRequest request);
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.baidu.mochow.client.ClientConfiguration;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.MochowServiceException;
+import com.baidu.mochow.internal.InternalRequest;
+import com.baidu.mochow.model.enums.ServerErrorCode;
+
+/**
+ * Retry policy capping the retries of all requests of a client to a ratio of its recent successful requests, so
+ * that retries do not multiply the load of an overloaded server.
+ * <p>
+ * Over a sliding window, retries are allowed while they number fewer than
+ * {@code minRetriesPerSecond * window + retryRatio * successes}; the minimum keeps a client with little traffic
+ * able to retry. A failure is first classified by a table keyed by HTTP status and {@link ServerErrorCode}: the
+ * most specific entry wins, i.e. status and code, then code alone, then status alone. Client side failures are
+ * retried when the connection could not be established, and otherwise only for idempotent operations, as the
+ * request may have been applied. A policy holds the budget of the clients it is configured on, so it should not be
+ * shared between clients which should have separate budgets.
+ *
+ * @see ClientConfiguration#withRetryPolicy(RetryPolicy)
+ */
+@ThreadSafe
+public class RetryBudgetPolicy implements RequestAwareRetryPolicy {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetryBudgetPolicy.class);
+
+    /**
+     * Matches any status or error code in the classification table.
+     */
+    public static final int ANY = -1;
+
+    private static final int SCALE_FACTOR = 300;
+
+    private static final int BUCKETS = 10;
+
+    private final int maxErrorRetry;
+    private final long maxDelayInMillis;
+    private final double retryRatio;
+    private final double minRetriesPerSecond;
+    private final long windowInMillis;
+    private final Map<Long, RetryDecision> classifications;
+    private final Set<String> nonIdempotentOperations;
+
+    private final long bucketInMillis;
+    private final long[] bucketEpochs = new long[BUCKETS];
+    private final long[] successes = new long[BUCKETS];
+    private final long[] retries = new long[BUCKETS];
+
+    private final AtomicLong retriesAttempted = new AtomicLong();
+    private final AtomicLong suppressedByBudget = new AtomicLong();
+    private final AtomicLong suppressedAsNonRetriable = new AtomicLong();
+    private final AtomicLong suppressedAsNonIdempotent = new AtomicLong();
+
+    private RetryBudgetPolicy(Builder builder) {
+        this.maxErrorRetry = builder.maxErrorRetry;
+        this.maxDelayInMillis = builder.maxDelayInMillis;
+        this.retryRatio = builder.retryRatio;
+        this.minRetriesPerSecond = builder.minRetriesPerSecond;
+        this.windowInMillis = builder.windowInMillis;
+        this.classifications = new HashMap<Long, RetryDecision>(builder.classifications);
+        this.nonIdempotentOperations = new HashSet<String>(builder.nonIdempotentOperations);
+        this.bucketInMillis = Math.max(1, this.windowInMillis / BUCKETS);
+        Arrays.fill(this.bucketEpochs, -1);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public int getMaxErrorRetry() {
+        return this.maxErrorRetry;
+    }
+
+    @Override
+    public long getMaxDelayInMillis() {
+        return this.maxDelayInMillis;
+    }
+
+    /**
+     * Same as {@link #getDelayBeforeNextRetryInMillis(InternalRequest, MochowClientException, int)} for a request of
+     * unknown operation, which is therefore not retried when it may have been applied.
+     */
+    @Override
+    public long getDelayBeforeNextRetryInMillis(MochowClientException exception, int retriesAttempted) {
+        return this.getDelayBeforeNextRetryInMillis(null, exception, retriesAttempted);
+    }
+
+    @Override
+    public long getDelayBeforeNextRetryInMillis(InternalRequest request, MochowClientException exception,
+                                                int retriesAttempted) {
+        RetryDecision decision = this.classify(exception);
+        if (decision == RetryDecision.NEVER) {
+            this.suppressedAsNonRetriable.incrementAndGet();
+            return -1;
+        }
+        if (decision == RetryDecision.RETRY_IF_IDEMPOTENT
+                && (request == null || this.nonIdempotentOperations.contains(request.getOperation()))) {
+            this.suppressedAsNonIdempotent.incrementAndGet();
+            return -1;
+        }
+        if (!this.tryWithdraw()) {
+            LOG.debug("Retry budget spent, not retrying.");
+            this.suppressedByBudget.incrementAndGet();
+            return -1;
+        }
+        this.retriesAttempted.incrementAndGet();
+        if (retriesAttempted < 0) {
+            return 0;
+        }
+        // jittered, so that clients failing together do not retry together
+        long delay = (1L << (retriesAttempted + 1)) * SCALE_FACTOR;
+        return ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+    }
+
+    @Override
+    public synchronized void onSuccess(InternalRequest request) {
+        this.successes[this.currentBucket()]++;
+    }
+
+    /**
+     * Returns how a failure is classified.
+     *
+     * @param exception the exception from the failed request.
+     */
+    public RetryDecision classify(MochowClientException exception) {
+        if (exception instanceof MochowServiceException) {
+            MochowServiceException e = (MochowServiceException) exception;
+            RetryDecision decision = this.classifications.get(key(e.getStatusCode(), e.getErrorCode()));
+            if (decision == null) {
+                decision = this.classifications.get(key(ANY, e.getErrorCode()));
+            }
+            if (decision == null) {
+                decision = this.classifications.get(key(e.getStatusCode(), ANY));
+            }
+            return decision != null ? decision : RetryDecision.NEVER;
+        }
+        for (Throwable cause = exception.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof UnknownHostException) {
+                return RetryDecision.RETRY;
+            }
+            if (cause instanceof IOException) {
+                return RetryDecision.RETRY_IF_IDEMPOTENT;
+            }
+        }
+        return RetryDecision.NEVER;
+    }
+
+    public RetryBudgetStats getStats() {
+        long recentSuccesses = 0;
+        long recentRetries = 0;
+        synchronized (this) {
+            long epoch = System.currentTimeMillis() / this.bucketInMillis;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (epoch - this.bucketEpochs[i] < BUCKETS) {
+                    recentSuccesses += this.successes[i];
+                    recentRetries += this.retries[i];
+                }
+            }
+        }
+        return new RetryBudgetStats(this.retriesAttempted.get(), this.suppressedByBudget.get(),
+                this.suppressedAsNonRetriable.get(), this.suppressedAsNonIdempotent.get(),
+                recentSuccesses, recentRetries);
+    }
+
+    private synchronized boolean tryWithdraw() {
+        int current = this.currentBucket();
+        long epoch = this.bucketEpochs[current];
+        long recentSuccesses = 0;
+        long recentRetries = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (epoch - this.bucketEpochs[i] < BUCKETS) {
+                recentSuccesses += this.successes[i];
+                recentRetries += this.retries[i];
+            }
+        }
+        double budget = this.minRetriesPerSecond * this.windowInMillis / 1000 + this.retryRatio * recentSuccesses;
+        if (recentRetries >= budget) {
+            return false;
+        }
+        this.retries[current]++;
+        return true;
+    }
+
+    /**
+     * Returns the bucket of the current time, cleared if it last held an older period.
+     */
+    private int currentBucket() {
+        long epoch = System.currentTimeMillis() / this.bucketInMillis;
+        int index = (int) (epoch % BUCKETS);
+        if (this.bucketEpochs[index] != epoch) {
+            this.bucketEpochs[index] = epoch;
+            this.successes[index] = 0;
+            this.retries[index] = 0;
+        }
+        return index;
+    }
+
+    private static long key(int statusCode, int errorCode) {
+        return ((long) statusCode << 32) | (errorCode & 0xffffffffL);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudgetPolicy{maxErrorRetry=" + this.maxErrorRetry + ", retryRatio=" + this.retryRatio
+                + ", minRetriesPerSecond=" + this.minRetriesPerSecond + ", windowInMillis=" + this.windowInMillis + '}';
+    }
+
+    public static class Builder {
+        private int maxErrorRetry = RetryPolicy.DEFAULT_MAX_ERROR_RETRY;
+        private long maxDelayInMillis = RetryPolicy.DEFAULT_MAX_DELAY_IN_MILLIS;
+        private double retryRatio = 0.1;
+        private double minRetriesPerSecond = 10;
+        private long windowInMillis = 10 * 1000;
+        private final Map<Long, RetryDecision> classifications = new HashMap<Long, RetryDecision>();
+        private final Set<String> nonIdempotentOperations = new HashSet<String>(Arrays.asList(
+                "row/insert", "database/create", "table/create", "table/addField", "index/create"));
+
+        Builder() {
+            this.classify(HttpStatus.SC_INTERNAL_SERVER_ERROR, ANY, RetryDecision.RETRY_IF_IDEMPOTENT);
+            this.classify(HttpStatus.SC_BAD_GATEWAY, ANY, RetryDecision.RETRY_IF_IDEMPOTENT);
+            this.classify(HttpStatus.SC_SERVICE_UNAVAILABLE, ANY, RetryDecision.RETRY);
+            this.classify(HttpStatus.SC_GATEWAY_TIMEOUT, ANY, RetryDecision.RETRY_IF_IDEMPOTENT);
+            this.classify(StatusCodes.TOO_MANY_REQUESTS, ANY, RetryDecision.RETRY);
+            this.classify(ANY, ServerErrorCode.TABLE_NOT_READY.getValue(), RetryDecision.RETRY);
+            this.classify(ANY, ServerErrorCode.INVALID_PARAMETER.getValue(), RetryDecision.NEVER);
+        }
+
+        public Builder maxErrorRetry(int maxErrorRetry) {
+            checkArgument(maxErrorRetry >= 0, "maxErrorRetry should be a non-negative.");
+            this.maxErrorRetry = maxErrorRetry;
+            return this;
+        }
+
+        public Builder maxDelayInMillis(long maxDelayInMillis) {
+            checkArgument(maxDelayInMillis >= 0, "maxDelayInMillis should be a non-negative.");
+            this.maxDelayInMillis = maxDelayInMillis;
+            return this;
+        }
+
+        /**
+         * Sets the retries allowed per recent successful request, e.g. 0.1 for at most 10% extra load.
+         */
+        public Builder retryRatio(double retryRatio) {
+            checkArgument(retryRatio >= 0, "retryRatio should not be negative.");
+            this.retryRatio = retryRatio;
+            return this;
+        }
+
+        public Builder minRetriesPerSecond(double minRetriesPerSecond) {
+            checkArgument(minRetriesPerSecond >= 0, "minRetriesPerSecond should not be negative.");
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            return this;
+        }
+
+        public Builder windowInMillis(long windowInMillis) {
+            checkArgument(windowInMillis > 0, "windowInMillis should be positive.");
+            this.windowInMillis = windowInMillis;
+            return this;
+        }
+
+        /**
+         * Classifies the failures with an HTTP status and an error code.
+         *
+         * @param statusCode the HTTP status, or {@link #ANY}.
+         * @param errorCode  the {@link ServerErrorCode} value, or {@link #ANY}.
+         * @param decision   whether such failures may be retried.
+         */
+        public Builder classify(int statusCode, int errorCode, RetryDecision decision) {
+            checkNotNull(decision, "decision should not be null.");
+            this.classifications.put(key(statusCode, errorCode), decision);
+            return this;
+        }
+
+        public Builder classify(ServerErrorCode errorCode, RetryDecision decision) {
+            checkNotNull(errorCode, "errorCode should not be null.");
+            return this.classify(ANY, errorCode.getValue(), decision);
+        }
+
+        /**
+         * Declares an operation, e.g. "row/update", as not idempotent: it is not retried when it may have been
+         * applied. "row/insert" and the creations are not idempotent by default.
+         */
+        public Builder nonIdempotentOperation(String operation) {
+            checkNotNull(operation, "operation should not be null.");
+            this.nonIdempotentOperations.add(operation);
+            return this;
+        }
+
+        /**
+         * Declares an operation as idempotent, e.g. "row/insert" when the primary keys are generated by the caller
+         * and a duplicate key failure on retry is handled.
+         */
+        public Builder idempotentOperation(String operation) {
+            checkNotNull(operation, "operation should not be null.");
+            this.nonIdempotentOperations.remove(operation);
+            return this;
+        }
+
+        public RetryBudgetPolicy build() {
+            return new RetryBudgetPolicy(this);
+        }
+    }
+}
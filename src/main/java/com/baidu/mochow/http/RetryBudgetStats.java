@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Counters of a {@link RetryBudgetPolicy}.
+ */
+@Getter
+@AllArgsConstructor
+public class RetryBudgetStats {
+
+    private final long retriesAttempted;
+
+    /**
+     * Retries not attempted because the budget was spent.
+     */
+    private final long suppressedByBudget;
+
+    /**
+     * Retries not attempted because the failure is classified as never retriable.
+     */
+    private final long suppressedAsNonRetriable;
+
+    /**
+     * Retries not attempted because the request may have been applied and its operation is not idempotent.
+     */
+    private final long suppressedAsNonIdempotent;
+
+    /**
+     * The successful requests in the current window.
+     */
+    private final long recentSuccesses;
+
+    /**
+     * The retries in the current window.
+     */
+    private final long recentRetries;
+
+    @Override
+    public String toString() {
+        return "RetryBudgetStats{retriesAttempted=" + this.retriesAttempted
+                + ", suppressedByBudget=" + this.suppressedByBudget
+                + ", suppressedAsNonRetriable=" + this.suppressedAsNonRetriable
+                + ", suppressedAsNonIdempotent=" + this.suppressedAsNonIdempotent
+                + ", recentSuccesses=" + this.recentSuccesses + ", recentRetries=" + this.recentRetries + '}';
+    }
+}
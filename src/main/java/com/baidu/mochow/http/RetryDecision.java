@@ -0,0 +1,33 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http;
+
+/**
+ * Whether a failed request may be retried, as classified by a {@link RetryBudgetPolicy}.
+ */
+public enum RetryDecision {
+    /**
+     * The request was not applied by the server, e.g. it could not connect or the table is not ready yet, so it may
+     * be retried whatever its operation.
+     */
+    RETRY,
+    /**
+     * The request may or may not have been applied, e.g. on a read timeout or an internal error, so only idempotent
+     * operations may be retried.
+     */
+    RETRY_IF_IDEMPOTENT,
+    /**
+     * Retrying would fail the same way, e.g. on an invalid parameter.
+     */
+    NEVER
+}
@@ -18,4 +18,5 @@ package com.baidu.mochow.http;
 public class StatusCodes {
     public static final int FORBIDDEN = 403;
     public static final int NOT_FOUND = 404;
+    public static final int TOO_MANY_REQUESTS = 429;
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.baidu.mochow.exception.ConcurrencyLimitExceededException;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.internal.InternalRequest;
+
+/**
+ * Limits the requests in flight per endpoint and operation class to a limit adapted from the measured round-trip
+ * times, in the manner of TCP Vegas.
+ * <p>
+ * The round-trip time without queueing is the smallest one measured, and is measured again periodically as the
+ * server's capacity changes. The number of requests queued in the server is estimated as
+ * {@code limit * (1 - minRtt / rtt)}: the limit grows while that estimate is small and shrinks when it exceeds the
+ * tolerated queue, or when a request is dropped on a timeout, an IO error or an overload status. A request over the
+ * limit waits for a slot for at most the configured queue time, then fails fast with a
+ * {@link ConcurrencyLimitExceededException} instead of piling up in the connection pool.
+ */
+@ThreadSafe
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * The limit is re-probed every {@code PROBE_MULTIPLIER * limit} samples, with some jitter.
+     */
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final AdaptiveConcurrencyOptions options;
+
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<String, Limit>();
+
+    public AdaptiveConcurrencyLimiter(AdaptiveConcurrencyOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Takes a slot for a request, waiting for at most the configured queue time.
+     *
+     * @param request the request to send.
+     * @return the permit to release once the response has been received.
+     * @throws ConcurrencyLimitExceededException if no slot is free in time.
+     */
+    public Permit acquire(InternalRequest request) throws MochowClientException {
+        String endpoint = endpointOf(request.getUri());
+        OperationClass operationClass = OperationClass.of(request.getOperation());
+        String key = endpoint + ' ' + operationClass;
+        Limit limit = this.limits.get(key);
+        if (limit == null) {
+            Limit created = new Limit(endpoint, operationClass, this.options);
+            limit = this.limits.putIfAbsent(key, created);
+            if (limit == null) {
+                limit = created;
+            }
+        }
+        try {
+            if (!limit.tryAcquire(TimeUnit.MILLISECONDS.toNanos(this.options.getMaxQueueTimeInMillis()))) {
+                throw new ConcurrencyLimitExceededException(key, limit.getLimit());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MochowClientException("Interrupted while waiting for a concurrency slot", e);
+        }
+        return new Permit(limit, System.nanoTime());
+    }
+
+    /**
+     * Returns the current limits, one per endpoint and operation class seen.
+     */
+    public List<ConcurrencyLimitStats> getStats() {
+        List<ConcurrencyLimitStats> stats = new ArrayList<ConcurrencyLimitStats>();
+        for (Map.Entry<String, Limit> entry : this.limits.entrySet()) {
+            stats.add(entry.getValue().getStats());
+        }
+        return stats;
+    }
+
+    static String endpointOf(URI uri) {
+        return uri.getPort() > 0 ? uri.getHost() + ':' + uri.getPort() : uri.getHost();
+    }
+
+    /**
+     * A slot taken by a request in flight.
+     */
+    public static final class Permit {
+        private final Limit limit;
+        private final long startNanos;
+        private boolean released = false;
+
+        private Permit(Limit limit, long startNanos) {
+            this.limit = limit;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Frees the slot and samples the round-trip time of the request. Releasing twice has no effect.
+         *
+         * @param dropped whether the request failed on a timeout, an IO error or an overload status.
+         */
+        public void release(boolean dropped) {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            this.limit.release(System.nanoTime() - this.startNanos, dropped);
+        }
+
+        /**
+         * Frees the slot without sampling, for a request rejected on the client side before it was sent, e.g. when
+         * no connection could be leased. Releasing twice has no effect.
+         */
+        public void cancel() {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            this.limit.cancel();
+        }
+    }
+
+    private static final class Limit {
+        private final String endpoint;
+        private final OperationClass operationClass;
+        private final int minLimit;
+        private final int maxLimit;
+        private final double smoothing;
+
+        private double limit;
+        private int inFlight = 0;
+        private long rttNoLoadNanos = 0;
+        private long samplesUntilProbe;
+        private long acceptedCount = 0;
+        private long rejectedCount = 0;
+
+        Limit(String endpoint, OperationClass operationClass, AdaptiveConcurrencyOptions options) {
+            this.endpoint = endpoint;
+            this.operationClass = operationClass;
+            this.minLimit = options.getMinLimit();
+            this.maxLimit = Math.max(options.getMinLimit(), options.getMaxLimit());
+            this.smoothing = options.getSmoothing();
+            this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, options.getInitialLimit()));
+            this.samplesUntilProbe = this.nextProbeInterval();
+        }
+
+        synchronized boolean tryAcquire(long maxWaitNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (this.inFlight >= this.getLimit()) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    this.rejectedCount++;
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            }
+            this.inFlight++;
+            this.acceptedCount++;
+            return true;
+        }
+
+        synchronized void release(long rttNanos, boolean dropped) {
+            int sampledInFlight = this.inFlight;
+            this.inFlight--;
+            this.update(rttNanos, sampledInFlight, dropped);
+            this.notifyAll();
+        }
+
+        synchronized void cancel() {
+            this.inFlight--;
+            this.notifyAll();
+        }
+
+        synchronized int getLimit() {
+            return (int) this.limit;
+        }
+
+        synchronized ConcurrencyLimitStats getStats() {
+            return new ConcurrencyLimitStats(this.endpoint, this.operationClass, (int) this.limit, this.inFlight,
+                    this.rttNoLoadNanos / 1e6, this.acceptedCount, this.rejectedCount);
+        }
+
+        private void update(long rttNanos, int sampledInFlight, boolean dropped) {
+            if (rttNanos <= 0) {
+                return;
+            }
+            double current = this.limit;
+            double step = Math.max(1, Math.log10(current));
+            double estimate;
+            if (dropped) {
+                // a drop says nothing about the latency without load, fast failures must not become the baseline
+                estimate = current - step;
+            } else {
+                if (--this.samplesUntilProbe <= 0) {
+                    // forget the baseline, the next sample measures it again at the current load
+                    this.samplesUntilProbe = this.nextProbeInterval();
+                    this.rttNoLoadNanos = rttNanos;
+                    return;
+                }
+                if (this.rttNoLoadNanos == 0 || rttNanos < this.rttNoLoadNanos) {
+                    this.rttNoLoadNanos = rttNanos;
+                    return;
+                }
+                if (sampledInFlight * 2 < current) {
+                    // too few requests in flight to tell anything about the limit
+                    return;
+                }
+                double queueSize = Math.ceil(current * (1 - (double) this.rttNoLoadNanos / rttNanos));
+                if (queueSize <= step) {
+                    estimate = current + 6 * step;
+                } else if (queueSize < 3 * step) {
+                    estimate = current + step;
+                } else if (queueSize > 6 * step) {
+                    estimate = current - step;
+                } else {
+                    return;
+                }
+            }
+            estimate = Math.min(this.maxLimit, Math.max(this.minLimit, estimate));
+            this.limit = (1 - this.smoothing) * current + this.smoothing * estimate;
+        }
+
+        private long nextProbeInterval() {
+            long interval = (long) (PROBE_MULTIPLIER * Math.max(this.limit, this.minLimit));
+            return interval + ThreadLocalRandom.current().nextLong(interval / 2 + 1);
+        }
+    }
+}
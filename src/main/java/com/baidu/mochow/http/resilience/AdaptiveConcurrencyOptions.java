@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the adaptive concurrency limit of requests.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withAdaptiveConcurrencyOptions(AdaptiveConcurrencyOptions)
+ */
+@Getter
+@Setter
+public class AdaptiveConcurrencyOptions {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    public static final int DEFAULT_MAX_LIMIT = 200;
+
+    public static final long DEFAULT_MAX_QUEUE_TIME_IN_MILLIS = 0;
+
+    public static final double DEFAULT_SMOOTHING = 1.0;
+
+    /**
+     * The limit of each endpoint and operation class before any latency is measured.
+     */
+    private int initialLimit = DEFAULT_INITIAL_LIMIT;
+
+    private int minLimit = DEFAULT_MIN_LIMIT;
+
+    /**
+     * The upper bound of the limit. There is no point in setting it above the maximum number of connections.
+     */
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+
+    /**
+     * How long a request over the limit waits for a slot before it is rejected. Zero rejects it immediately.
+     */
+    private long maxQueueTimeInMillis = DEFAULT_MAX_QUEUE_TIME_IN_MILLIS;
+
+    /**
+     * The weight of each new limit estimate, in (0, 1]. Lower values make the limit move more slowly.
+     */
+    private double smoothing = DEFAULT_SMOOTHING;
+
+    public void setInitialLimit(int initialLimit) {
+        checkArgument(initialLimit > 0, "initialLimit should be positive.");
+        this.initialLimit = initialLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        checkArgument(minLimit > 0, "minLimit should be positive.");
+        this.minLimit = minLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        checkArgument(maxLimit > 0, "maxLimit should be positive.");
+        this.maxLimit = maxLimit;
+    }
+
+    public void setMaxQueueTimeInMillis(long maxQueueTimeInMillis) {
+        checkArgument(maxQueueTimeInMillis >= 0, "maxQueueTimeInMillis should not be negative.");
+        this.maxQueueTimeInMillis = maxQueueTimeInMillis;
+    }
+
+    public void setSmoothing(double smoothing) {
+        checkArgument(smoothing > 0 && smoothing <= 1, "smoothing should be in (0, 1].");
+        this.smoothing = smoothing;
+    }
+
+    public AdaptiveConcurrencyOptions withInitialLimit(int initialLimit) {
+        this.setInitialLimit(initialLimit);
+        return this;
+    }
+
+    public AdaptiveConcurrencyOptions withMinLimit(int minLimit) {
+        this.setMinLimit(minLimit);
+        return this;
+    }
+
+    public AdaptiveConcurrencyOptions withMaxLimit(int maxLimit) {
+        this.setMaxLimit(maxLimit);
+        return this;
+    }
+
+    public AdaptiveConcurrencyOptions withMaxQueueTimeInMillis(long maxQueueTimeInMillis) {
+        this.setMaxQueueTimeInMillis(maxQueueTimeInMillis);
+        return this;
+    }
+
+    public AdaptiveConcurrencyOptions withSmoothing(double smoothing) {
+        this.setSmoothing(smoothing);
+        return this;
+    }
+}
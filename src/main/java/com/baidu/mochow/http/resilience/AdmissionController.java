@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.RequestShedException;
+
+/**
+ * Bounds the requests a client runs at once and the requests waiting to run, shedding the others with a
+ * {@link RequestShedException} instead of letting threads pile up in the connection pool.
+ * <p>
+ * A request runs at once if a slot is free. Otherwise it joins the queue if the queue is not full, and waits for a
+ * slot for at most the configured time; slots are handed out in no particular order.
+ */
+@ThreadSafe
+public class AdmissionController {
+
+    private final int maxRunning;
+    private final int maxQueueSize;
+    private final long maxWaitInNanos;
+
+    private int running = 0;
+    private int queueDepth = 0;
+    private long admittedCount = 0;
+    private long queueFullCount = 0;
+    private long timedOutCount = 0;
+    private long connectionLeaseTimeoutCount = 0;
+
+    /**
+     * Constructs a new AdmissionController.
+     *
+     * @param options        the admission options.
+     * @param maxConnections the number of connections of the client, the default number of running slots.
+     */
+    public AdmissionController(AdmissionOptions options, int maxConnections) {
+        this.maxRunning = options.getMaxConcurrentRequests() > 0
+                ? options.getMaxConcurrentRequests() : Math.max(1, maxConnections);
+        this.maxQueueSize = options.getMaxQueueSize();
+        this.maxWaitInNanos = TimeUnit.MILLISECONDS.toNanos(options.getMaxWaitInMillis());
+    }
+
+    /**
+     * Takes a running slot, queueing for it if needed.
+     *
+     * @return the permit to release once the request is done.
+     * @throws RequestShedException if the queue is full or no slot is free in time.
+     */
+    public Permit acquire() throws MochowClientException {
+        synchronized (this) {
+            if (this.running >= this.maxRunning) {
+                if (this.queueDepth >= this.maxQueueSize) {
+                    this.queueFullCount++;
+                    throw new RequestShedException("Request shed, " + this.running + " requests running and "
+                            + this.queueDepth + " queued");
+                }
+                long deadline = System.nanoTime() + this.maxWaitInNanos;
+                this.queueDepth++;
+                try {
+                    while (this.running >= this.maxRunning) {
+                        long remainingNanos = deadline - System.nanoTime();
+                        if (remainingNanos <= 0) {
+                            this.timedOutCount++;
+                            throw new RequestShedException("Request shed after waiting "
+                                    + TimeUnit.NANOSECONDS.toMillis(this.maxWaitInNanos) + " ms in the queue");
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MochowClientException("Interrupted while queued for admission", e);
+                } finally {
+                    this.queueDepth--;
+                }
+            }
+            this.running++;
+            this.admittedCount++;
+        }
+        return new Permit(this);
+    }
+
+    /**
+     * Counts a request shed because no pooled connection could be leased in time.
+     */
+    public synchronized void onConnectionLeaseTimeout() {
+        this.connectionLeaseTimeoutCount++;
+    }
+
+    public synchronized AdmissionStats getStats() {
+        return new AdmissionStats(this.running, this.queueDepth, this.admittedCount, this.queueFullCount,
+                this.timedOutCount, this.connectionLeaseTimeoutCount);
+    }
+
+    private synchronized void release() {
+        this.running--;
+        this.notify();
+    }
+
+    /**
+     * A running slot taken by a request.
+     */
+    public static final class Permit {
+        private final AdmissionController controller;
+        private boolean released = false;
+
+        private Permit(AdmissionController controller) {
+            this.controller = controller;
+        }
+
+        /**
+         * Frees the slot. Releasing twice has no effect.
+         */
+        public void release() {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            this.controller.release();
+        }
+    }
+}
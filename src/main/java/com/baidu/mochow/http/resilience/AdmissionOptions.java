@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the admission queue bounding the requests a client runs and queues.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withAdmissionOptions(AdmissionOptions)
+ */
+@Getter
+@Setter
+public class AdmissionOptions {
+
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 100;
+
+    public static final long DEFAULT_MAX_WAIT_IN_MILLIS = 1000;
+
+    /**
+     * The number of requests which may run at once, or 0 for the maximum number of connections of the client.
+     */
+    private int maxConcurrentRequests = 0;
+
+    /**
+     * The number of requests which may wait for a running slot. A request arriving when the queue is full is shed at
+     * once; with a queue size of 0, requests are shed whenever all slots are taken.
+     */
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+
+    /**
+     * How long a queued request waits for a running slot before being shed.
+     */
+    private long maxWaitInMillis = DEFAULT_MAX_WAIT_IN_MILLIS;
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        checkArgument(maxConcurrentRequests >= 0, "maxConcurrentRequests should not be negative.");
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public void setMaxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize >= 0, "maxQueueSize should not be negative.");
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    public void setMaxWaitInMillis(long maxWaitInMillis) {
+        checkArgument(maxWaitInMillis >= 0, "maxWaitInMillis should not be negative.");
+        this.maxWaitInMillis = maxWaitInMillis;
+    }
+
+    public AdmissionOptions withMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.setMaxConcurrentRequests(maxConcurrentRequests);
+        return this;
+    }
+
+    public AdmissionOptions withMaxQueueSize(int maxQueueSize) {
+        this.setMaxQueueSize(maxQueueSize);
+        return this;
+    }
+
+    public AdmissionOptions withMaxWaitInMillis(long maxWaitInMillis) {
+        this.setMaxWaitInMillis(maxWaitInMillis);
+        return this;
+    }
+
+    /**
+     * Sheds requests at once whenever all running slots are taken, instead of queueing them.
+     */
+    public AdmissionOptions withRejectImmediately() {
+        this.setMaxQueueSize(0);
+        return this;
+    }
+}
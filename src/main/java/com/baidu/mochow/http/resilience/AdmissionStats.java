@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the admission queue of a client.
+ */
+@Getter
+@AllArgsConstructor
+public class AdmissionStats {
+
+    private final int running;
+
+    private final int queueDepth;
+
+    private final long admittedCount;
+
+    /**
+     * Requests shed because the queue was full.
+     */
+    private final long queueFullCount;
+
+    /**
+     * Requests shed after waiting too long in the queue.
+     */
+    private final long timedOutCount;
+
+    /**
+     * Requests shed because no pooled connection could be leased in time.
+     */
+    private final long connectionLeaseTimeoutCount;
+
+    public long getShedCount() {
+        return this.queueFullCount + this.timedOutCount + this.connectionLeaseTimeoutCount;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionStats{running=" + this.running + ", queueDepth=" + this.queueDepth
+                + ", admittedCount=" + this.admittedCount + ", queueFullCount=" + this.queueFullCount
+                + ", timedOutCount=" + this.timedOutCount
+                + ", connectionLeaseTimeoutCount=" + this.connectionLeaseTimeoutCount + '}';
+    }
+}
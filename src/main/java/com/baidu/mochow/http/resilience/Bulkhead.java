@@ -0,0 +1,193 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.baidu.mochow.exception.BulkheadFullException;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.internal.InternalRequest;
+import com.baidu.mochow.model.enums.RequestPriority;
+
+/**
+ * Partitions the connections of a client between request priority classes, so that bulk work cannot lease all of
+ * them and leave interactive requests queued behind it in the connection pool.
+ * <p>
+ * Interactive requests may hold all the slots. Normal and background requests together may hold at most the normal
+ * share of them, and background requests alone at most the background share, so that some slots always stay free for
+ * interactive requests. All classes together hold at most the number of connections.
+ * When slots are scarce, a waiting request of a higher class is served before any request of a lower class. A
+ * request which gets no slot within the configured wait fails with a {@link BulkheadFullException}.
+ */
+@ThreadSafe
+public class Bulkhead {
+
+    private static final RequestPriority[] PRIORITIES = RequestPriority.values();
+
+    private final BulkheadOptions options;
+    private final int capacity;
+    private final int[] limits = new int[PRIORITIES.length];
+    /**
+     * The slots normal and background requests may hold together.
+     */
+    private final int nonInteractiveLimit;
+
+    private final int[] inUse = new int[PRIORITIES.length];
+    private final int[] waiting = new int[PRIORITIES.length];
+    private final long[] acquiredCounts = new long[PRIORITIES.length];
+    private final long[] rejectedCounts = new long[PRIORITIES.length];
+    private int totalInUse = 0;
+    private int nonInteractiveInUse = 0;
+
+    /**
+     * Constructs a new Bulkhead.
+     *
+     * @param options  the bulkhead options.
+     * @param capacity the number of connections of the client.
+     */
+    public Bulkhead(BulkheadOptions options, int capacity) {
+        this.options = options;
+        this.capacity = Math.max(1, capacity);
+        this.limits[RequestPriority.INTERACTIVE.ordinal()] = this.capacity;
+        this.nonInteractiveLimit = share(this.capacity, options.getNormalShare());
+        this.limits[RequestPriority.NORMAL.ordinal()] = this.nonInteractiveLimit;
+        this.limits[RequestPriority.BACKGROUND.ordinal()] = Math.min(this.nonInteractiveLimit,
+                share(this.capacity, options.getBackgroundShare()));
+    }
+
+    /**
+     * Returns the priority of a request: its own, otherwise the one of its operation, otherwise the default one.
+     */
+    public RequestPriority priorityOf(InternalRequest request) {
+        if (request.getPriority() != null) {
+            return request.getPriority();
+        }
+        RequestPriority priority = this.options.getOperationPriorities().get(request.getOperation());
+        return priority != null ? priority : this.options.getDefaultPriority();
+    }
+
+    /**
+     * Takes a slot of the class of a request, waiting for at most the configured time.
+     *
+     * @param request the request to send.
+     * @return the permit to release once the response has been received.
+     * @throws BulkheadFullException if no slot is free in time.
+     */
+    public Permit acquire(InternalRequest request) throws MochowClientException {
+        RequestPriority priority = this.priorityOf(request);
+        int index = priority.ordinal();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.options.getMaxWaitInMillis());
+        synchronized (this) {
+            this.waiting[index]++;
+            try {
+                while (!this.canAcquire(index)) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        this.rejectedCounts[index]++;
+                        // lower classes may have been held back for this request
+                        this.notifyAll();
+                        throw new BulkheadFullException(priority, this.limits[index]);
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MochowClientException("Interrupted while waiting for a bulkhead slot", e);
+            } finally {
+                this.waiting[index]--;
+            }
+            this.inUse[index]++;
+            this.totalInUse++;
+            if (priority != RequestPriority.INTERACTIVE) {
+                this.nonInteractiveInUse++;
+            }
+            this.acquiredCounts[index]++;
+        }
+        return new Permit(this, index);
+    }
+
+    /**
+     * Returns the slots of each priority class.
+     */
+    public synchronized List<BulkheadStats> getStats() {
+        List<BulkheadStats> stats = new ArrayList<BulkheadStats>(PRIORITIES.length);
+        for (RequestPriority priority : PRIORITIES) {
+            int index = priority.ordinal();
+            stats.add(new BulkheadStats(priority, this.limits[index], this.inUse[index], this.waiting[index],
+                    this.acquiredCounts[index], this.rejectedCounts[index]));
+        }
+        return stats;
+    }
+
+    private synchronized void release(int index) {
+        this.inUse[index]--;
+        this.totalInUse--;
+        if (PRIORITIES[index] != RequestPriority.INTERACTIVE) {
+            this.nonInteractiveInUse--;
+        }
+        this.notifyAll();
+    }
+
+    private boolean canAcquire(int index) {
+        if (!this.hasFreeSlot(index)) {
+            return false;
+        }
+        // PRIORITIES are declared from the highest to the lowest
+        for (int higher = 0; higher < index; higher++) {
+            if (this.waiting[higher] > 0 && this.hasFreeSlot(higher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasFreeSlot(int index) {
+        if (this.totalInUse >= this.capacity || this.inUse[index] >= this.limits[index]) {
+            return false;
+        }
+        return PRIORITIES[index] == RequestPriority.INTERACTIVE || this.nonInteractiveInUse < this.nonInteractiveLimit;
+    }
+
+    private static int share(int capacity, double share) {
+        return Math.max(1, (int) Math.floor(capacity * share));
+    }
+
+    /**
+     * A slot taken by a request in flight.
+     */
+    public static final class Permit {
+        private final Bulkhead bulkhead;
+        private final int index;
+        private boolean released = false;
+
+        private Permit(Bulkhead bulkhead, int index) {
+            this.bulkhead = bulkhead;
+            this.index = index;
+        }
+
+        /**
+         * Frees the slot. Releasing twice has no effect.
+         */
+        public void release() {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            this.bulkhead.release(this.index);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import com.baidu.mochow.model.enums.RequestPriority;
+
+/**
+ * Options of the partition of the connections of a client between request priority classes.
+ * <p>
+ * The priority of a request is the one set on it with
+ * {@link com.baidu.mochow.model.AbstractMochowRequest#setPriority(RequestPriority)}, otherwise the one of its
+ * operation, otherwise the default priority. By default searches and queries are interactive, and inserts and upserts
+ * are background work. Interactive requests may use all connections. Normal and background requests together may
+ * only hold the normal share of them, and background requests alone the background share, so that the rest stays
+ * reserved to the higher classes.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withBulkheadOptions(BulkheadOptions)
+ */
+@Getter
+@Setter
+public class BulkheadOptions {
+
+    public static final double DEFAULT_NORMAL_SHARE = 0.8;
+
+    public static final double DEFAULT_BACKGROUND_SHARE = 0.3;
+
+    public static final long DEFAULT_MAX_WAIT_IN_MILLIS = 10 * 1000;
+
+    /**
+     * The share of the connections normal and background requests together may hold.
+     */
+    private double normalShare = DEFAULT_NORMAL_SHARE;
+
+    /**
+     * The share of the connections background requests may hold, at most the normal share.
+     */
+    private double backgroundShare = DEFAULT_BACKGROUND_SHARE;
+
+    /**
+     * How long a request waits for a slot of its class before failing, or 0 to fail at once.
+     */
+    private long maxWaitInMillis = DEFAULT_MAX_WAIT_IN_MILLIS;
+
+    /**
+     * The priority of the requests which have none, and whose operation has none.
+     */
+    private RequestPriority defaultPriority = RequestPriority.NORMAL;
+
+    /**
+     * The priorities of operations, e.g. "row/upsert" or "row/search".
+     */
+    private Map<String, RequestPriority> operationPriorities = defaultOperationPriorities();
+
+    public void setNormalShare(double normalShare) {
+        checkArgument(normalShare > 0 && normalShare <= 1, "normalShare should be in (0, 1].");
+        this.normalShare = normalShare;
+    }
+
+    public void setBackgroundShare(double backgroundShare) {
+        checkArgument(backgroundShare > 0 && backgroundShare <= 1, "backgroundShare should be in (0, 1].");
+        this.backgroundShare = backgroundShare;
+    }
+
+    public void setMaxWaitInMillis(long maxWaitInMillis) {
+        checkArgument(maxWaitInMillis >= 0, "maxWaitInMillis should not be negative.");
+        this.maxWaitInMillis = maxWaitInMillis;
+    }
+
+    public void setDefaultPriority(RequestPriority defaultPriority) {
+        checkNotNull(defaultPriority, "defaultPriority should not be null.");
+        this.defaultPriority = defaultPriority;
+    }
+
+    public void setOperationPriorities(Map<String, RequestPriority> operationPriorities) {
+        checkNotNull(operationPriorities, "operationPriorities should not be null.");
+        this.operationPriorities = operationPriorities;
+    }
+
+    private static Map<String, RequestPriority> defaultOperationPriorities() {
+        Map<String, RequestPriority> priorities = new HashMap<String, RequestPriority>();
+        priorities.put("row/search", RequestPriority.INTERACTIVE);
+        priorities.put("row/batchSearch", RequestPriority.INTERACTIVE);
+        priorities.put("row/query", RequestPriority.INTERACTIVE);
+        priorities.put("row/insert", RequestPriority.BACKGROUND);
+        priorities.put("row/upsert", RequestPriority.BACKGROUND);
+        return priorities;
+    }
+
+    public BulkheadOptions withNormalShare(double normalShare) {
+        this.setNormalShare(normalShare);
+        return this;
+    }
+
+    public BulkheadOptions withBackgroundShare(double backgroundShare) {
+        this.setBackgroundShare(backgroundShare);
+        return this;
+    }
+
+    public BulkheadOptions withMaxWaitInMillis(long maxWaitInMillis) {
+        this.setMaxWaitInMillis(maxWaitInMillis);
+        return this;
+    }
+
+    public BulkheadOptions withDefaultPriority(RequestPriority defaultPriority) {
+        this.setDefaultPriority(defaultPriority);
+        return this;
+    }
+
+    public BulkheadOptions withOperationPriority(String operation, RequestPriority priority) {
+        checkNotNull(operation, "operation should not be null.");
+        checkNotNull(priority, "priority should not be null.");
+        this.operationPriorities.put(operation, priority);
+        return this;
+    }
+}
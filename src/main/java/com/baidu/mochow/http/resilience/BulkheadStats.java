@@ -0,0 +1,48 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import com.baidu.mochow.model.enums.RequestPriority;
+
+/**
+ * Snapshot of the connection slots of one priority class.
+ */
+@Getter
+@AllArgsConstructor
+public class BulkheadStats {
+
+    private final RequestPriority priority;
+
+    /**
+     * The number of slots the class may hold.
+     */
+    private final int limit;
+
+    private final int inUse;
+
+    private final int waiting;
+
+    private final long acquiredCount;
+
+    private final long rejectedCount;
+
+    @Override
+    public String toString() {
+        return "BulkheadStats{priority=" + this.priority + ", limit=" + this.limit + ", inUse=" + this.inUse
+                + ", waiting=" + this.waiting + ", acquiredCount=" + this.acquiredCount
+                + ", rejectedCount=" + this.rejectedCount + '}';
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.baidu.mochow.exception.CircuitBreakerOpenException;
+import com.baidu.mochow.internal.InternalRequest;
+
+/**
+ * Fails requests fast while their endpoint is unhealthy.
+ * <p>
+ * Each endpoint has a circuit, rating the outcomes of its most recent calls in a sliding window. The circuit opens
+ * when the ratio of failed calls or the ratio of slow calls in the window reaches its threshold, once the window
+ * holds the minimum number of calls. While open, requests to the endpoint fail with a
+ * {@link CircuitBreakerOpenException} without being sent. After the configured wait, the circuit goes half-open
+ * and lets a few probe calls through: it closes when they all succeed, and opens again on the first failed or slow
+ * one. Listeners of the options are told of every state transition.
+ */
+@ThreadSafe
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final CircuitBreakerOptions options;
+
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+
+    public CircuitBreaker(CircuitBreakerOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Lets a request through if the circuit of its endpoint is closed, or takes one of the probe slots of a
+     * half-open circuit.
+     *
+     * @param request the request to send.
+     * @return the permit on which to record the outcome of the request.
+     * @throws CircuitBreakerOpenException if the circuit is open, or all its probe slots are taken.
+     */
+    public Permit acquire(InternalRequest request) throws CircuitBreakerOpenException {
+        String endpoint = AdaptiveConcurrencyLimiter.endpointOf(request.getUri());
+        Circuit circuit = this.circuits.get(endpoint);
+        if (circuit == null) {
+            Circuit created = new Circuit(endpoint, this.options);
+            circuit = this.circuits.putIfAbsent(endpoint, created);
+            if (circuit == null) {
+                circuit = created;
+            }
+        }
+        return new Permit(circuit, circuit.acquire(), System.nanoTime());
+    }
+
+    /**
+     * Returns the state of the circuit of an endpoint, CLOSED if no request has been sent to it.
+     *
+     * @param endpoint the endpoint, as host:port.
+     */
+    public CircuitBreakerState getState(String endpoint) {
+        Circuit circuit = this.circuits.get(endpoint);
+        return circuit != null ? circuit.getStats().getState() : CircuitBreakerState.CLOSED;
+    }
+
+    /**
+     * Closes all circuits and clears their windows.
+     */
+    public void reset() {
+        for (Circuit circuit : this.circuits.values()) {
+            circuit.reset();
+        }
+    }
+
+    /**
+     * Returns the state of the circuits, one per endpoint seen.
+     */
+    public List<CircuitBreakerStats> getStats() {
+        List<CircuitBreakerStats> stats = new ArrayList<CircuitBreakerStats>();
+        for (Map.Entry<String, Circuit> entry : this.circuits.entrySet()) {
+            stats.add(entry.getValue().getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * A call let through by a circuit.
+     */
+    public static final class Permit {
+        private final Circuit circuit;
+        private final long generation;
+        private long startNanos;
+        private boolean released = false;
+
+        private Permit(Circuit circuit, long generation, long startNanos) {
+            this.circuit = circuit;
+            this.generation = generation;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Starts timing the call once the waits on the client side are over, as they say nothing about the
+         * endpoint. The call is timed from the acquisition of the permit otherwise.
+         */
+        public void start() {
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Releases the permit without recording an outcome, for a call rejected on the client side before it
+         * reached the endpoint. A probe slot taken by the call is given back. Releasing twice has no effect.
+         */
+        public void cancel() {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            this.circuit.cancel(this.generation);
+        }
+
+        /**
+         * Records the outcome of the call. Releasing twice has no effect.
+         *
+         * @param failed whether the call failed on a timeout, an IO error or an overload status.
+         */
+        public void release(boolean failed) {
+            if (this.released) {
+                return;
+            }
+            this.released = true;
+            this.circuit.record(this.generation, System.nanoTime() - this.startNanos, failed);
+        }
+    }
+
+    private static final class Circuit {
+        private final String endpoint;
+        private final CircuitBreakerOptions options;
+        private final long slowCallNanos;
+
+        private final byte[] outcomes;
+        private int next = 0;
+        private int size = 0;
+        private int failedCount = 0;
+        private int slowCount = 0;
+
+        private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+        /**
+         * Bumped on every transition, so that calls let through in an earlier state are not recorded in the next.
+         */
+        private long generation = 0;
+        private long openedAtNanos = 0;
+        private int probesStarted = 0;
+        private int probesSucceeded = 0;
+        private long notPermittedCount = 0;
+
+        Circuit(String endpoint, CircuitBreakerOptions options) {
+            this.endpoint = endpoint;
+            this.options = options;
+            this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(options.getSlowCallDurationThresholdInMillis());
+            this.outcomes = new byte[options.getSlidingWindowSize()];
+        }
+
+        long acquire() throws CircuitBreakerOpenException {
+            CircuitBreakerState from;
+            long acquiredGeneration;
+            synchronized (this) {
+                from = this.state;
+                if (this.state == CircuitBreakerState.OPEN) {
+                    long waitNanos = TimeUnit.MILLISECONDS.toNanos(this.options.getWaitDurationInOpenStateInMillis());
+                    if (System.nanoTime() - this.openedAtNanos < waitNanos) {
+                        this.notPermittedCount++;
+                        throw new CircuitBreakerOpenException(this.endpoint);
+                    }
+                    this.transition(CircuitBreakerState.HALF_OPEN);
+                }
+                if (this.state == CircuitBreakerState.HALF_OPEN) {
+                    if (this.probesStarted >= this.options.getPermittedCallsInHalfOpenState()) {
+                        this.notPermittedCount++;
+                        throw new CircuitBreakerOpenException(this.endpoint);
+                    }
+                    this.probesStarted++;
+                }
+                acquiredGeneration = this.generation;
+            }
+            if (from == CircuitBreakerState.OPEN) {
+                this.notifyListeners(CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN);
+            }
+            return acquiredGeneration;
+        }
+
+        void record(long generation, long durationNanos, boolean failed) {
+            byte outcome = failed ? FAILED : durationNanos >= this.slowCallNanos ? SLOW : SUCCESS;
+            CircuitBreakerState from;
+            CircuitBreakerState to;
+            synchronized (this) {
+                if (generation != this.generation) {
+                    return;
+                }
+                from = this.state;
+                if (this.state == CircuitBreakerState.HALF_OPEN) {
+                    if (outcome != SUCCESS) {
+                        this.open();
+                    } else if (++this.probesSucceeded >= this.options.getPermittedCallsInHalfOpenState()) {
+                        this.transition(CircuitBreakerState.CLOSED);
+                    }
+                } else if (this.state == CircuitBreakerState.CLOSED) {
+                    this.add(outcome);
+                    if (this.size >= this.options.getMinimumNumberOfCalls()
+                            && (this.failedCount >= this.options.getFailureRateThreshold() * this.size
+                            || this.slowCount >= this.options.getSlowCallRateThreshold() * this.size)) {
+                        this.open();
+                    }
+                }
+                to = this.state;
+            }
+            if (from != to) {
+                this.notifyListeners(from, to);
+            }
+        }
+
+        synchronized void cancel(long generation) {
+            if (generation == this.generation && this.state == CircuitBreakerState.HALF_OPEN) {
+                this.probesStarted--;
+            }
+        }
+
+        void reset() {
+            CircuitBreakerState from;
+            synchronized (this) {
+                from = this.state;
+                this.transition(CircuitBreakerState.CLOSED);
+            }
+            if (from != CircuitBreakerState.CLOSED) {
+                this.notifyListeners(from, CircuitBreakerState.CLOSED);
+            }
+        }
+
+        synchronized CircuitBreakerStats getStats() {
+            boolean rated = this.size >= this.options.getMinimumNumberOfCalls();
+            return new CircuitBreakerStats(this.endpoint, this.state,
+                    rated ? (double) this.failedCount / this.size : 0,
+                    rated ? (double) this.slowCount / this.size : 0,
+                    this.size, this.notPermittedCount);
+        }
+
+        private void add(byte outcome) {
+            if (this.size == this.outcomes.length) {
+                this.remove(this.outcomes[this.next]);
+            } else {
+                this.size++;
+            }
+            this.outcomes[this.next] = outcome;
+            this.next = (this.next + 1) % this.outcomes.length;
+            if (outcome == FAILED) {
+                this.failedCount++;
+            } else if (outcome == SLOW) {
+                this.slowCount++;
+            }
+        }
+
+        private void remove(byte outcome) {
+            if (outcome == FAILED) {
+                this.failedCount--;
+            } else if (outcome == SLOW) {
+                this.slowCount--;
+            }
+        }
+
+        private void open() {
+            this.transition(CircuitBreakerState.OPEN);
+            this.openedAtNanos = System.nanoTime();
+        }
+
+        private void transition(CircuitBreakerState to) {
+            this.state = to;
+            this.generation++;
+            this.probesStarted = 0;
+            this.probesSucceeded = 0;
+            this.next = 0;
+            this.size = 0;
+            this.failedCount = 0;
+            this.slowCount = 0;
+        }
+
+        private void notifyListeners(CircuitBreakerState from, CircuitBreakerState to) {
+            LOGGER.info("Circuit breaker of {} transitioned from {} to {}", this.endpoint, from, to);
+            for (CircuitBreakerListener listener : this.options.getListeners()) {
+                try {
+                    listener.onStateTransition(this.endpoint, from, to);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Circuit breaker listener failed", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+/**
+ * Listener of the state transitions of circuit breakers. It is called synchronously by the thread whose request
+ * triggered the transition, and should return quickly.
+ */
+public interface CircuitBreakerListener {
+
+    /**
+     * Called when the circuit of an endpoint changes state.
+     *
+     * @param endpoint the endpoint, as host:port.
+     * @param from     the previous state.
+     * @param to       the new state.
+     */
+    void onStateTransition(String endpoint, CircuitBreakerState from, CircuitBreakerState to);
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Options of the per-endpoint circuit breakers.
+ *
+ * @see com.baidu.mochow.client.ClientConfiguration#withCircuitBreakerOptions(CircuitBreakerOptions)
+ */
+@Getter
+@Setter
+public class CircuitBreakerOptions {
+
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+
+    public static final long DEFAULT_SLOW_CALL_DURATION_THRESHOLD_IN_MILLIS = 10 * 1000;
+
+    public static final int DEFAULT_SLIDING_WINDOW_SIZE = 100;
+
+    public static final int DEFAULT_MINIMUM_NUMBER_OF_CALLS = 20;
+
+    public static final long DEFAULT_WAIT_DURATION_IN_OPEN_STATE_IN_MILLIS = 30 * 1000;
+
+    public static final int DEFAULT_PERMITTED_CALLS_IN_HALF_OPEN_STATE = 5;
+
+    /**
+     * The ratio of failed calls in the sliding window at which the circuit opens. Timeouts, IO errors, 5xx and 429
+     * responses are failures; other error responses are not, as they do not tell anything about the endpoint health.
+     */
+    private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+
+    /**
+     * The ratio of slow calls in the sliding window at which the circuit opens.
+     */
+    private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+
+    /**
+     * The duration above which a call is slow.
+     */
+    private long slowCallDurationThresholdInMillis = DEFAULT_SLOW_CALL_DURATION_THRESHOLD_IN_MILLIS;
+
+    /**
+     * The number of most recent calls whose outcomes are rated.
+     */
+    private int slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+
+    /**
+     * The number of calls the sliding window must hold before rates are evaluated.
+     */
+    private int minimumNumberOfCalls = DEFAULT_MINIMUM_NUMBER_OF_CALLS;
+
+    /**
+     * How long the circuit stays open before probe calls are let through.
+     */
+    private long waitDurationInOpenStateInMillis = DEFAULT_WAIT_DURATION_IN_OPEN_STATE_IN_MILLIS;
+
+    /**
+     * The number of probe calls in the half-open state. The circuit closes once they all succeed, and opens again
+     * on the first failed or slow one.
+     */
+    private int permittedCallsInHalfOpenState = DEFAULT_PERMITTED_CALLS_IN_HALF_OPEN_STATE;
+
+    private List<CircuitBreakerListener> listeners = new ArrayList<CircuitBreakerListener>();
+
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        checkArgument(failureRateThreshold > 0 && failureRateThreshold <= 1,
+                "failureRateThreshold should be in (0, 1].");
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+        checkArgument(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1,
+                "slowCallRateThreshold should be in (0, 1].");
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    public void setSlowCallDurationThresholdInMillis(long slowCallDurationThresholdInMillis) {
+        checkArgument(slowCallDurationThresholdInMillis > 0, "slowCallDurationThresholdInMillis should be positive.");
+        this.slowCallDurationThresholdInMillis = slowCallDurationThresholdInMillis;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        checkArgument(slidingWindowSize > 0, "slidingWindowSize should be positive.");
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        checkArgument(minimumNumberOfCalls > 0, "minimumNumberOfCalls should be positive.");
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    public void setWaitDurationInOpenStateInMillis(long waitDurationInOpenStateInMillis) {
+        checkArgument(waitDurationInOpenStateInMillis > 0, "waitDurationInOpenStateInMillis should be positive.");
+        this.waitDurationInOpenStateInMillis = waitDurationInOpenStateInMillis;
+    }
+
+    public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+        checkArgument(permittedCallsInHalfOpenState > 0, "permittedCallsInHalfOpenState should be positive.");
+        this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+    }
+
+    public void setListeners(List<CircuitBreakerListener> listeners) {
+        checkNotNull(listeners, "listeners should not be null.");
+        this.listeners = listeners;
+    }
+
+    public CircuitBreakerOptions withFailureRateThreshold(double failureRateThreshold) {
+        this.setFailureRateThreshold(failureRateThreshold);
+        return this;
+    }
+
+    public CircuitBreakerOptions withSlowCallRateThreshold(double slowCallRateThreshold) {
+        this.setSlowCallRateThreshold(slowCallRateThreshold);
+        return this;
+    }
+
+    public CircuitBreakerOptions withSlowCallDurationThresholdInMillis(long slowCallDurationThresholdInMillis) {
+        this.setSlowCallDurationThresholdInMillis(slowCallDurationThresholdInMillis);
+        return this;
+    }
+
+    public CircuitBreakerOptions withSlidingWindowSize(int slidingWindowSize) {
+        this.setSlidingWindowSize(slidingWindowSize);
+        return this;
+    }
+
+    public CircuitBreakerOptions withMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.setMinimumNumberOfCalls(minimumNumberOfCalls);
+        return this;
+    }
+
+    public CircuitBreakerOptions withWaitDurationInOpenStateInMillis(long waitDurationInOpenStateInMillis) {
+        this.setWaitDurationInOpenStateInMillis(waitDurationInOpenStateInMillis);
+        return this;
+    }
+
+    public CircuitBreakerOptions withPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+        this.setPermittedCallsInHalfOpenState(permittedCallsInHalfOpenState);
+        return this;
+    }
+
+    public CircuitBreakerOptions withListener(CircuitBreakerListener listener) {
+        checkNotNull(listener, "listener should not be null.");
+        this.listeners.add(listener);
+        return this;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+/**
+ * States of a {@link CircuitBreaker}.
+ */
+public enum CircuitBreakerState {
+    /**
+     * Requests are sent, and their outcomes recorded.
+     */
+    CLOSED,
+    /**
+     * Requests fail fast without being sent.
+     */
+    OPEN,
+    /**
+     * A few probe requests are sent to decide whether to close the circuit again.
+     */
+    HALF_OPEN
+}
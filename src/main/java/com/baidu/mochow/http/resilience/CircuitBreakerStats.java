@@ -0,0 +1,52 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the circuit breaker of one endpoint.
+ */
+@Getter
+@AllArgsConstructor
+public class CircuitBreakerStats {
+
+    private final String endpoint;
+
+    private final CircuitBreakerState state;
+
+    /**
+     * The ratio of failed calls in the sliding window, or 0 if it holds fewer calls than the minimum.
+     */
+    private final double failureRate;
+
+    /**
+     * The ratio of slow calls in the sliding window, or 0 if it holds fewer calls than the minimum.
+     */
+    private final double slowCallRate;
+
+    private final int bufferedCalls;
+
+    /**
+     * The number of requests failed fast while the circuit was open.
+     */
+    private final long notPermittedCount;
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerStats{endpoint=" + this.endpoint + ", state=" + this.state
+                + ", failureRate=" + this.failureRate + ", slowCallRate=" + this.slowCallRate
+                + ", bufferedCalls=" + this.bufferedCalls + ", notPermittedCount=" + this.notPermittedCount + '}';
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the adaptive concurrency limit of one endpoint and operation class.
+ */
+@Getter
+@AllArgsConstructor
+public class ConcurrencyLimitStats {
+
+    private final String endpoint;
+
+    private final OperationClass operationClass;
+
+    /**
+     * The current limit of requests in flight.
+     */
+    private final int limit;
+
+    private final int inFlight;
+
+    /**
+     * The round-trip time measured without queueing, the baseline of the limit.
+     */
+    private final double minRttInMillis;
+
+    private final long acceptedCount;
+
+    private final long rejectedCount;
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimitStats{endpoint=" + this.endpoint + ", operationClass=" + this.operationClass
+                + ", limit=" + this.limit + ", inFlight=" + this.inFlight + ", minRttInMillis=" + this.minRttInMillis
+                + ", acceptedCount=" + this.acceptedCount + ", rejectedCount=" + this.rejectedCount + '}';
+    }
+}
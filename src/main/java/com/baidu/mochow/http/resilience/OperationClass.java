@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+/**
+ * Classes of operations that are limited separately, as their costs and latencies differ widely.
+ */
+public enum OperationClass {
+    /**
+     * Row reads: query, search, batchSearch and select.
+     */
+    READ,
+    /**
+     * Row writes: insert, upsert, update and delete.
+     */
+    WRITE,
+    /**
+     * Database, table and index management.
+     */
+    ADMIN;
+
+    /**
+     * Returns the class of an operation.
+     *
+     * @param operation the operation name, e.g. "row/search".
+     * @return the operation class.
+     */
+    public static OperationClass of(String operation) {
+        if (!operation.startsWith("row/")) {
+            return ADMIN;
+        }
+        String action = operation.substring("row/".length());
+        if (action.equals("query") || action.equals("search") || action.equals("batchSearch")
+                || action.equals("select")) {
+            return READ;
+        }
+        return WRITE;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import lombok.Getter;
+
+import com.baidu.mochow.internal.InternalRequest;
+
+/**
+ * A rate limit of the requests matching an operation, a database and a table, in requests per second and in request
+ * bytes per second. All requests matching a rule share its token buckets.
+ */
+@Getter
+public class RateLimitRule {
+
+    /**
+     * The operation name, e.g. "row/search" or "index/rebuild", or null for all operations.
+     */
+    private final String operation;
+
+    /**
+     * The database, or null for all databases.
+     */
+    private final String database;
+
+    /**
+     * The table, or null for all tables.
+     */
+    private final String table;
+
+    /**
+     * The sustained rate of requests, or 0 for no request rate limit.
+     */
+    private final double requestsPerSecond;
+
+    /**
+     * The sustained rate of request payload bytes, or 0 for no byte rate limit.
+     */
+    private final double bytesPerSecond;
+
+    /**
+     * How many milliseconds worth of tokens may be spent at once after an idle period.
+     */
+    private final long burstInMillis;
+
+    /**
+     * Whether a request over the rate waits for its tokens, for at most maxWaitInMillis, instead of being rejected.
+     */
+    private final boolean blocking;
+
+    private final long maxWaitInMillis;
+
+    private RateLimitRule(Builder builder) {
+        checkArgument(builder.requestsPerSecond > 0 || builder.bytesPerSecond > 0,
+                "requestsPerSecond or bytesPerSecond should be positive.");
+        this.operation = builder.operation;
+        this.database = builder.database;
+        this.table = builder.table;
+        this.requestsPerSecond = builder.requestsPerSecond;
+        this.bytesPerSecond = builder.bytesPerSecond;
+        this.burstInMillis = builder.burstInMillis;
+        this.blocking = builder.blocking;
+        this.maxWaitInMillis = builder.maxWaitInMillis;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns whether the rule applies to a request.
+     */
+    public boolean matches(InternalRequest request) {
+        return (this.operation == null || this.operation.equals(request.getOperation()))
+                && (this.database == null || this.database.equals(request.getDatabase()))
+                && (this.table == null || this.table.equals(request.getTable()));
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitRule{operation=" + this.operation + ", database=" + this.database + ", table=" + this.table
+                + ", requestsPerSecond=" + this.requestsPerSecond + ", bytesPerSecond=" + this.bytesPerSecond + '}';
+    }
+
+    public static class Builder {
+        private String operation;
+        private String database;
+        private String table;
+        private double requestsPerSecond = 0;
+        private double bytesPerSecond = 0;
+        private long burstInMillis = 1000;
+        private boolean blocking = true;
+        private long maxWaitInMillis = 10 * 1000;
+
+        public Builder operation(String operation) {
+            this.operation = operation;
+            return this;
+        }
+
+        public Builder database(String database) {
+            this.database = database;
+            return this;
+        }
+
+        public Builder table(String table) {
+            this.table = table;
+            return this;
+        }
+
+        public Builder requestsPerSecond(double requestsPerSecond) {
+            checkArgument(requestsPerSecond >= 0, "requestsPerSecond should not be negative.");
+            this.requestsPerSecond = requestsPerSecond;
+            return this;
+        }
+
+        public Builder bytesPerSecond(double bytesPerSecond) {
+            checkArgument(bytesPerSecond >= 0, "bytesPerSecond should not be negative.");
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        public Builder burstInMillis(long burstInMillis) {
+            checkArgument(burstInMillis > 0, "burstInMillis should be positive.");
+            this.burstInMillis = burstInMillis;
+            return this;
+        }
+
+        public Builder blocking(boolean blocking) {
+            this.blocking = blocking;
+            return this;
+        }
+
+        public Builder maxWaitInMillis(long maxWaitInMillis) {
+            checkArgument(maxWaitInMillis >= 0, "maxWaitInMillis should not be negative.");
+            this.maxWaitInMillis = maxWaitInMillis;
+            return this;
+        }
+
+        public RateLimitRule build() {
+            return new RateLimitRule(this);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Snapshot of the counters of one rate limit rule.
+ */
+@Getter
+@AllArgsConstructor
+public class RateLimitStats {
+
+    private final RateLimitRule rule;
+
+    /**
+     * The number of requests that got their tokens, immediately or after waiting.
+     */
+    private final long acquiredCount;
+
+    /**
+     * The number of requests that waited for their tokens.
+     */
+    private final long throttledCount;
+
+    /**
+     * The number of requests rejected, because the rule does not block or the wait would have been too long.
+     */
+    private final long rejectedCount;
+
+    /**
+     * The total time requests waited for their tokens.
+     */
+    private final double totalWaitInMillis;
+
+    /**
+     * Returns the average wait of the throttled requests, or 0 if none waited.
+     */
+    public double getAverageWaitInMillis() {
+        return this.throttledCount == 0 ? 0 : this.totalWaitInMillis / this.throttledCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitStats{rule=" + this.rule + ", acquiredCount=" + this.acquiredCount
+                + ", throttledCount=" + this.throttledCount + ", rejectedCount=" + this.rejectedCount
+                + ", totalWaitInMillis=" + this.totalWaitInMillis + '}';
+    }
+}
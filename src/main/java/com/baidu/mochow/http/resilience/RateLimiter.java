@@ -0,0 +1,183 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.exception.RateLimitExceededException;
+import com.baidu.mochow.http.Headers;
+import com.baidu.mochow.internal.InternalRequest;
+
+/**
+ * Applies the configured {@link RateLimitRule}s to requests. A request takes one request token and as many byte
+ * tokens as its payload has bytes from every rule it matches. Tokens are only kept if every matching rule admits the
+ * request: a rejection gives back the tokens already taken from the other rules.
+ */
+@ThreadSafe
+public class RateLimiter {
+
+    private final List<Limit> limits = new ArrayList<Limit>();
+
+    public RateLimiter(List<RateLimitRule> rules) {
+        for (RateLimitRule rule : rules) {
+            this.limits.add(new Limit(rule));
+        }
+    }
+
+    /**
+     * Takes the tokens of a request from the rules it matches, waiting for them if the rules block.
+     *
+     * @param request the request to send.
+     * @throws RateLimitExceededException if a rule rejects the request.
+     */
+    public void acquire(InternalRequest request) throws MochowClientException {
+        long bytes = -1;
+        List<Limit> reserved = null;
+        List<Long> reservedWaitNanos = null;
+        long waitNanos = 0;
+        for (Limit limit : this.limits) {
+            if (!limit.rule.matches(request)) {
+                continue;
+            }
+            if (bytes < 0) {
+                bytes = payloadSizeOf(request);
+            }
+            long limitWaitNanos = limit.reserve(bytes);
+            if (limitWaitNanos < 0) {
+                if (reserved != null) {
+                    for (Limit reservedLimit : reserved) {
+                        reservedLimit.refund(bytes);
+                    }
+                }
+                limit.rejectedCount.incrementAndGet();
+                throw new RateLimitExceededException(request.getOperation(), limit.rule.toString());
+            }
+            if (reserved == null) {
+                reserved = new ArrayList<Limit>(2);
+                reservedWaitNanos = new ArrayList<Long>(2);
+            }
+            reserved.add(limit);
+            reservedWaitNanos.add(limitWaitNanos);
+            waitNanos = Math.max(waitNanos, limitWaitNanos);
+        }
+        if (reserved == null) {
+            return;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MochowClientException("Interrupted while waiting for rate limit tokens", e);
+            }
+        }
+        for (int i = 0; i < reserved.size(); i++) {
+            reserved.get(i).onAcquired(reservedWaitNanos.get(i));
+        }
+    }
+
+    public List<RateLimitStats> getStats() {
+        List<RateLimitStats> stats = new ArrayList<RateLimitStats>(this.limits.size());
+        for (Limit limit : this.limits) {
+            stats.add(new RateLimitStats(limit.rule, limit.acquiredCount.get(), limit.throttledCount.get(),
+                    limit.rejectedCount.get(), limit.waitNanos.get() / 1e6));
+        }
+        return stats;
+    }
+
+    private static long payloadSizeOf(InternalRequest request) {
+        String contentLength = request.getHeaders().get(Headers.CONTENT_LENGTH);
+        if (contentLength == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class Limit {
+        private final RateLimitRule rule;
+        private final TokenBucket requests;
+        private final TokenBucket bytes;
+
+        private final AtomicLong acquiredCount = new AtomicLong();
+        private final AtomicLong throttledCount = new AtomicLong();
+        private final AtomicLong rejectedCount = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+
+        Limit(RateLimitRule rule) {
+            this.rule = rule;
+            long burstNanos = TimeUnit.MILLISECONDS.toNanos(rule.getBurstInMillis());
+            this.requests = rule.getRequestsPerSecond() > 0
+                    ? new TokenBucket(rule.getRequestsPerSecond(), burstNanos) : null;
+            this.bytes = rule.getBytesPerSecond() > 0 ? new TokenBucket(rule.getBytesPerSecond(), burstNanos) : null;
+        }
+
+        /**
+         * Takes the tokens of a request.
+         *
+         * @return the time to wait before the tokens are available, or -1 if the rule rejects the request, in
+         *         which case no token is taken.
+         */
+        long reserve(long payloadBytes) {
+            long maxWaitNanos = this.rule.isBlocking()
+                    ? TimeUnit.MILLISECONDS.toNanos(this.rule.getMaxWaitInMillis()) : 0;
+            long waitNanos = 0;
+            if (this.requests != null) {
+                waitNanos = this.requests.reserve(1, maxWaitNanos);
+                if (waitNanos < 0) {
+                    return -1;
+                }
+            }
+            if (this.bytes != null && payloadBytes > 0) {
+                long bytesWaitNanos = this.bytes.reserve(payloadBytes, maxWaitNanos);
+                if (bytesWaitNanos < 0) {
+                    if (this.requests != null) {
+                        this.requests.refund(1);
+                    }
+                    return -1;
+                }
+                waitNanos = Math.max(waitNanos, bytesWaitNanos);
+            }
+            return waitNanos;
+        }
+
+        void onAcquired(long waitNanos) {
+            if (waitNanos > 0) {
+                this.throttledCount.incrementAndGet();
+                this.waitNanos.addAndGet(waitNanos);
+            }
+            this.acquiredCount.incrementAndGet();
+        }
+
+        /**
+         * Gives back the tokens taken by {@link #reserve(long)}.
+         */
+        void refund(long payloadBytes) {
+            if (this.requests != null) {
+                this.requests.refund(1);
+            }
+            if (this.bytes != null && payloadBytes > 0) {
+                this.bytes.refund(payloadBytes);
+            }
+        }
+    }
+}
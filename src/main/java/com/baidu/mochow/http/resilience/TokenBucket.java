@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.http.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * A lock-free token bucket, implemented as the generic cell rate algorithm: the only state is the theoretical
+ * arrival time of the next token, advanced with compare-and-set.
+ * <p>
+ * The bucket is full when the theoretical arrival time is not after now. Taking n tokens moves it n emission
+ * intervals forward, from now at the latest; the tokens are available once it is at most {@code burst} ahead of
+ * now.
+ */
+@ThreadSafe
+class TokenBucket {
+
+    private final double intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalNanos;
+
+    /**
+     * @param tokensPerSecond the sustained rate.
+     * @param burstNanos      how much time worth of tokens the bucket holds.
+     */
+    TokenBucket(double tokensPerSecond, long burstNanos) {
+        this.intervalNanos = 1e9 / tokensPerSecond;
+        this.burstNanos = Math.max(burstNanos, (long) Math.ceil(this.intervalNanos));
+        this.theoreticalArrivalNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes tokens if they can be available within the given time.
+     *
+     * @param tokens       the number of tokens; requests larger than the bucket take a full bucket.
+     * @param maxWaitNanos the longest acceptable wait, 0 to take tokens only if they are available now.
+     * @return the time to wait before the tokens are available, 0 if they are, or -1 if they were not taken.
+     */
+    long reserve(long tokens, long maxWaitNanos) {
+        long costNanos = this.costNanosOf(tokens);
+        while (true) {
+            long now = System.nanoTime();
+            long current = this.theoreticalArrivalNanos.get();
+            long next = Math.max(current, now) + costNanos;
+            long waitNanos = next - now - this.burstNanos;
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+            if (this.theoreticalArrivalNanos.compareAndSet(current, next)) {
+                return Math.max(0, waitNanos);
+            }
+        }
+    }
+
+    /**
+     * Gives back tokens taken by {@link #reserve(long, long)}, e.g. when another limit rejected the request.
+     *
+     * @param tokens the number of tokens reserved.
+     */
+    void refund(long tokens) {
+        long costNanos = this.costNanosOf(tokens);
+        while (true) {
+            long current = this.theoreticalArrivalNanos.get();
+            if (this.theoreticalArrivalNanos.compareAndSet(current, current - costNanos)) {
+                return;
+            }
+        }
+    }
+
+    private long costNanosOf(long tokens) {
+        return Math.min(this.burstNanos, (long) Math.ceil(tokens * this.intervalNanos));
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.http.annotation.NotThreadSafe;
 
 import com.baidu.mochow.auth.SignOptions;
 import com.baidu.mochow.http.HttpMethodName;
+import com.baidu.mochow.model.enums.RequestPriority;
 
 /**
  * Represents a request being sent to a Mochow Service, including the
@@ -71,6 +72,32 @@ public class InternalRequest {
 
     private int maxRedirects = 1;
 
+    /**
+     * The name of the operation, e.g. "row/search", used by the resilience layers of the HTTP client. Derived from
+     * the resource path and the action parameter if not set.
+     */
+    @Setter
+    private String operation;
+
+    /**
+     * The database the request is about, if any.
+     */
+    @Setter
+    private String database;
+
+    /**
+     * The table the request is about, if any.
+     */
+    @Setter
+    private String table;
+
+    /**
+     * The client side priority of the request, or null for the priority of its operation.
+     */
+    @Getter
+    @Setter
+    private RequestPriority priority;
+
     public InternalRequest(HttpMethodName httpMethod, URI uri) {
         this.httpMethod = httpMethod;
         this.uri = uri;
@@ -126,6 +153,34 @@ public class InternalRequest {
         this.redirectsEnabled = redirectsEnabled;
     }
 
+    public String getOperation() {
+        if (this.operation != null) {
+            return this.operation;
+        }
+        String path = this.uri.getPath();
+        String resource = path == null ? "" : path.substring(path.lastIndexOf('/') + 1);
+        for (Map.Entry<String, String> parameter : this.parameters.entrySet()) {
+            if (parameter.getValue() == null || parameter.getValue().isEmpty()) {
+                return resource + '/' + parameter.getKey();
+            }
+        }
+        return resource + '/' + this.httpMethod.name().toLowerCase();
+    }
+
+    /**
+     * Returns the database the request is about, falling back to the "database" parameter, or null.
+     */
+    public String getDatabase() {
+        return this.database != null ? this.database : this.parameters.get("database");
+    }
+
+    /**
+     * Returns the table the request is about, falling back to the "table" parameter, or null.
+     */
+    public String getTable() {
+        return this.table != null ? this.table : this.parameters.get("table");
+    }
+
     @Override
     public String toString() {
         return "InternalRequest [httpMethod=" + this.httpMethod + ", uri="  + this.uri + ", "
@@ -13,11 +13,24 @@
 
 package com.baidu.mochow.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import lombok.Setter;
 import org.apache.http.annotation.NotThreadSafe;
 
+import com.baidu.mochow.model.enums.RequestPriority;
+
 /**
  * Base class for all Mochow web service request objects.
  */
 @NotThreadSafe
 public abstract class AbstractMochowRequest {
+
+    /**
+     * The client side priority of the request, or null for the priority of its operation.
+     */
+    @Getter
+    @Setter
+    @JsonIgnore
+    private RequestPriority priority;
 }
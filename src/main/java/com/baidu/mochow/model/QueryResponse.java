@@ -14,10 +14,14 @@
 package com.baidu.mochow.model;
 
 import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import com.baidu.mochow.model.entity.Row;
 
 @Getter
+@Setter
+@NoArgsConstructor
 public class QueryResponse extends AbstractMochowResponse {
     private Row row;
 }
\ No newline at end of file
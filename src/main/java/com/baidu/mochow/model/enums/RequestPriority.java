@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.model.enums;
+
+/**
+ * Client side priority of a request, deciding its share of the connections of the client when they are scarce. It
+ * is not sent to the server.
+ */
+public enum RequestPriority {
+    /**
+     * Latency sensitive requests, e.g. searches serving users. They may use all connections.
+     */
+    INTERACTIVE,
+    /**
+     * The default priority.
+     */
+    NORMAL,
+    /**
+     * Bulk work, e.g. ingestion or scans, which may only use a bounded share of the connections.
+     */
+    BACKGROUND
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.tools;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An immutable snapshot of the progress of a {@link TableCopier} run.
+ */
+@Getter
+@AllArgsConstructor
+public class CopyProgress {
+    private long rowsRead;
+    private long rowsWritten;
+    private long rowsSkipped;
+
+    /**
+     * Row count of the source table reported by showTableStats when the copy started, or -1 if unknown.
+     */
+    private long estimatedTotalRows;
+
+    private long elapsedMillis;
+
+    /**
+     * Returns the write throughput since the copy started.
+     *
+     * @return rows written per second.
+     */
+    public double getRowsPerSecond() {
+        if (this.elapsedMillis <= 0) {
+            return 0;
+        }
+        return this.rowsWritten * 1000.0 / this.elapsedMillis;
+    }
+
+    /**
+     * Returns the estimated remaining time, based on the average read throughput so far and the row count of the
+     * source table. The estimate is an upper bound when a filter or a transform drops rows.
+     *
+     * @return the estimated remaining time in milliseconds, or -1 if it cannot be estimated yet.
+     */
+    public long getEtaMillis() {
+        if (this.estimatedTotalRows < 0 || this.rowsRead <= 0 || this.elapsedMillis <= 0) {
+            return -1;
+        }
+        long remaining = Math.max(0, this.estimatedTotalRows - this.rowsRead);
+        return (long) (remaining * ((double) this.elapsedMillis / this.rowsRead));
+    }
+
+    @Override
+    public String toString() {
+        return "CopyProgress{"
+                + "rowsRead=" + rowsRead
+                + ", rowsWritten=" + rowsWritten
+                + ", rowsSkipped=" + rowsSkipped
+                + ", estimatedTotalRows=" + estimatedTotalRows
+                + ", elapsedMillis=" + elapsedMillis
+                + ", etaMillis=" + getEtaMillis()
+                + '}';
+    }
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.tools;
+
+/**
+ * Callback notified periodically by {@link TableCopier} while a copy is running.
+ */
+public interface CopyProgressListener {
+
+    /**
+     * Called with a snapshot of the copy progress. Invoked from the thread running {@link TableCopier#copy()}, so
+     * implementations should return quickly.
+     *
+     * @param progress the current progress snapshot.
+     */
+    void onProgress(CopyProgress progress);
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.tools;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The outcome of a completed {@link TableCopier} run.
+ */
+@Getter
+@AllArgsConstructor
+public class CopyResult {
+    private long rowsRead;
+    private long rowsWritten;
+    private long rowsSkipped;
+    private long elapsedMillis;
+
+    /**
+     * Row count reported by showTableStats on the source table after the copy, or -1 if not validated.
+     */
+    private long sourceRowCount;
+
+    /**
+     * Row count reported by showTableStats on the target table after the copy, or -1 if not validated.
+     */
+    private long targetRowCount;
+
+    /**
+     * Returns whether the row counts of source and target tables match. Only meaningful when the copy was run
+     * without a filter and without a transform dropping rows, and the target table was empty beforehand.
+     *
+     * @return true if both row counts are known and equal.
+     */
+    public boolean isRowCountMatched() {
+        return this.sourceRowCount >= 0 && this.sourceRowCount == this.targetRowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CopyResult{"
+                + "rowsRead=" + rowsRead
+                + ", rowsWritten=" + rowsWritten
+                + ", rowsSkipped=" + rowsSkipped
+                + ", elapsedMillis=" + elapsedMillis
+                + ", sourceRowCount=" + sourceRowCount
+                + ", targetRowCount=" + targetRowCount
+                + '}';
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.tools;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import com.baidu.mochow.client.MochowClient;
+import com.baidu.mochow.client.read.SelectAllOptions;
+import com.baidu.mochow.client.read.SelectIterator;
+import com.baidu.mochow.exception.MochowClientException;
+import com.baidu.mochow.model.SelectRequest;
+import com.baidu.mochow.model.UpsertRequest;
+import com.baidu.mochow.model.entity.Row;
+import com.baidu.mochow.model.enums.ReadConsistency;
+
+/**
+ * Copies rows from one table to another while both tables stay online.
+ * <p>
+ * Rows are streamed out of the source table with {@link MochowClient#selectAll}, which keeps up to
+ * {@code prefetchPages} pages ahead of the writer, so the next page is already in flight while the current one is
+ * being written. Rows are optionally transformed, regrouped into batches and written to the target table with
+ * upserts, with at most {@code writeParallelism} batches in flight and an optional rows/s rate limit.
+ * <p>
+ * Since upserts are idempotent, an interrupted copy can simply be restarted.
+ */
+public class TableCopier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableCopier.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final int DEFAULT_PREFETCH_PAGES = 2;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_WRITE_PARALLELISM = 4;
+    public static final long DEFAULT_PROGRESS_INTERVAL_IN_MILLIS = 10 * 1000;
+
+    private final MochowClient sourceClient;
+    private final String sourceDatabase;
+    private final String sourceTable;
+    private final MochowClient targetClient;
+    private final String targetDatabase;
+    private final String targetTable;
+    private final String filter;
+    private final List<String> projections;
+    private final ReadConsistency readConsistency;
+    private final Function<Row, Row> transform;
+    private final int pageSize;
+    private final int prefetchPages;
+    private final int batchSize;
+    private final int writeParallelism;
+    private final double rowsPerSecond;
+    private final CopyProgressListener progressListener;
+    private final long progressIntervalInMillis;
+    private final boolean validateRowCount;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong rowsSkipped = new AtomicLong();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+
+    private TableCopier(Builder builder) {
+        checkNotNull(builder.sourceClient, "source client should not be null.");
+        checkNotNull(builder.sourceTable, "source table should not be null.");
+        checkNotNull(builder.targetTable, "target table should not be null.");
+        this.sourceClient = builder.sourceClient;
+        this.sourceDatabase = builder.sourceDatabase;
+        this.sourceTable = builder.sourceTable;
+        this.targetClient = builder.targetClient == null ? builder.sourceClient : builder.targetClient;
+        this.targetDatabase = builder.targetDatabase == null ? builder.sourceDatabase : builder.targetDatabase;
+        this.targetTable = builder.targetTable;
+        this.filter = builder.filter;
+        this.projections = builder.projections;
+        this.readConsistency = builder.readConsistency;
+        this.transform = builder.transform;
+        this.pageSize = builder.pageSize;
+        this.prefetchPages = builder.prefetchPages;
+        this.batchSize = builder.batchSize;
+        this.writeParallelism = builder.writeParallelism;
+        this.rowsPerSecond = builder.rowsPerSecond;
+        this.progressListener = builder.progressListener;
+        this.progressIntervalInMillis = builder.progressIntervalInMillis;
+        this.validateRowCount = builder.validateRowCount;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs the copy and blocks until every row has been written to the target table, or the first failure.
+     * A TableCopier instance can only be run once.
+     *
+     * @return the result of the copy.
+     * @throws MochowClientException if reading the source or writing the target fails, or the copy is interrupted.
+     */
+    public CopyResult copy() throws MochowClientException {
+        long startTime = System.currentTimeMillis();
+        long estimatedTotalRows = this.getRowCount(this.sourceClient, this.sourceDatabase, this.sourceTable);
+
+        SelectRequest request = SelectRequest.builder()
+                .database(this.sourceDatabase)
+                .table(this.sourceTable)
+                .filter(this.filter)
+                .limit(this.pageSize)
+                .projections(this.projections)
+                .readConsistency(this.readConsistency).build();
+        Semaphore inFlightBatches = new Semaphore(this.writeParallelism);
+        RateLimiter rateLimiter = this.rowsPerSecond > 0 ? RateLimiter.create(this.rowsPerSecond) : null;
+        SelectIterator rows = this.sourceClient.selectAll(request,
+                new SelectAllOptions().withPrefetchPages(this.prefetchPages));
+        ExecutorService writers = Executors.newFixedThreadPool(this.writeParallelism,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mochow-table-copier-writer-%d").build());
+        try {
+            List<Row> batch = new ArrayList<Row>(this.batchSize);
+            long lastReportTime = startTime;
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                this.rowsRead.incrementAndGet();
+                Row transformed = this.transform == null ? row : this.transform.apply(row);
+                if (transformed == null) {
+                    this.rowsSkipped.incrementAndGet();
+                    continue;
+                }
+                batch.add(transformed);
+                if (batch.size() < this.batchSize) {
+                    continue;
+                }
+                this.submitBatch(batch, writers, inFlightBatches, rateLimiter);
+                batch = new ArrayList<Row>(this.batchSize);
+                long now = System.currentTimeMillis();
+                if (now - lastReportTime >= this.progressIntervalInMillis) {
+                    this.reportProgress(estimatedTotalRows, now - startTime);
+                    lastReportTime = now;
+                }
+            }
+            if (!batch.isEmpty()) {
+                this.submitBatch(batch, writers, inFlightBatches, rateLimiter);
+            }
+            // wait for all in-flight batches to finish
+            inFlightBatches.acquire(this.writeParallelism);
+            inFlightBatches.release(this.writeParallelism);
+            this.checkFailure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MochowClientException("Table copy interrupted", e);
+        } finally {
+            rows.close();
+            writers.shutdownNow();
+        }
+
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+        this.reportProgress(estimatedTotalRows, elapsedMillis);
+
+        long sourceRowCount = -1;
+        long targetRowCount = -1;
+        if (this.validateRowCount) {
+            sourceRowCount = this.getRowCount(this.sourceClient, this.sourceDatabase, this.sourceTable);
+            targetRowCount = this.getRowCount(this.targetClient, this.targetDatabase, this.targetTable);
+            if (sourceRowCount != targetRowCount) {
+                LOG.warn("Row count mismatch after copying {}.{} to {}.{}: source={}, target={}",
+                        this.sourceDatabase, this.sourceTable, this.targetDatabase, this.targetTable,
+                        sourceRowCount, targetRowCount);
+            }
+        }
+        return new CopyResult(this.rowsRead.get(), this.rowsWritten.get(), this.rowsSkipped.get(), elapsedMillis,
+                sourceRowCount, targetRowCount);
+    }
+
+    private void submitBatch(final List<Row> batch, ExecutorService writers, final Semaphore inFlightBatches,
+                             RateLimiter rateLimiter) throws InterruptedException {
+        if (rateLimiter != null) {
+            rateLimiter.acquire(batch.size());
+        }
+        inFlightBatches.acquire();
+        this.checkFailure(inFlightBatches);
+        try {
+            writers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (failure.get() != null) {
+                            return;
+                        }
+                        UpsertRequest request = UpsertRequest.builder()
+                                .database(targetDatabase)
+                                .table(targetTable)
+                                .rows(batch).build();
+                        targetClient.upsert(request);
+                        rowsWritten.addAndGet(batch.size());
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlightBatches.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightBatches.release();
+            throw new MochowClientException("Fail to schedule batch write", e);
+        }
+    }
+
+    private void checkFailure(Semaphore heldPermit) {
+        if (this.failure.get() != null) {
+            heldPermit.release();
+            this.checkFailure();
+        }
+    }
+
+    private void checkFailure() {
+        RuntimeException e = this.failure.get();
+        if (e == null) {
+            return;
+        }
+        if (e instanceof MochowClientException) {
+            throw (MochowClientException) e;
+        }
+        throw new MochowClientException("Fail to copy table", e);
+    }
+
+    private void reportProgress(long estimatedTotalRows, long elapsedMillis) {
+        CopyProgress progress = new CopyProgress(this.rowsRead.get(), this.rowsWritten.get(), this.rowsSkipped.get(),
+                estimatedTotalRows, elapsedMillis);
+        LOG.debug("Copying {}.{} to {}.{}: {}", this.sourceDatabase, this.sourceTable, this.targetDatabase,
+                this.targetTable, progress);
+        if (this.progressListener != null) {
+            this.progressListener.onProgress(progress);
+        }
+    }
+
+    private long getRowCount(MochowClient client, String database, String table) {
+        try {
+            return client.showTableStats(database, table).getRowCount();
+        } catch (MochowClientException e) {
+            LOG.warn("Fail to get row count of {}.{}", database, table, e);
+            return -1;
+        }
+    }
+
+    public static class Builder {
+        private MochowClient sourceClient;
+        private String sourceDatabase;
+        private String sourceTable;
+        private MochowClient targetClient;
+        private String targetDatabase;
+        private String targetTable;
+        private String filter;
+        private List<String> projections;
+        private ReadConsistency readConsistency;
+        private Function<Row, Row> transform;
+        private int pageSize;
+        private int prefetchPages;
+        private int batchSize;
+        private int writeParallelism;
+        private double rowsPerSecond;
+        private CopyProgressListener progressListener;
+        private long progressIntervalInMillis;
+        private boolean validateRowCount;
+
+        public Builder() {
+            this.readConsistency = ReadConsistency.EVENTUAL;
+            this.pageSize = DEFAULT_PAGE_SIZE;
+            this.prefetchPages = DEFAULT_PREFETCH_PAGES;
+            this.batchSize = DEFAULT_BATCH_SIZE;
+            this.writeParallelism = DEFAULT_WRITE_PARALLELISM;
+            this.progressIntervalInMillis = DEFAULT_PROGRESS_INTERVAL_IN_MILLIS;
+            this.validateRowCount = true;
+        }
+
+        public Builder source(MochowClient client, String database, String table) {
+            this.sourceClient = client;
+            this.sourceDatabase = database;
+            this.sourceTable = table;
+            return this;
+        }
+
+        /**
+         * Sets the target table. The client may point to another cluster endpoint than the source client.
+         */
+        public Builder target(MochowClient client, String database, String table) {
+            this.targetClient = client;
+            this.targetDatabase = database;
+            this.targetTable = table;
+            return this;
+        }
+
+        public Builder filter(String filter) {
+            this.filter = filter;
+            return this;
+        }
+
+        public Builder projections(List<String> projections) {
+            this.projections = projections;
+            return this;
+        }
+
+        public Builder readConsistency(ReadConsistency readConsistency) {
+            this.readConsistency = readConsistency;
+            return this;
+        }
+
+        /**
+         * Sets a function applied to every source row before it is written. Returning null skips the row.
+         */
+        public Builder transform(Function<Row, Row> transform) {
+            this.transform = transform;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            checkArgument(pageSize > 0, "pageSize should be positive.");
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder prefetchPages(int prefetchPages) {
+            checkArgument(prefetchPages > 0, "prefetchPages should be positive.");
+            this.prefetchPages = prefetchPages;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            checkArgument(batchSize > 0, "batchSize should be positive.");
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder writeParallelism(int writeParallelism) {
+            checkArgument(writeParallelism > 0, "writeParallelism should be positive.");
+            this.writeParallelism = writeParallelism;
+            return this;
+        }
+
+        /**
+         * Limits the write throughput. A non-positive value means unlimited.
+         */
+        public Builder rowsPerSecond(double rowsPerSecond) {
+            this.rowsPerSecond = rowsPerSecond;
+            return this;
+        }
+
+        public Builder progressListener(CopyProgressListener progressListener) {
+            this.progressListener = progressListener;
+            return this;
+        }
+
+        public Builder progressIntervalInMillis(long progressIntervalInMillis) {
+            checkArgument(progressIntervalInMillis >= 0, "progressIntervalInMillis should not be negative.");
+            this.progressIntervalInMillis = progressIntervalInMillis;
+            return this;
+        }
+
+        public Builder validateRowCount(boolean validateRowCount) {
+            this.validateRowCount = validateRowCount;
+            return this;
+        }
+
+        public TableCopier build() {
+            return new TableCopier(this);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.util;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.baidu.mochow.model.entity.Row;
+
+/**
+ * Rough estimate of the heap taken by deserialized rows, used to cap client-side buffers and caches.
+ * <p>
+ * The estimate assumes a 64-bit JVM with compressed references; it is meant to be within a small factor of the real
+ * footprint, not exact.
+ */
+public class RowSizeEstimator {
+
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long REFERENCE_SIZE = 4;
+    private static final long MAP_ENTRY_SIZE = 32;
+
+    /**
+     * Returns the estimated heap size of rows in bytes.
+     */
+    public static long estimate(List<Row> rows) {
+        if (rows == null) {
+            return 0;
+        }
+        long size = OBJECT_OVERHEAD + REFERENCE_SIZE * rows.size();
+        for (Row row : rows) {
+            size += estimate(row);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated heap size of a row in bytes.
+     */
+    public static long estimate(Row row) {
+        if (row == null) {
+            return 0;
+        }
+        return OBJECT_OVERHEAD + estimateValue(row.getFields());
+    }
+
+    private static long estimateValue(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return OBJECT_OVERHEAD + 8;
+        }
+        if (value instanceof CharSequence) {
+            return 2 * OBJECT_OVERHEAD + 8 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof float[]) {
+            return OBJECT_OVERHEAD + 4L * ((float[]) value).length;
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long size = 2 * OBJECT_OVERHEAD + REFERENCE_SIZE * collection.size();
+            for (Object element : collection) {
+                size += estimateValue(element);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            long size = 3 * OBJECT_OVERHEAD + MAP_ENTRY_SIZE * map.size();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimateValue(entry.getKey()) + estimateValue(entry.getValue());
+            }
+            return size;
+        }
+        return OBJECT_OVERHEAD;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2024 Baidu, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package com.baidu.mochow.util;
+
+import java.util.List;
+
+/**
+ * Utilities for float vectors.
+ * <p>
+ * The kernels work on primitive float arrays with plain indexed loops so that the JIT can unroll and vectorize them.
+ * Reductions keep four independent accumulators, since a single floating point accumulator serializes the loop on
+ * the add latency.
+ */
+public class VectorUtils {
+
+    /**
+     * Converts a vector field value to a float array. Row values may be a float array, or a list of numbers either
+     * built by the caller or deserialized from a response.
+     *
+     * @param value the vector value.
+     * @return the vector as a float array, or null if the value is not a vector.
+     */
+    public static float[] toFloatArray(Object value) {
+        if (value instanceof float[]) {
+            return (float[]) value;
+        }
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<?> list = (List<?>) value;
+        float[] vector = new float[list.size()];
+        for (int i = 0; i < vector.length; i++) {
+            Object element = list.get(i);
+            if (!(element instanceof Number)) {
+                return null;
+            }
+            vector[i] = ((Number) element).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * Returns whether all elements of the vector are finite, i.e. neither NaN nor infinite.
+     *
+     * @param vector the vector.
+     * @return true if every element is finite.
+     */
+    public static boolean isFinite(float[] vector) {
+        for (int i = 0; i < vector.length; i++) {
+            if (Float.isNaN(vector[i]) || Float.isInfinite(vector[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the squared L2 norm of the vector.
+     *
+     * @param vector the vector.
+     * @return the sum of the squares of all elements.
+     */
+    public static float squaredNorm(float[] vector) {
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = vector.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += vector[i] * vector[i];
+            s1 += vector[i + 1] * vector[i + 1];
+            s2 += vector[i + 2] * vector[i + 2];
+            s3 += vector[i + 3] * vector[i + 3];
+        }
+        for (; i < vector.length; i++) {
+            s0 += vector[i] * vector[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Scales the vector in place to unit L2 norm. A zero vector is left unchanged.
+     *
+     * @param vector the vector.
+     * @return true if the vector has been scaled.
+     */
+    public static boolean normalize(float[] vector) {
+        float norm = (float) Math.sqrt(squaredNorm(vector));
+        if (norm == 0) {
+            return false;
+        }
+        float scale = 1.0f / norm;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the vector has unit L2 norm within the given tolerance.
+     *
+     * @param vector    the vector.
+     * @param tolerance the maximum accepted difference between the squared norm and 1.
+     * @return true if the vector is normalized.
+     */
+    public static boolean isNormalized(float[] vector, float tolerance) {
+        return Math.abs(squaredNorm(vector) - 1.0f) <= tolerance;
+    }
+
+    /**
+     * Returns the inner product of two vectors of the same dimension.
+     *
+     * @param a the first vector.
+     * @param b the second vector.
+     * @return the sum of the products of their elements.
+     */
+    public static float dotProduct(float[] a, float[] b) {
+        checkDimensions(a, b);
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = a.length & ~3;
+        for (; i < bound; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the squared L2 distance of two vectors of the same dimension.
+     *
+     * @param a the first vector.
+     * @param b the second vector.
+     * @return the sum of the squares of the differences of their elements.
+     */
+    public static float squaredL2Distance(float[] a, float[] b) {
+        checkDimensions(a, b);
+        float s0 = 0;
+        float s1 = 0;
+        float s2 = 0;
+        float s3 = 0;
+        int i = 0;
+        int bound = a.length & ~3;
+        for (; i < bound; i += 4) {
+            float d0 = a[i] - b[i];
+            float d1 = a[i + 1] - b[i + 1];
+            float d2 = a[i + 2] - b[i + 2];
+            float d3 = a[i + 3] - b[i + 3];
+            s0 += d0 * d0;
+            s1 += d1 * d1;
+            s2 += d2 * d2;
+            s3 += d3 * d3;
+        }
+        for (; i < a.length; i++) {
+            float d = a[i] - b[i];
+            s0 += d * d;
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns the cosine similarity of two vectors of the same dimension, computing the inner product and both norms
+     * in one pass.
+     *
+     * @param a the first vector.
+     * @param b the second vector.
+     * @return the inner product divided by the product of the norms, or 0 if either vector is zero.
+     */
+    public static float cosineSimilarity(float[] a, float[] b) {
+        checkDimensions(a, b);
+        float dot0 = 0;
+        float dot1 = 0;
+        float na0 = 0;
+        float na1 = 0;
+        float nb0 = 0;
+        float nb1 = 0;
+        int i = 0;
+        int bound = a.length & ~1;
+        for (; i < bound; i += 2) {
+            dot0 += a[i] * b[i];
+            dot1 += a[i + 1] * b[i + 1];
+            na0 += a[i] * a[i];
+            na1 += a[i + 1] * a[i + 1];
+            nb0 += b[i] * b[i];
+            nb1 += b[i + 1] * b[i + 1];
+        }
+        for (; i < a.length; i++) {
+            dot0 += a[i] * b[i];
+            na0 += a[i] * a[i];
+            nb0 += b[i] * b[i];
+        }
+        double norms = Math.sqrt((double) (na0 + na1) * (nb0 + nb1));
+        return norms == 0 ? 0 : (float) ((dot0 + dot1) / norms);
+    }
+
+    private static void checkDimensions(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("vector dimensions differ: " + a.length + " and " + b.length);
+        }
+    }
+}